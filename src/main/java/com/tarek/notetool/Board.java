@@ -1,13 +1,17 @@
 package com.tarek.notetool;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -17,10 +21,41 @@ import java.util.stream.Collectors;
  */
 public class Board {
 
+    /**
+     * Receives the changes made through a board (to its notes and columns), e.g. to journal them or to mark the
+     * board as dirty.
+     */
+    public interface ChangeListener {
+        void changed(BoardEvent event);
+    }
+
+    /**
+     * Lightweight metadata about a board that can be read from its file without parsing the notes.
+     */
+    public record Header(String name, int memberCount, int columnCount, int noteCount, long lastModifiedMillis) {
+    }
+
+    /**
+     * Loads the content of a board that was only read from its header.
+     */
+    interface ContentLoader {
+        /**
+         * @return A fully parsed board whose members, columns and notes are moved into the header-only board.
+         */
+        Board load() throws IOException;
+    }
+
     private String name;
     private List<User> members;
     private final List<Column> columns;
+    private final Map<UUID, Column> columnsById = new HashMap<>();
     private final Map<UUID, Note> notes;
+    private transient ChangeListener changeListener;
+    // Lazy residency: while this is set, the members, columns and notes aren't in memory yet.
+    private transient ContentLoader contentLoader;
+    private transient Header deferredHeader;
+    private transient long lastModifiedMillis; // When the board's file was last written
+    private transient NoteBodyStore noteBodyStore; // Where the note bodies of a binary board are saved, if anywhere
 
     /**
      * Constructs a new Board with a given name.
@@ -38,6 +73,7 @@ public class Board {
             this.columns.add(new Column("To Do"));
             this.columns.add(new Column("In Progress"));
             this.columns.add(new Column("Done"));
+            indexColumns();
         }
     }
 
@@ -45,21 +81,184 @@ public class Board {
         return name;
     }
 
+    /**
+     * Sets the board's name. Boards that belong to a manager are renamed with {@link NoteManager#renameBoard}.
+     */
     public void setName(String name) {
         this.name = name;
     }
 
     public List<User> getMembers() {
+        ensureResident();
         return Collections.unmodifiableList(members);
     }
 
     public List<Column> getColumns() {
+        ensureResident();
         return Collections.unmodifiableList(columns);
     }
 
+    /**
+     * Replaces the board's columns, e.g. to add, remove or reorder columns. Columns are matched by ID, and the
+     * listener is told which ones were removed and added and whether the others changed order.
+     * @param columns The new columns, in order.
+     */
     public void setColumns(List<Column> columns) {
+        ensureResident();
+        List<Column> previous = new ArrayList<>(this.columns);
         this.columns.clear();
         this.columns.addAll(columns);
+        indexColumns();
+        if (changeListener == null) {
+            return;
+        }
+
+        Set<UUID> previousIds = previous.stream().map(Column::getId).collect(Collectors.toSet());
+        Set<UUID> newIds = columns.stream().map(Column::getId).collect(Collectors.toSet());
+        for (Column column : previous) {
+            if (!newIds.contains(column.getId())) {
+                changeListener.changed(new BoardEvent.ColumnRemoved(this, column));
+            }
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            if (!previousIds.contains(columns.get(i).getId())) {
+                changeListener.changed(new BoardEvent.ColumnAdded(this, columns.get(i), i));
+            }
+        }
+        List<UUID> keptBefore = previous.stream().map(Column::getId).filter(newIds::contains).toList();
+        List<UUID> keptAfter = columns.stream().map(Column::getId).filter(previousIds::contains).toList();
+        if (!keptBefore.equals(keptAfter)) {
+            changeListener.changed(new BoardEvent.ColumnsReordered(this));
+        }
+    }
+
+    /**
+     * Renames a column of the board.
+     * @param columnId The ID of the column to rename.
+     * @param newName The new name.
+     * @return true if the column was found and its name changed, false otherwise.
+     */
+    public boolean renameColumn(UUID columnId, String newName) {
+        return findColumnById(columnId).map(column -> {
+            String oldName = column.getName();
+            if (oldName.equals(newName)) {
+                return false;
+            }
+            column.setName(newName);
+            if (changeListener != null) {
+                changeListener.changed(new BoardEvent.ColumnRenamed(this, column, oldName));
+            }
+            return true;
+        }).orElse(false);
+    }
+
+    /**
+     * Creates a deep copy of this board for saving: columns keep their IDs and every note is copied,
+     * so the copy can be serialized on another thread while this board keeps changing.
+     * The copy has no change listener.
+     * @return An independent copy of this board.
+     */
+    Board snapshot() {
+        ensureResident();
+        Board copy = new Board(name, members, false);
+        for (Column column : columns) {
+            copy.columns.add(new Column(column));
+        }
+        copy.indexColumns();
+        for (Note note : notes.values()) {
+            copy.notes.put(note.getId(), new Note(note));
+        }
+        copy.noteBodyStore = noteBodyStore;
+        return copy;
+    }
+
+    NoteBodyStore getNoteBodyStore() {
+        return noteBodyStore;
+    }
+
+    void setNoteBodyStore(NoteBodyStore noteBodyStore) {
+        this.noteBodyStore = noteBodyStore;
+    }
+
+    // --- Lazy residency ---
+
+    /**
+     * Turns this board into a header-only board: its content is loaded by the given loader the first time it's needed.
+     * Any content currently in memory is dropped, so this must only be used for boards whose content is saved.
+     * @param contentLoader Loads the board's content from disk.
+     * @param header The metadata to report while the content isn't loaded.
+     */
+    void deferContent(ContentLoader contentLoader, Header header) {
+        notes.values().forEach(note -> note.setChangeListener(null));
+        members = new ArrayList<>();
+        columns.clear();
+        columnsById.clear();
+        notes.clear();
+        this.noteBodyStore = null;
+        this.deferredHeader = header;
+        this.lastModifiedMillis = header.lastModifiedMillis();
+        this.contentLoader = contentLoader;
+    }
+
+    /**
+     * @return true if the board's members, columns and notes are in memory.
+     */
+    public boolean isResident() {
+        return contentLoader == null;
+    }
+
+    /**
+     * Gets the board's metadata. For a resident board the counts are live; otherwise they are the ones read
+     * from the board's file.
+     * @return The board's header.
+     */
+    public Header getHeader() {
+        if (!isResident()) {
+            return new Header(name, deferredHeader.memberCount(), deferredHeader.columnCount(),
+                    deferredHeader.noteCount(), lastModifiedMillis);
+        }
+        return new Header(name, members.size(), columns.size(), notes.size(), lastModifiedMillis);
+    }
+
+    void setLastModifiedMillis(long lastModifiedMillis) {
+        this.lastModifiedMillis = lastModifiedMillis;
+    }
+
+    /**
+     * Loads the board's content if only its header is in memory. If loading fails, the board stays header-only
+     * (and appears empty) so that a later access can try again.
+     * @return true if the board's content is in memory.
+     */
+    boolean ensureResident() {
+        if (contentLoader == null) {
+            return true;
+        }
+        ContentLoader loader = contentLoader;
+        Board loaded;
+        try {
+            loaded = loader.load();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to load board '" + name + "': " + e.getMessage());
+            return false;
+        }
+        contentLoader = null;
+        deferredHeader = null;
+        members = new ArrayList<>(loaded.members);
+        columns.addAll(loaded.columns);
+        indexColumns();
+        notes.putAll(loaded.notes);
+        noteBodyStore = loaded.noteBodyStore;
+        notes.values().forEach(this::watchNote);
+        return true;
+    }
+
+    /**
+     * Sets the listener that is notified about note additions, removals, moves and edits and column changes on this
+     * board.
+     * @param changeListener The listener, or null to stop listening.
+     */
+    void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
     }
 
     /**
@@ -69,6 +268,18 @@ public class Board {
      */
     void setNotesInternal(Map<UUID, Note> notes) {
         this.notes.putAll(notes);
+        notes.values().forEach(this::watchNote);
+    }
+
+    /**
+     * Forwards edits made through the note's own setters to this board's listener.
+     */
+    private void watchNote(Note note) {
+        note.setChangeListener(() -> {
+            if (changeListener != null) {
+                changeListener.changed(new BoardEvent.NoteUpdated(this, note));
+            }
+        });
     }
 
     /**
@@ -77,13 +288,20 @@ public class Board {
      * @param note The note to add.
      */
     public void addNote(Note note) {
+        ensureResident();
         if (note != null && !notes.containsKey(note.getId())) {
             notes.put(note.getId(), note);
             // Add the note to its designated column's list of IDs
             findColumnById(note.getColumnId()).ifPresent(column -> {
-                // Add to the end by default
-                column.getNoteIds().add(note.getId());
+                // Add to the end by default (unless a saved column order already has it)
+                if (!column.getNoteIds().contains(note.getId())) {
+                    column.getNoteIds().add(note.getId());
+                }
             });
+            watchNote(note);
+            if (changeListener != null) {
+                changeListener.changed(new BoardEvent.NoteAdded(this, note));
+            }
         }
     }
 
@@ -93,6 +311,7 @@ public class Board {
      * @return An Optional containing the note if found, otherwise an empty Optional.
      */
     public Optional<Note> findNoteById(UUID noteId) {
+        ensureResident();
         return Optional.ofNullable(notes.get(noteId));
     }
 
@@ -107,8 +326,10 @@ public class Board {
         return findNoteById(noteId).map(note -> {
             UUID oldColumnId = note.getColumnId();
 
-            // Remove from old column's noteId list
-            findColumnById(oldColumnId).ifPresent(oldCol -> oldCol.getNoteIds().remove(noteId));
+            // Remove from old column's noteId list (from every column, should it be listed in more than one)
+            for (Column column : columns) {
+                column.getNoteIds().remove(noteId);
+            }
 
             // Add to new column's noteId list at the specified index
             findColumnById(newColumnId).ifPresent(newCol -> {
@@ -125,12 +346,48 @@ public class Board {
                 note.setColumnId(newColumnId);
             }
 
+            if (changeListener != null) {
+                changeListener.changed(new BoardEvent.NoteMoved(this, noteId, oldColumnId, newColumnId, newIndex));
+            }
             return true;
         }).orElse(false);
     }
 
     public Optional<Column> findColumnById(UUID columnId) {
-        return columns.stream().filter(c -> c.getId().equals(columnId)).findFirst();
+        ensureResident();
+        return Optional.ofNullable(columnsById.get(columnId));
+    }
+
+    /**
+     * Finds the column whose note list holds a note: normally the note's own column, but any column is searched in
+     * case they disagree.
+     */
+    private Optional<Column> findColumnContaining(Note note) {
+        Column column = columnsById.get(note.getColumnId());
+        if (column != null && column.getNoteIds().contains(note.getId())) {
+            return Optional.of(column);
+        }
+        return columns.stream().filter(c -> c.getNoteIds().contains(note.getId())).findFirst();
+    }
+
+    /**
+     * Indexes the columns by ID. A note listed in more than one column (e.g. in a file edited by hand or by an older
+     * version) is only kept in the first one, since a column's order can't hold an ID that is already in it.
+     */
+    private void indexColumns() {
+        columnsById.clear();
+        Set<UUID> listed = new HashSet<>();
+        for (Column column : columns) {
+            columnsById.put(column.getId(), column);
+            for (Iterator<UUID> noteIds = column.getNoteIds().iterator(); noteIds.hasNext(); ) {
+                UUID noteId = noteIds.next();
+                if (!listed.add(noteId)) {
+                    System.err.println("Note " + noteId + " is listed in more than one column of board '" + name
+                            + "'; removed it from column '" + column.getName() + "'.");
+                    noteIds.remove();
+                }
+            }
+        }
     }
 
     /**
@@ -139,9 +396,16 @@ public class Board {
      * @return true if the note was found and removed, false otherwise.
      */
     public boolean removeNote(UUID noteId) {
-        if (notes.remove(noteId) != null) {
-            // Also remove the ID from any column that contains it
-            columns.forEach(column -> column.getNoteIds().remove(noteId));
+        ensureResident();
+        Note removed = notes.get(noteId);
+        if (removed != null) {
+            // Also remove the ID from the column that contains it
+            findColumnContaining(removed).ifPresent(column -> column.getNoteIds().remove(noteId));
+            notes.remove(noteId);
+            removed.setChangeListener(null);
+            if (changeListener != null) {
+                changeListener.changed(new BoardEvent.NoteRemoved(this, noteId, removed.getColumnId()));
+            }
             return true;
         }
         return false;
@@ -167,6 +431,7 @@ public class Board {
      * @return An unmodifiable list of all notes.
      */
     public List<Note> getAllNotes() {
+        ensureResident();
         return new ArrayList<>(notes.values());
     }
 
@@ -184,6 +449,7 @@ public class Board {
      * Displays the board and its notes in a readable format to the console.
      */
     public void displayBoard() {
+        ensureResident();
         System.out.println("========================================");
         System.out.println(" Board: " + this.name);
         System.out.println("========================================");
@@ -0,0 +1,600 @@
+package com.tarek.notetool;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A compact, versioned binary encoding for boards, used as the default on-disk format ('[board-name].board').
+ * <p>
+ * Compared to the pretty-printed JSON format, UUIDs are stored as two longs, timestamps as epoch seconds plus
+ * nanoseconds, lengths and counts as varints, and users and tags are written once in a dictionary at the start
+ * of the file and referenced by index afterwards. The encoding is lossless: a board read back is identical to
+ * the one written, so boards can be converted between this format and JSON freely.
+ * <p>
+ * Layout (version 3): the magic bytes 'NTBF', a varint version, a header block (board name, member, column and
+ * note counts, and the name of the note body file) that {@link #readHeader} can read without touching the rest,
+ * the user and tag dictionaries, then the members, columns and notes. Each note stores only its card data plus the
+ * location of its body (content, comments, goals and attachment paths) in the board's {@link NoteBodyStore}, so
+ * the bodies are only read when they are needed. Version 2 stored the bodies inline and had no body file name in
+ * the header; version 1 also had no header block and stored the name after the dictionaries.
+ */
+public final class BoardBinaryCodec {
+
+    private static final byte[] MAGIC = {'N', 'T', 'B', 'F'};
+    // Version 2 added the header block, version 3 moved note bodies to a separate file; older files are still read.
+    private static final int VERSION = 3;
+
+    private BoardBinaryCodec() {
+    }
+
+    /**
+     * Checks whether a file starts with the binary board header, regardless of its extension.
+     * @param file The file to check.
+     * @return true if the file is a binary board file.
+     * @throws IOException if the file could not be read.
+     */
+    public static boolean isBinaryBoardFile(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = in.readNBytes(MAGIC.length);
+            return Arrays.equals(header, MAGIC);
+        }
+    }
+
+    // --- Writing ---
+
+    /**
+     * Writes a board in the binary format. Note bodies that aren't saved in the given body file yet are appended to
+     * it, and the notes are updated with their new location.
+     * @param board The board to write.
+     * @param stream The stream to write to. It is flushed but not closed.
+     * @param bodies The body file of the board, opened for appending.
+     * @throws IOException if the board could not be written, or a note body could not be read or written.
+     */
+    public static void write(Board board, OutputStream stream, NoteBodyStore.Appender bodies) throws IOException {
+        Dictionary dictionary = new Dictionary();
+        dictionary.collect(board);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.write(MAGIC);
+        writeVarInt(out, VERSION);
+
+        writeString(out, board.getName());
+        writeVarInt(out, board.getMembers().size());
+        writeVarInt(out, board.getColumns().size());
+        writeVarInt(out, board.getAllNotes().size());
+        writeString(out, bodies.store().getFile().getFileName().toString());
+
+        writeVarInt(out, dictionary.users.size());
+        for (User user : dictionary.users) {
+            writeUuid(out, user.id());
+            writeString(out, user.name());
+        }
+        writeVarInt(out, dictionary.tags.size());
+        for (String tag : dictionary.tags) {
+            writeString(out, tag);
+        }
+
+        writeVarInt(out, board.getMembers().size());
+        for (User member : board.getMembers()) {
+            writeVarInt(out, dictionary.userIndex(member));
+        }
+
+        writeVarInt(out, board.getColumns().size());
+        for (Column column : board.getColumns()) {
+            writeUuid(out, column.getId());
+            writeString(out, column.getName());
+            writeVarInt(out, column.getNoteIds().size());
+            for (UUID noteId : column.getNoteIds()) {
+                writeUuid(out, noteId);
+            }
+        }
+
+        List<Note> notes = board.getAllNotes();
+        writeVarInt(out, notes.size());
+        for (Note note : notes) {
+            writeNote(out, note, dictionary, bodies);
+        }
+        out.flush();
+    }
+
+    private static void writeNote(DataOutputStream out, Note note, Dictionary dictionary,
+                                  NoteBodyStore.Appender bodies) throws IOException {
+        writeUuid(out, note.getId());
+        writeString(out, note.getTitle());
+        writeNullableUuid(out, note.getColumnId());
+        writeVarInt(out, note.getPriority() != null ? note.getPriority().ordinal() + 1 : 0);
+        writeDateTime(out, note.getCreationDate());
+        writeDateTime(out, note.getLastModifiedDate());
+        writeDateTime(out, note.getDueDate());
+
+        writeVarInt(out, note.getAssignees().size());
+        for (User assignee : note.getAssignees()) {
+            writeVarInt(out, dictionary.userIndex(assignee));
+        }
+
+        writeVarInt(out, note.getTags().size());
+        for (String tag : note.getTags()) {
+            writeVarInt(out, dictionary.tagIndex(tag));
+        }
+
+        writeVarInt(out, note.getDependencies().size());
+        for (Note.Dependency dependency : note.getDependencies()) {
+            writeNullableUuid(out, dependency.otherNoteId());
+            writeVarInt(out, dependency.type() != null ? dependency.type().ordinal() + 1 : 0);
+            writeString(out, dependency.otherNoteTitle());
+        }
+
+        writeStrings(out, note.getReferenceImagePaths());
+
+        // Only bodies that changed (or live in another file) are written again; the rest keep their location.
+        NoteBodyStore.Ref bodyRef = note.getBodyRef();
+        if (!bodies.store().contains(bodyRef)) {
+            boolean bodyWasLoaded = note.isBodyLoaded();
+            long modCount = note.getBodyModCount();
+            bodyRef = bodies.append(encodeBody(note.getBody()));
+            note.setBodyRef(bodyRef, modCount);
+            if (!bodyWasLoaded) {
+                note.releaseBody(); // Only read to be copied into this file
+            }
+        }
+        out.writeBoolean(note.hasLinkedGoals());
+        writeVarLong(out, bodyRef.offset());
+        writeVarInt(out, bodyRef.length());
+    }
+
+    /**
+     * Encodes a note body for the body file. Bodies are self-contained (comment authors are stored inline),
+     * so they stay readable whatever happens to the dictionaries of later board files.
+     */
+    static byte[] encodeBody(Note.Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, body.content());
+        writeVarInt(out, body.comments().size());
+        for (Note.Comment comment : body.comments()) {
+            writeString(out, comment.getText());
+            User author = comment.getAuthor();
+            out.writeBoolean(author != null);
+            if (author != null) {
+                writeUuid(out, author.id());
+                writeString(out, author.name());
+            }
+            writeDateTime(out, comment.getTimestamp());
+        }
+        writeGoals(out, body.goals());
+        writeStrings(out, body.attachmentPaths());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a note body written by {@link #encodeBody}.
+     * @param data The encoded body.
+     * @return The body.
+     * @throws IOException if the data is corrupt.
+     */
+    static Note.Body readBody(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        String content = readString(in);
+        int commentCount = readVarInt(in);
+        List<Note.Comment> comments = new ArrayList<>(commentCount);
+        for (int i = 0; i < commentCount; i++) {
+            String text = readString(in);
+            User author = in.readBoolean() ? new User(readUuid(in), readString(in)) : null;
+            comments.add(new Note.Comment(text, author, readDateTime(in)));
+        }
+        List<Note.Goal> goals = readGoals(in);
+        List<String> attachmentPaths = readStrings(in);
+        return new Note.Body(content, comments, goals, attachmentPaths);
+    }
+
+    private static void writeGoals(DataOutputStream out, List<Note.Goal> goals) throws IOException {
+        writeVarInt(out, goals.size());
+        for (Note.Goal goal : goals) {
+            writeString(out, goal.getDescription());
+            out.writeBoolean(goal.isCompleted());
+            writeNullableUuid(out, goal.getLinkedNoteId().orElse(null));
+            writeString(out, goal.getLinkedNoteTitle().orElse(null));
+            writeGoals(out, goal.getSubGoals());
+        }
+    }
+
+    // --- Reading ---
+
+    /**
+     * Reads a board written by {@link #write}. The note bodies are not read; each note loads its own body from the
+     * board's body file when it's first needed.
+     * @param stream The stream to read from. It is not closed.
+     * @param boardFile The file the board is read from; its body file is in the same directory.
+     * @return The board.
+     * @throws IOException if the data is not a binary board, has an unsupported version, or is truncated.
+     */
+    public static Board read(InputStream stream, Path boardFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        int version = readVersion(in);
+        String name = null;
+        NoteBodyStore bodyStore = null;
+        if (version >= 2) {
+            FileHeader header = readHeaderBlock(in, version);
+            name = header.header().name();
+            if (header.bodyFileName() != null) {
+                bodyStore = new NoteBodyStore(boardFile.resolveSibling(header.bodyFileName()));
+            }
+        }
+
+        User[] users = new User[readVarInt(in)];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new User(readUuid(in), readString(in));
+        }
+        String[] tags = new String[readVarInt(in)];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = readString(in);
+        }
+
+        if (version == 1) {
+            name = readString(in);
+        }
+        int memberCount = readVarInt(in);
+        List<User> members = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            members.add(users[readVarInt(in)]);
+        }
+
+        int columnCount = readVarInt(in);
+        List<Column> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            UUID id = readUuid(in);
+            String columnName = readString(in);
+            int noteCount = readVarInt(in);
+            List<UUID> noteIds = new ArrayList<>(noteCount);
+            for (int j = 0; j < noteCount; j++) {
+                noteIds.add(readUuid(in));
+            }
+            columns.add(new Column(id, columnName, noteIds));
+        }
+
+        int noteCount = readVarInt(in);
+        Map<UUID, Note> notes = new LinkedHashMap<>();
+        for (int i = 0; i < noteCount; i++) {
+            Note note = readNote(in, version, users, tags, bodyStore);
+            notes.put(note.getId(), note);
+        }
+
+        Board board = new Board(name, members, false);
+        board.setColumns(columns);
+        board.setNotesInternal(notes);
+        board.setNoteBodyStore(bodyStore);
+        return board;
+    }
+
+    /**
+     * Reads only the header of a binary board: its name and member, column and note counts.
+     * @param stream The stream to read from. It is not closed.
+     * @return The header, with a last-modified time of 0, or null for a version 1 file, which has no header block.
+     * @throws IOException if the data is not a binary board or has an unsupported version.
+     */
+    public static Board.Header readHeader(InputStream stream) throws IOException {
+        FileHeader header = readFileHeader(stream);
+        return header != null ? header.header() : null;
+    }
+
+    /**
+     * The header block of a binary board file.
+     * @param header The board's metadata.
+     * @param bodyFileName The name of the file with the board's note bodies, or null if it has none.
+     * @param noteIds The IDs of the notes in the board's columns.
+     */
+    record FileHeader(Board.Header header, String bodyFileName, List<UUID> noteIds) {
+    }
+
+    /**
+     * Reads the header block of a binary board, including the name of its note body file, and the IDs of the notes
+     * in its columns. The notes themselves are not read.
+     * @param stream The stream to read from. It is not closed.
+     * @return The header, or null for a version 1 file, which has no header block.
+     * @throws IOException if the data is not a binary board, has an unsupported version, or is truncated.
+     */
+    static FileHeader readFileHeader(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        int version = readVersion(in);
+        if (version < 2) {
+            return null;
+        }
+        FileHeader header = readHeaderBlock(in, version);
+
+        // Skip the dictionary and the members to get to the columns
+        int userCount = readVarInt(in);
+        for (int i = 0; i < userCount; i++) {
+            readUuid(in);
+            readString(in);
+        }
+        int tagCount = readVarInt(in);
+        for (int i = 0; i < tagCount; i++) {
+            readString(in);
+        }
+        int memberCount = readVarInt(in);
+        for (int i = 0; i < memberCount; i++) {
+            readVarInt(in);
+        }
+        List<UUID> noteIds = new ArrayList<>(header.header().noteCount());
+        int columnCount = readVarInt(in);
+        for (int i = 0; i < columnCount; i++) {
+            readUuid(in);
+            readString(in);
+            int noteCount = readVarInt(in);
+            for (int j = 0; j < noteCount; j++) {
+                noteIds.add(readUuid(in));
+            }
+        }
+        return new FileHeader(header.header(), header.bodyFileName(), noteIds);
+    }
+
+    private static int readVersion(DataInputStream in) throws IOException {
+        byte[] header = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(header, MAGIC)) {
+            throw new IOException("Not a binary board file.");
+        }
+        int version = readVarInt(in);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary board version: " + version);
+        }
+        return version;
+    }
+
+    private static FileHeader readHeaderBlock(DataInputStream in, int version) throws IOException {
+        String name = readString(in);
+        int memberCount = readVarInt(in);
+        int columnCount = readVarInt(in);
+        int noteCount = readVarInt(in);
+        String bodyFileName = version >= 3 ? readString(in) : null;
+        return new FileHeader(new Board.Header(name, memberCount, columnCount, noteCount, 0), bodyFileName, List.of());
+    }
+
+    private static Note readNote(DataInputStream in, int version, User[] users, String[] tags,
+                                 NoteBodyStore bodyStore) throws IOException {
+        UUID id = readUuid(in);
+        String title = readString(in);
+        String content = version < 3 ? readString(in) : null;
+        UUID columnId = readNullableUuid(in);
+        int priority = readVarInt(in);
+        LocalDateTime creationDate = readDateTime(in);
+        LocalDateTime lastModifiedDate = readDateTime(in);
+        LocalDateTime dueDate = readDateTime(in);
+
+        int assigneeCount = readVarInt(in);
+        List<User> assignees = new ArrayList<>(assigneeCount);
+        for (int i = 0; i < assigneeCount; i++) {
+            assignees.add(users[readVarInt(in)]);
+        }
+
+        List<Note.Comment> comments = new ArrayList<>();
+        List<Note.Goal> goals = new ArrayList<>();
+        if (version < 3) {
+            int commentCount = readVarInt(in);
+            for (int i = 0; i < commentCount; i++) {
+                String text = readString(in);
+                int author = readVarInt(in);
+                comments.add(new Note.Comment(text, author > 0 ? users[author - 1] : null, readDateTime(in)));
+            }
+            goals = readGoals(in);
+        }
+
+        int tagCount = readVarInt(in);
+        Set<String> noteTags = new HashSet<>();
+        for (int i = 0; i < tagCount; i++) {
+            noteTags.add(tags[readVarInt(in)]);
+        }
+
+        List<String> attachmentPaths = version < 3 ? readStrings(in) : new ArrayList<>();
+
+        int dependencyCount = readVarInt(in);
+        List<Note.Dependency> dependencies = new ArrayList<>(dependencyCount);
+        for (int i = 0; i < dependencyCount; i++) {
+            UUID otherNoteId = readNullableUuid(in);
+            int type = readVarInt(in);
+            String otherNoteTitle = readString(in);
+            dependencies.add(new Note.Dependency(otherNoteId,
+                    type > 0 ? Note.DependencyType.values()[type - 1] : null, otherNoteTitle));
+        }
+
+        List<String> referenceImagePaths = readStrings(in);
+
+        Note note = new Note(id, title, content, columnId, priority > 0 ? Note.Priority.values()[priority - 1] : null,
+                creationDate, lastModifiedDate, dueDate, assignees, comments, goals, noteTags,
+                attachmentPaths, dependencies, referenceImagePaths);
+        if (version >= 3) {
+            boolean hasLinkedGoals = in.readBoolean();
+            long offset = readVarLong(in);
+            int length = readVarInt(in);
+            if (bodyStore == null) {
+                throw new IOException("Corrupt binary board file: note bodies without a body file.");
+            }
+            note.deferBody(new NoteBodyStore.Ref(bodyStore, offset, length), hasLinkedGoals);
+        }
+        return note;
+    }
+
+    private static List<Note.Goal> readGoals(DataInputStream in) throws IOException {
+        int count = readVarInt(in);
+        List<Note.Goal> goals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String description = readString(in);
+            boolean completed = in.readBoolean();
+            UUID linkedNoteId = readNullableUuid(in);
+            String linkedNoteTitle = readString(in);
+            goals.add(new Note.Goal(description, completed, readGoals(in), linkedNoteId, linkedNoteTitle));
+        }
+        return goals;
+    }
+
+    // --- Dictionary ---
+
+    // Users and tags that appear in a board, each stored once and referenced by index.
+    private static class Dictionary {
+        final List<User> users = new ArrayList<>();
+        final List<String> tags = new ArrayList<>();
+        // Users are keyed by ID and name, since the same ID can carry different names in different places.
+        private final Map<List<Object>, Integer> userIndexes = new HashMap<>();
+        private final Map<String, Integer> tagIndexes = new HashMap<>();
+
+        void collect(Board board) {
+            board.getMembers().forEach(this::addUser);
+            for (Note note : board.getAllNotes()) {
+                note.getAssignees().forEach(this::addUser);
+                for (String tag : note.getTags()) {
+                    tagIndexes.computeIfAbsent(tag, key -> {
+                        tags.add(key);
+                        return tags.size() - 1;
+                    });
+                }
+            }
+        }
+
+        private void addUser(User user) {
+            userIndexes.computeIfAbsent(Arrays.asList(user.id(), user.name()), key -> {
+                users.add(user);
+                return users.size() - 1;
+            });
+        }
+
+        int userIndex(User user) {
+            return userIndexes.get(Arrays.asList(user.id(), user.name()));
+        }
+
+        int tagIndex(String tag) {
+            return tagIndexes.get(tag);
+        }
+    }
+
+    // --- Primitives ---
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt binary board file: varint out of range.");
+        }
+        return (int) value;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary board file: varint too long.");
+    }
+
+    // Strings are stored as (UTF-8 length + 1), then the bytes; a length of 0 means null.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        writeVarInt(out, values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = readVarInt(in);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeNullableUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeUuid(out, value);
+        }
+    }
+
+    private static UUID readNullableUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readUuid(in) : null;
+    }
+
+    // Timestamps are epoch seconds (zig-zag encoded, relative to UTC) plus nanoseconds; LocalDateTime has no zone.
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            long seconds = value.toEpochSecond(ZoneOffset.UTC);
+            writeVarLong(out, (seconds << 1) ^ (seconds >> 63));
+            writeVarInt(out, value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long zigZag = readVarLong(in);
+        long seconds = (zigZag >>> 1) ^ -(zigZag & 1);
+        int nanos = readVarInt(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,77 @@
+package com.tarek.notetool;
+
+import java.util.UUID;
+
+/**
+ * A change to a board or to the set of boards, as announced by {@link Board} and {@link NoteManager}.
+ * <p>
+ * Listeners registered with {@link NoteManager#addEventListener} receive these in the order they happened, after
+ * the change was made; changes made within {@link NoteManager#batch(Runnable)} are delivered together once the batch
+ * ends.
+ */
+public sealed interface BoardEvent {
+
+    /**
+     * @return The board that changed.
+     */
+    Board board();
+
+    // --- Notes ---
+
+    /**
+     * A note was added to the board, at the end of its column.
+     */
+    record NoteAdded(Board board, Note note) implements BoardEvent {
+    }
+
+    /**
+     * A note on the board was edited (anything but its position).
+     */
+    record NoteUpdated(Board board, Note note) implements BoardEvent {
+    }
+
+    /**
+     * A note was removed from the board.
+     * @param columnId The column the note was in.
+     */
+    record NoteRemoved(Board board, UUID noteId, UUID columnId) implements BoardEvent {
+    }
+
+    /**
+     * A note was moved within its column or to another column.
+     * @param index The note's new position in the target column, or -1 if it was added at the end.
+     */
+    record NoteMoved(Board board, UUID noteId, UUID fromColumnId, UUID toColumnId, int index) implements BoardEvent {
+    }
+
+    // --- Columns ---
+
+    record ColumnAdded(Board board, Column column, int index) implements BoardEvent {
+    }
+
+    record ColumnRenamed(Board board, Column column, String oldName) implements BoardEvent {
+    }
+
+    /**
+     * The order of the board's columns changed.
+     */
+    record ColumnsReordered(Board board) implements BoardEvent {
+    }
+
+    record ColumnRemoved(Board board, Column column) implements BoardEvent {
+    }
+
+    // --- Boards ---
+
+    /**
+     * A board was added to the manager (created, duplicated or imported).
+     */
+    record BoardCreated(Board board) implements BoardEvent {
+    }
+
+    record BoardRemoved(Board board) implements BoardEvent {
+    }
+
+    record BoardRenamed(Board board, String oldName) implements BoardEvent {
+    }
+}
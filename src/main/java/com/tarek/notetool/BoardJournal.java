@@ -0,0 +1,384 @@
+package com.tarek.notetool;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An append-only log of the note-level mutations made to a single board.
+ * <p>
+ * Instead of re-serializing the whole board after every edit, each added, edited, moved or removed note is
+ * appended as one small JSON line to '[board-name].journal' next to the board's snapshot file. Appends are
+ * buffered and written together with a single fsync every {@link #GROUP_COMMIT_MILLIS} milliseconds (group commit),
+ * so a crash loses at most one commit window. When the journal grows past {@link #COMPACTION_THRESHOLD_BYTES},
+ * a background compactor folds it back into the snapshot file and truncates it.
+ * On startup, {@link #replay(Path, Board)} re-applies the journal on top of the loaded snapshot.
+ */
+public class BoardJournal {
+
+    private static final long GROUP_COMMIT_MILLIS = 200;
+    private static final long COMPACTION_THRESHOLD_BYTES = 256 * 1024;
+
+    // One shared daemon thread performs the writes, fsyncs and compactions for all journals.
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "board-journal-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private enum Operation {
+        UPSERT,
+        REMOVE,
+        MOVE
+    }
+
+    // A single line in the journal. Field order matters: 'seq' is written first.
+    private static class JournalRecord {
+        long seq;
+        Operation op;
+        UUID noteId;
+        UUID columnId;
+        Integer index;
+        JsonElement note;
+    }
+
+    private final Path journalFile;
+    // Changes when the board is converted to another file format; the journal file stays the same.
+    private volatile Path snapshotFile;
+    // Guards the files on disk: flushes, compactions and snapshot writes never overlap.
+    private final Object fileLock = new Object();
+
+    // Records waiting for the next group commit, guarded by 'this'.
+    private final List<JournalRecord> pending = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private long lastSequence = 0;
+    private boolean closed = false;
+    // Snapshots captured by beginSnapshot() but not yet written; compaction waits for them.
+    private int snapshotsInProgress = 0;
+
+    /**
+     * Creates a journal for a board whose snapshot is stored in the given file.
+     * @param snapshotFile The board's snapshot file, e.g. 'boards/My_Board.json'.
+     * @param lastSequence The last sequence number already in the journal file (from {@link #replay}), or 0.
+     */
+    public BoardJournal(Path snapshotFile, long lastSequence) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFileFor(snapshotFile);
+        this.lastSequence = lastSequence;
+    }
+
+    /**
+     * Gets the journal file that belongs to a board snapshot file.
+     * @param snapshotFile The board's snapshot file.
+     * @return The path of the journal, in the same directory.
+     */
+    public static Path journalFileFor(Path snapshotFile) {
+        String fileName = snapshotFile.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        return snapshotFile.resolveSibling(baseName + ".journal");
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Points the journal at a new snapshot file that shares its journal file, e.g. 'My_Board.board' instead of
+     * 'My_Board.json' when the board is converted to another format. Records already in the journal are kept.
+     * @param snapshotFile The new snapshot file.
+     * @throws IllegalArgumentException if the new snapshot file would use a different journal file.
+     */
+    public void setSnapshotFile(Path snapshotFile) {
+        if (!journalFileFor(snapshotFile).equals(journalFile)) {
+            throw new IllegalArgumentException("Snapshot file " + snapshotFile + " doesn't belong to journal " + journalFile);
+        }
+        this.snapshotFile = snapshotFile;
+    }
+
+    // --- Appending ---
+
+    public void appendUpsert(Note note) {
+        JournalRecord record = new JournalRecord();
+        record.op = Operation.UPSERT;
+        record.noteId = note.getId();
+        // Serialize now, on the caller's thread, so later edits can't leak into this record.
+        record.note = NoteManager.getCompactGson().toJsonTree(note);
+        append(record);
+    }
+
+    public void appendRemove(UUID noteId) {
+        JournalRecord record = new JournalRecord();
+        record.op = Operation.REMOVE;
+        record.noteId = noteId;
+        append(record);
+    }
+
+    public void appendMove(UUID noteId, UUID columnId, int index) {
+        JournalRecord record = new JournalRecord();
+        record.op = Operation.MOVE;
+        record.noteId = noteId;
+        record.columnId = columnId;
+        record.index = index;
+        append(record);
+    }
+
+    private synchronized void append(JournalRecord record) {
+        if (closed) {
+            return;
+        }
+        record.seq = ++lastSequence;
+
+        // Coalesce consecutive edits of the same note within one commit window; only the latest state matters.
+        if (record.op == Operation.UPSERT && !pending.isEmpty()) {
+            JournalRecord last = pending.get(pending.size() - 1);
+            if (last.op == Operation.UPSERT && last.noteId.equals(record.noteId)) {
+                pending.set(pending.size() - 1, record);
+                return;
+            }
+        }
+        pending.add(record);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            WRITER.schedule(this::flushQuietly, GROUP_COMMIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gets the sequence number of the most recently appended record.
+     * A snapshot captured now contains every change up to and including this record.
+     * @return The last sequence number, or 0 if nothing was appended.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Marks the start of a snapshot capture and returns the sequence number it contains.
+     * Until the matching {@link #writeSnapshot} finishes, compaction is held off: it would otherwise fold
+     * records newer than the captured state into the snapshot file and then be overwritten by the older copy.
+     * @return The last sequence number reflected in a board state captured now.
+     */
+    public synchronized long beginSnapshot() {
+        snapshotsInProgress++;
+        return lastSequence;
+    }
+
+    // --- Writing ---
+
+    private void flushQuietly() {
+        try {
+            flush();
+            boolean snapshotPending;
+            synchronized (this) {
+                snapshotPending = snapshotsInProgress > 0;
+            }
+            if (!snapshotPending && Files.exists(journalFile) && Files.size(journalFile) > COMPACTION_THRESHOLD_BYTES) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write board journal " + journalFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes all pending records to disk and forces them to the storage device.
+     * @throws IOException if the journal could not be written.
+     */
+    public void flush() throws IOException {
+        synchronized (fileLock) {
+            List<JournalRecord> batch;
+            synchronized (this) {
+                flushScheduled = false;
+                if (closed || pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+
+            Gson gson = NoteManager.getCompactGson();
+            StringBuilder lines = new StringBuilder();
+            for (JournalRecord record : batch) {
+                lines.append(gson.toJson(record)).append('\n');
+            }
+            try (FileChannel channel = FileChannel.open(journalFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false); // One fsync for the whole batch
+            }
+        }
+    }
+
+    /**
+     * Writes a new board snapshot and drops the journal records it already contains.
+     * This must be used for every snapshot write so it never interleaves with a compaction, and must follow
+     * exactly one call to {@link #beginSnapshot()}, even if it fails.
+     * @param board The board state to write (the live board or a copy of it).
+     * @param includedSequence The sequence returned by {@link #beginSnapshot()} when the state was captured.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public void writeSnapshot(Board board, long includedSequence) throws IOException {
+        try {
+            synchronized (fileLock) {
+                NoteManager.writeBoardFile(board, snapshotFile);
+                truncateThrough(includedSequence);
+            }
+        } finally {
+            synchronized (this) {
+                snapshotsInProgress--;
+            }
+        }
+    }
+
+    /**
+     * Folds the journal back into the snapshot file in the background.
+     * This works on a private copy read from disk, so it never touches the live board.
+     * @throws IOException if the snapshot or journal could not be read or written.
+     */
+    public void compact() throws IOException {
+        synchronized (fileLock) {
+            Path snapshotFile = this.snapshotFile;
+            if (!Files.exists(journalFile) || !Files.exists(snapshotFile)) {
+                return;
+            }
+            Board board = NoteManager.readBoardFile(snapshotFile);
+            if (board == null) {
+                return;
+            }
+            long appliedSequence = replay(journalFile, board);
+            NoteManager.writeBoardFile(board, snapshotFile);
+            truncateThrough(appliedSequence);
+            System.out.println("Compacted board journal: " + journalFile);
+        }
+    }
+
+    /**
+     * Removes every record up to and including the given sequence number from the journal file.
+     * Records still waiting in memory are also dropped if they are covered.
+     */
+    private void truncateThrough(long sequence) throws IOException {
+        synchronized (this) {
+            pending.removeIf(record -> record.seq <= sequence);
+        }
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        Gson gson = NoteManager.getCompactGson();
+        List<String> remaining = new ArrayList<>();
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JournalRecord record = gson.fromJson(line, JournalRecord.class);
+            if (record != null && record.seq > sequence) {
+                remaining.add(line);
+            }
+        }
+        if (remaining.isEmpty()) {
+            Files.deleteIfExists(journalFile);
+        } else {
+            Files.write(journalFile, remaining, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Stops accepting records and drops any that have not been written yet, e.g. when the board is deleted.
+     */
+    public synchronized void close() {
+        closed = true;
+        pending.clear();
+    }
+
+    /**
+     * Closes the journal and deletes its file, e.g. when its contents were folded into a new snapshot.
+     * @throws IOException if the file could not be deleted.
+     */
+    public void discard() throws IOException {
+        synchronized (fileLock) {
+            close();
+            Files.deleteIfExists(journalFile);
+        }
+    }
+
+    // --- Replaying ---
+
+    /**
+     * Re-applies a journal file on top of a board loaded from its snapshot.
+     * A torn last line (from a crash mid-write) is ignored.
+     * @param journalFile The journal to read.
+     * @param board The board to apply the records to.
+     * @return The sequence number of the last applied record, or 0 if none were applied.
+     * @throws IOException if the journal could not be read.
+     */
+    public static long replay(Path journalFile, Board board) throws IOException {
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+        Gson gson = NoteManager.getCompactGson();
+        long lastApplied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalRecord record;
+                try {
+                    record = gson.fromJson(line, JournalRecord.class);
+                } catch (Exception e) {
+                    System.err.println("Ignoring unreadable journal record in " + journalFile + ": " + e.getMessage());
+                    break;
+                }
+                if (record == null || record.op == null) {
+                    continue;
+                }
+                apply(record, board, gson);
+                lastApplied = Math.max(lastApplied, record.seq);
+            }
+        }
+        return lastApplied;
+    }
+
+    private static void apply(JournalRecord record, Board board, Gson gson) {
+        switch (record.op) {
+            case UPSERT -> {
+                Note incoming = gson.fromJson(record.note, Note.class);
+                if (incoming == null) {
+                    return;
+                }
+                board.findNoteById(incoming.getId()).ifPresentOrElse(existing -> {
+                    // Keep the column lists consistent if the record also changed the note's column.
+                    if (incoming.getColumnId() != null && !incoming.getColumnId().equals(existing.getColumnId())) {
+                        board.moveNote(existing.getId(), incoming.getColumnId(), -1);
+                    }
+                    existing.updateFrom(incoming);
+                }, () -> board.addNote(incoming));
+            }
+            case REMOVE -> board.removeNote(record.noteId);
+            case MOVE -> board.moveNote(record.noteId, record.columnId, record.index != null ? record.index : -1);
+        }
+    }
+}
@@ -0,0 +1,665 @@
+package com.tarek.notetool;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Streaming Gson adapters for the board model.
+ * <p>
+ * These read and write boards directly from the token stream, without building an intermediate
+ * {@code JsonElement} tree first, so loading or importing a board needs little more memory than the board itself.
+ * The JSON they produce is the same as Gson's reflective format, and they still read boards saved in the old
+ * format where 'columns' was an EnumMap of status to notes. Unknown fields are skipped.
+ */
+public final class BoardJsonAdapters {
+
+    private BoardJsonAdapters() {
+    }
+
+    /**
+     * Registers the adapters for Board, Column, Note, Goal, Comment, Dependency and User on a Gson builder.
+     * @param builder The builder to register the adapters on.
+     * @return The same builder, for chaining.
+     */
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(Board.class, new BoardAdapter().nullSafe())
+                .registerTypeAdapter(Column.class, new ColumnAdapter().nullSafe())
+                .registerTypeAdapter(Note.class, new NoteAdapter().nullSafe())
+                .registerTypeAdapter(Note.Goal.class, new GoalAdapter().nullSafe())
+                .registerTypeAdapter(Note.Comment.class, new CommentAdapter().nullSafe())
+                .registerTypeAdapter(Note.Dependency.class, new DependencyAdapter().nullSafe())
+                .registerTypeAdapter(User.class, new UserAdapter().nullSafe());
+    }
+
+    // --- Board ---
+
+    static class BoardAdapter extends TypeAdapter<Board> {
+        private final UserAdapter userAdapter = new UserAdapter();
+        private final ColumnAdapter columnAdapter = new ColumnAdapter();
+        private final NoteAdapter noteAdapter = new NoteAdapter();
+
+        @Override
+        public void write(JsonWriter out, Board board) throws IOException {
+            out.beginObject();
+            out.name("name").value(board.getName());
+            out.name("members");
+            writeList(out, board.getMembers(), userAdapter);
+            out.name("columns");
+            writeList(out, board.getColumns(), columnAdapter);
+            out.name("notes").beginObject();
+            for (Note note : board.getAllNotes()) {
+                out.name(note.getId().toString());
+                noteAdapter.write(out, note);
+            }
+            out.endObject();
+            out.endObject();
+        }
+
+        @Override
+        public Board read(JsonReader in) throws IOException {
+            String name = null;
+            List<User> members = null;
+            List<Column> columns = null;
+            Map<UUID, Note> notes = null;
+            Map<String, List<Note>> oldColumns = null; // The old EnumMap<Status, List<Note>> format
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name" -> name = readString(in);
+                    case "members" -> members = readList(in, userAdapter);
+                    case "columns" -> {
+                        if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                            oldColumns = readOldColumns(in);
+                        } else {
+                            columns = readList(in, columnAdapter);
+                        }
+                    }
+                    case "notes" -> notes = readNotes(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            Board board = new Board(name, members != null ? members : new ArrayList<>(), false);
+            if (oldColumns != null) {
+                migrateOldColumns(board, name, oldColumns);
+                return board;
+            }
+            if (columns != null) {
+                board.setColumns(columns);
+            }
+            if (notes != null) {
+                // Directly populate the board's internal map to avoid the side effects of addNote(),
+                // which would add duplicate note IDs to the already-deserialized columns.
+                board.setNotesInternal(notes);
+            }
+            return board;
+        }
+
+        private Map<UUID, Note> readNotes(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Map<UUID, Note> notes = new LinkedHashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                UUID key = UUID.fromString(in.nextName());
+                Note note = noteAdapter.read(in);
+                if (note != null) {
+                    notes.put(key, note);
+                }
+            }
+            in.endObject();
+            return notes;
+        }
+
+        private Map<String, List<Note>> readOldColumns(JsonReader in) throws IOException {
+            Map<String, List<Note>> oldColumns = new LinkedHashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String status = in.nextName();
+                List<Note> notes = readList(in, noteAdapter);
+                oldColumns.put(status, notes != null ? notes : new ArrayList<>());
+            }
+            in.endObject();
+            return oldColumns;
+        }
+
+        private void migrateOldColumns(Board board, String name, Map<String, List<Note>> oldColumns) {
+            System.out.println("Migrating old board format for: " + name);
+
+            // Manually create columns based on old statuses
+            Column todoCol = new Column("To Do");
+            Column inProgressCol = new Column("In Progress");
+            Column doneCol = new Column("Done");
+            Column archivedCol = new Column("Archived");
+            board.setColumns(List.of(todoCol, inProgressCol, doneCol, archivedCol));
+
+            // A helper map to link old status names to new column IDs
+            Map<String, UUID> statusToColId = Map.of(
+                    "TODO", todoCol.getId(),
+                    "IN_PROGRESS", inProgressCol.getId(),
+                    "DONE", doneCol.getId(),
+                    "ARCHIVED", archivedCol.getId()
+            );
+
+            // Add all notes from the old structure to the new board structure
+            oldColumns.forEach((status, notes) -> notes.forEach(note -> {
+                note.setColumnId(statusToColId.get(status));
+                board.addNote(note);
+            }));
+        }
+    }
+
+    /**
+     * Reads only the metadata of a board from the token stream: its name and member, column and note counts.
+     * The notes are skipped without being materialized.
+     * @param in The reader, positioned at the start of a board object.
+     * @return The header, with a last-modified time of 0.
+     * @throws IOException if the JSON could not be read.
+     */
+    public static Board.Header readHeader(JsonReader in) throws IOException {
+        return readHeader(in, new ArrayList<>());
+    }
+
+    /**
+     * Reads only the metadata of a board from the token stream, like {@link #readHeader(JsonReader)}, and collects
+     * the IDs of its notes.
+     * @param in The reader, positioned at the start of a board object.
+     * @param noteIds The collection to add the note IDs to.
+     * @return The header, with a last-modified time of 0.
+     * @throws IOException if the JSON could not be read.
+     */
+    public static Board.Header readHeader(JsonReader in, Collection<UUID> noteIds) throws IOException {
+        String name = null;
+        int memberCount = 0;
+        int columnCount = 0;
+        int noteCount = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name" -> name = in.nextString();
+                case "members" -> memberCount = skipArray(in);
+                case "columns" -> {
+                    if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                        // The old EnumMap format is migrated into four columns
+                        columnCount = 4;
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            in.nextName();
+                            noteCount += readNoteIds(in, noteIds);
+                        }
+                        in.endObject();
+                    } else {
+                        columnCount = skipArray(in);
+                    }
+                }
+                case "notes" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        noteIds.add(UUID.fromString(in.nextName()));
+                        in.skipValue();
+                        noteCount++;
+                    }
+                    in.endObject();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Board.Header(name, memberCount, columnCount, noteCount, 0);
+    }
+
+    /**
+     * Reads the "id" of each note in an array of note objects, skipping everything else.
+     * @return The number of notes.
+     */
+    private static int readNoteIds(JsonReader in, Collection<UUID> noteIds) throws IOException {
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("id") && in.peek() == JsonToken.STRING) {
+                    noteIds.add(UUID.fromString(in.nextString()));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            count++;
+        }
+        in.endArray();
+        return count;
+    }
+
+    private static int skipArray(JsonReader in) throws IOException {
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            in.skipValue();
+            count++;
+        }
+        in.endArray();
+        return count;
+    }
+
+    // --- Column ---
+
+    static class ColumnAdapter extends TypeAdapter<Column> {
+        @Override
+        public void write(JsonWriter out, Column column) throws IOException {
+            out.beginObject();
+            out.name("id").value(column.getId().toString());
+            out.name("name").value(column.getName());
+            out.name("noteIds").beginArray();
+            for (UUID noteId : column.getNoteIds()) {
+                out.value(noteId.toString());
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public Column read(JsonReader in) throws IOException {
+            UUID id = null;
+            String name = null;
+            List<UUID> noteIds = new ArrayList<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> id = readUuid(in);
+                    case "name" -> name = readString(in);
+                    case "noteIds" -> {
+                        List<UUID> ids = readUuidList(in);
+                        if (ids != null) {
+                            noteIds = ids;
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Column(id != null ? id : UUID.randomUUID(), name, noteIds);
+        }
+    }
+
+    // --- Note ---
+
+    static class NoteAdapter extends TypeAdapter<Note> {
+        private final UserAdapter userAdapter = new UserAdapter();
+        private final CommentAdapter commentAdapter = new CommentAdapter();
+        private final GoalAdapter goalAdapter = new GoalAdapter();
+        private final DependencyAdapter dependencyAdapter = new DependencyAdapter();
+
+        @Override
+        public void write(JsonWriter out, Note note) throws IOException {
+            out.beginObject();
+            out.name("id").value(note.getId().toString());
+            out.name("title").value(note.getTitle());
+            out.name("content").value(note.getContent());
+            out.name("columnId");
+            writeUuid(out, note.getColumnId());
+            out.name("priority").value(note.getPriority() != null ? note.getPriority().name() : null);
+            out.name("creationDate");
+            writeDateTime(out, note.getCreationDate());
+            out.name("lastModifiedDate");
+            writeDateTime(out, note.getLastModifiedDate());
+            out.name("dueDate");
+            writeDateTime(out, note.getDueDate());
+            out.name("assignees");
+            writeList(out, note.getAssignees(), userAdapter);
+            out.name("comments");
+            writeList(out, note.getComments(), commentAdapter);
+            out.name("goals");
+            writeList(out, note.getGoals(), goalAdapter);
+            out.name("tags");
+            writeStrings(out, note.getTags());
+            out.name("attachmentPaths");
+            writeStrings(out, note.getAttachmentPaths());
+            out.name("dependencies");
+            writeList(out, note.getDependencies(), dependencyAdapter);
+            out.name("referenceImagePaths");
+            writeStrings(out, note.getReferenceImagePaths());
+            out.endObject();
+        }
+
+        @Override
+        public Note read(JsonReader in) throws IOException {
+            UUID id = null;
+            String title = null;
+            String content = null;
+            UUID columnId = null;
+            Note.Priority priority = null;
+            LocalDateTime creationDate = null;
+            LocalDateTime lastModifiedDate = null;
+            LocalDateTime dueDate = null;
+            List<User> assignees = null;
+            List<Note.Comment> comments = null;
+            List<Note.Goal> goals = null;
+            List<String> tags = null;
+            List<String> attachmentPaths = null;
+            List<Note.Dependency> dependencies = null;
+            List<String> referenceImagePaths = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> id = readUuid(in);
+                    case "title" -> title = readString(in);
+                    case "content" -> content = readString(in);
+                    case "columnId" -> columnId = readUuid(in);
+                    case "priority" -> priority = readEnum(in, Note.Priority.class);
+                    case "creationDate" -> creationDate = readDateTime(in);
+                    case "lastModifiedDate" -> lastModifiedDate = readDateTime(in);
+                    case "dueDate" -> dueDate = readDateTime(in);
+                    case "assignees" -> assignees = readList(in, userAdapter);
+                    case "comments" -> comments = readList(in, commentAdapter);
+                    case "goals" -> goals = readList(in, goalAdapter);
+                    case "tags" -> tags = readStrings(in);
+                    case "attachmentPaths" -> attachmentPaths = readStrings(in);
+                    case "dependencies" -> dependencies = readList(in, dependencyAdapter);
+                    case "referenceImagePaths" -> referenceImagePaths = readStrings(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new Note(id != null ? id : UUID.randomUUID(), title, content, columnId, priority,
+                    creationDate, lastModifiedDate, dueDate,
+                    orEmpty(assignees), orEmpty(comments), orEmpty(goals),
+                    tags != null ? new HashSet<>(tags) : new HashSet<>(),
+                    orEmpty(attachmentPaths), orEmpty(dependencies), orEmpty(referenceImagePaths));
+        }
+    }
+
+    // --- Goal ---
+
+    static class GoalAdapter extends TypeAdapter<Note.Goal> {
+        @Override
+        public void write(JsonWriter out, Note.Goal goal) throws IOException {
+            out.beginObject();
+            out.name("description").value(goal.getDescription());
+            out.name("completed").value(goal.isCompleted());
+            out.name("subGoals");
+            writeList(out, goal.getSubGoals(), this);
+            out.name("linkedNoteId");
+            writeUuid(out, goal.getLinkedNoteId().orElse(null));
+            out.name("linkedNoteTitle").value(goal.getLinkedNoteTitle().orElse(null));
+            out.endObject();
+        }
+
+        @Override
+        public Note.Goal read(JsonReader in) throws IOException {
+            String description = null;
+            boolean completed = false;
+            List<Note.Goal> subGoals = null;
+            UUID linkedNoteId = null;
+            String linkedNoteTitle = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "description" -> description = readString(in);
+                    case "completed" -> completed = in.nextBoolean();
+                    case "subGoals" -> subGoals = readList(in, this);
+                    case "linkedNoteId" -> linkedNoteId = readUuid(in);
+                    case "linkedNoteTitle" -> linkedNoteTitle = readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new Note.Goal(description, completed, subGoals, linkedNoteId, linkedNoteTitle);
+        }
+    }
+
+    // --- Comment ---
+
+    static class CommentAdapter extends TypeAdapter<Note.Comment> {
+        private final UserAdapter userAdapter = new UserAdapter();
+
+        @Override
+        public void write(JsonWriter out, Note.Comment comment) throws IOException {
+            out.beginObject();
+            out.name("text").value(comment.getText());
+            out.name("author");
+            if (comment.getAuthor() != null) {
+                userAdapter.write(out, comment.getAuthor());
+            } else {
+                out.nullValue();
+            }
+            out.name("timestamp");
+            writeDateTime(out, comment.getTimestamp());
+            out.endObject();
+        }
+
+        @Override
+        public Note.Comment read(JsonReader in) throws IOException {
+            String text = null;
+            User author = null;
+            LocalDateTime timestamp = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "text" -> text = readString(in);
+                    case "author" -> author = readNullable(in, userAdapter);
+                    case "timestamp" -> timestamp = readDateTime(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Note.Comment(text, author, timestamp);
+        }
+    }
+
+    // --- Dependency ---
+
+    static class DependencyAdapter extends TypeAdapter<Note.Dependency> {
+        @Override
+        public void write(JsonWriter out, Note.Dependency dependency) throws IOException {
+            out.beginObject();
+            out.name("otherNoteId");
+            writeUuid(out, dependency.otherNoteId());
+            out.name("type").value(dependency.type() != null ? dependency.type().name() : null);
+            out.name("otherNoteTitle").value(dependency.otherNoteTitle());
+            out.endObject();
+        }
+
+        @Override
+        public Note.Dependency read(JsonReader in) throws IOException {
+            UUID otherNoteId = null;
+            Note.DependencyType type = null;
+            String otherNoteTitle = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "otherNoteId" -> otherNoteId = readUuid(in);
+                    case "type" -> type = readEnum(in, Note.DependencyType.class);
+                    case "otherNoteTitle" -> otherNoteTitle = readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Note.Dependency(otherNoteId, type, otherNoteTitle);
+        }
+    }
+
+    // --- User ---
+
+    static class UserAdapter extends TypeAdapter<User> {
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            out.beginObject();
+            out.name("id");
+            writeUuid(out, user.id());
+            out.name("name").value(user.name());
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            UUID id = null;
+            String name = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> id = readUuid(in);
+                    case "name" -> name = readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new User(id != null ? id : UUID.randomUUID(), name);
+        }
+    }
+
+    // --- Helpers ---
+
+    private static <T> void writeList(JsonWriter out, Collection<T> values, TypeAdapter<T> adapter) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T value : values) {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                adapter.write(out, value);
+            }
+        }
+        out.endArray();
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            T value = readNullable(in, adapter);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static <T> T readNullable(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return adapter.read(in);
+    }
+
+    private static void writeStrings(JsonWriter out, Collection<String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            String value = readString(in);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static List<UUID> readUuidList(JsonReader in) throws IOException {
+        List<String> values = readStrings(in);
+        if (values == null) {
+            return null;
+        }
+        List<UUID> ids = new ArrayList<>(values.size());
+        for (String value : values) {
+            ids.add(UUID.fromString(value));
+        }
+        return ids;
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static void writeUuid(JsonWriter out, UUID value) throws IOException {
+        out.value(value != null ? value.toString() : null);
+    }
+
+    private static UUID readUuid(JsonReader in) throws IOException {
+        String value = readString(in);
+        return value != null ? UUID.fromString(value) : null;
+    }
+
+    // Same format as NoteManager.LocalDateTimeAdapter: ISO-8601 via toString()/parse().
+    private static void writeDateTime(JsonWriter out, LocalDateTime value) throws IOException {
+        out.value(value != null ? value.toString() : null);
+    }
+
+    private static LocalDateTime readDateTime(JsonReader in) throws IOException {
+        String value = readString(in);
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+
+    // Unknown constants read as null, like Gson's default enum handling.
+    private static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        String value = readString(in);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static <T> List<T> orEmpty(List<T> values) {
+        return values != null ? values : new ArrayList<>();
+    }
+}
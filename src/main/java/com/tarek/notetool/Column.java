@@ -1,18 +1,36 @@
 package com.tarek.notetool;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 public class Column {
     private final UUID id;
     private String name;
-    private final List<UUID> noteIds;
+    private final NoteOrder noteIds;
 
     public Column(String name) {
         this.id = UUID.randomUUID();
         this.name = name;
-        this.noteIds = new ArrayList<>();
+        this.noteIds = new NoteOrder();
+    }
+
+    /**
+     * Restores a saved column with its original ID, used when reading saved boards.
+     */
+    Column(UUID id, String name, List<UUID> noteIds) {
+        this.id = id;
+        this.name = name;
+        this.noteIds = new NoteOrder(noteIds);
+    }
+
+    /**
+     * Copy constructor that keeps the column's ID, used when snapshotting a board for saving.
+     * @param original The column to copy.
+     */
+    Column(Column original) {
+        this.id = original.id;
+        this.name = original.name;
+        this.noteIds = new NoteOrder(original.noteIds);
     }
 
     public UUID getId() {
@@ -27,6 +45,11 @@ public class Column {
         this.name = name;
     }
 
+    /**
+     * Gets the IDs of the notes in this column, in order. Adding, removing and finding an ID takes logarithmic time;
+     * each ID can only be in the list once.
+     * @return The modifiable list of note IDs.
+     */
     public List<UUID> getNoteIds() {
         return noteIds;
     }
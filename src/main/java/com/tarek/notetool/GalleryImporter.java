@@ -0,0 +1,214 @@
+package com.tarek.notetool;
+
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Adds images to the gallery in the background: several at once, so dropping a pile of screenshots doesn't freeze
+ * the window until the last one is copied.
+ * <p>
+ * Each image is copied (or, when pasted, encoded as PNG) into the gallery directory under a new unique name, hashed
+ * on the way, and its thumbnail is made right away. The {@link Listener} hears about each image as soon as it is
+ * ready, about the progress, and once the queue is empty. All methods must be called on the JavaFX thread, and the
+ * listener is called on it.
+ */
+final class GalleryImporter {
+
+    /**
+     * Follows the imports; called on the JavaFX thread.
+     */
+    interface Listener {
+
+        /**
+         * An image was added to the gallery directory; it still has to be added to the gallery itself.
+         * @param fileName Its file name in the gallery directory.
+         */
+        void imported(String fileName);
+
+        /**
+         * @param done How many of the queued images are done (imported, failed or cancelled).
+         * @param total How many images were queued since the queue was last empty.
+         */
+        void progressChanged(int done, int total);
+
+        /**
+         * The queue is empty again.
+         * @param failures A message for each image that could not be imported.
+         */
+        void finished(List<String> failures);
+    }
+
+    /**
+     * Writes an image to its file in the gallery directory, and returns the digest of what it wrote.
+     */
+    private interface TargetWriter {
+        MessageDigest write(Path target) throws IOException, InterruptedException;
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Copies and encodes the images; a few at once, as much of the time is spent waiting for the disk.
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), runnable -> {
+                Thread thread = new Thread(runnable, "gallery-import");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final int thumbnailSize;
+    private final Listener listener;
+    private final Set<FutureTask<String>> pending = new HashSet<>();
+    private final List<String> failures = new ArrayList<>();
+    private int done = 0;
+    private int total = 0;
+
+    /**
+     * @param thumbnailSize The size of the thumbnails to make for the imported images.
+     */
+    GalleryImporter(int thumbnailSize, Listener listener) {
+        this.thumbnailSize = thumbnailSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Queues image files to be copied into the gallery.
+     */
+    void importFiles(List<Path> files) {
+        for (Path file : files) {
+            String sourceName = file.getFileName().toString();
+            submit(sourceName, target -> copy(file, target));
+        }
+    }
+
+    /**
+     * Queues an image (e.g. from the clipboard) to be saved as a PNG in the gallery.
+     */
+    void importImage(Image image) {
+        submit("pasted-image.png", target -> encode(image, target));
+    }
+
+    /**
+     * Stops the imports that are still queued or running. The images that are already done stay in the gallery.
+     */
+    void cancel() {
+        for (FutureTask<String> task : new ArrayList<>(pending)) {
+            task.cancel(true);
+        }
+    }
+
+    private void submit(String sourceName, TargetWriter writer) {
+        String fileName = UUID.randomUUID().toString().substring(0, 8) + "-" + sourceName;
+        Path target = MainApp.getGalleryDirectory().resolve(fileName);
+        Callable<String> job = () -> {
+            try {
+                ThumbnailCache.rememberContentHash(target, writer.write(target));
+                checkNotCancelled();
+                try {
+                    ThumbnailCache.load(target, thumbnailSize).join();
+                } catch (CompletionException e) {
+                    throw new IOException("it is not an image that can be read", e);
+                }
+                checkNotCancelled(); // Otherwise it's added to the gallery
+                return fileName;
+            } catch (Exception e) {
+                discard(target);
+                throw e;
+            }
+        };
+        FutureTask<String> task = new FutureTask<>(job) {
+            @Override
+            protected void done() {
+                Platform.runLater(() -> taskDone(this, sourceName, target));
+            }
+        };
+        pending.add(task);
+        total++;
+        listener.progressChanged(done, total);
+        WORKERS.execute(task);
+    }
+
+    private void taskDone(FutureTask<String> task, String sourceName, Path target) {
+        pending.remove(task);
+        done++;
+        if (task.isCancelled()) {
+            // The job may have finished writing just before it was cancelled
+            WORKERS.execute(() -> discard(target));
+        } else {
+            try {
+                listener.imported(task.get());
+            } catch (ExecutionException e) {
+                failures.add(sourceName + ": " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Can't happen, the task is done
+            }
+        }
+        listener.progressChanged(done, total);
+        if (pending.isEmpty()) {
+            List<String> finishedFailures = List.copyOf(failures);
+            failures.clear();
+            done = 0;
+            total = 0;
+            listener.finished(finishedFailures);
+        }
+    }
+
+    private static MessageDigest copy(Path source, Path target) throws IOException, InterruptedException {
+        MessageDigest digest = ThumbnailCache.newContentDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new DigestOutputStream(Files.newOutputStream(target), digest)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                checkNotCancelled();
+                out.write(buffer, 0, read);
+            }
+        }
+        return digest;
+    }
+
+    private static MessageDigest encode(Image image, Path target) throws IOException {
+        MessageDigest digest = ThumbnailCache.newContentDigest();
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(target), digest)) {
+            ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", out);
+        }
+        return digest;
+    }
+
+    private static void checkNotCancelled() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Import cancelled");
+        }
+    }
+
+    /**
+     * Removes what's left of an image that wasn't imported.
+     */
+    private static void discard(Path target) {
+        ThumbnailCache.evict(target);
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + target + ": " + e.getMessage());
+        }
+    }
+}
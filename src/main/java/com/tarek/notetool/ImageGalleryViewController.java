@@ -1,5 +1,9 @@
 package com.tarek.notetool;
 
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.fxml.FXML;
@@ -10,6 +14,10 @@ import javafx.scene.control.Alert;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.control.Tooltip;
 import javafx.scene.control.Button;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.WritableImage;
@@ -21,7 +29,6 @@ import javafx.scene.input.MouseButton;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.HBox;
-import javafx.scene.layout.TilePane;
 import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import org.kordamp.ikonli.javafx.FontIcon;
@@ -30,26 +37,24 @@ import org.kordamp.ikonli.materialdesign2.MaterialDesignL;
 import org.kordamp.ikonli.materialdesign2.MaterialDesignP;
 import org.kordamp.ikonli.materialdesign2.MaterialDesignD;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.stream.Collectors;
-import javafx.embed.swing.SwingFXUtils;
 
 public class ImageGalleryViewController {
 
     // A custom DataFormat to identify drags originating from our gallery.
     public static final DataFormat GALLERY_IMAGE_DATA_FORMAT = new DataFormat("com.tarek.notetool.galleryImage");
+    // Thumbnails are made at a higher resolution than the default tile size so they don't look blurry when the panel
+    // is resized larger.
+    private static final int THUMBNAIL_SIZE = 250;
 
     @FXML
-    private TilePane imageTilePane;
+    private ListView<String> imageListView;
     @FXML
     private Button addImageButton;
     @FXML
@@ -58,17 +63,62 @@ public class ImageGalleryViewController {
     private Button closeGalleryButton;
     @FXML
     private TextField searchField;
+    @FXML
+    private HBox importProgressBox;
+    @FXML
+    private ProgressBar importProgressBar;
+    @FXML
+    private Label importProgressLabel;
+    @FXML
+    private Button cancelImportButton;
 
     private NoteManager noteManager;
     private Runnable onCloseRequestHandler;
+    // The file names of all gallery images; the list view only shows the ones matching the search field.
+    private final ObservableList<String> galleryImages = FXCollections.observableArrayList();
+    private final FilteredList<String> filteredGalleryImages = new FilteredList<>(galleryImages);
+    // Copies the added images into the gallery in the background; each tile appears as soon as its image is ready.
+    private final GalleryImporter importer = new GalleryImporter(THUMBNAIL_SIZE, new GalleryImporter.Listener() {
+        @Override
+        public void imported(String fileName) {
+            noteManager.addGalleryImagePath(fileName);
+            galleryImages.add(fileName);
+        }
+
+        @Override
+        public void progressChanged(int done, int total) {
+            importProgressBox.setVisible(true);
+            importProgressBox.setManaged(true);
+            importProgressBar.setProgress(total == 0 ? 0 : (double) done / total);
+            importProgressLabel.setText("Adding images " + done + "/" + total);
+        }
+
+        @Override
+        public void finished(List<String> failures) {
+            importProgressBox.setVisible(false);
+            importProgressBox.setManaged(false);
+            if (!failures.isEmpty()) {
+                showError("Save Failed", "Could not save " + failures.size() + " image(s) to the gallery:\n"
+                        + failures.stream().limit(10).collect(Collectors.joining("\n")));
+            }
+        }
+    });
 
     @FXML
     private void initialize() {
         addImageButton.setOnAction(e -> handleAddImageFromFile());
         pasteImageButton.setOnAction(e -> handlePasteImage());
 
+        // The list view only creates tiles for the visible images and reuses them while scrolling,
+        // so filtering only has to update the predicate.
+        imageListView.setItems(filteredGalleryImages);
+        imageListView.setCellFactory(lv -> new GalleryTileCell());
+
         // Add listener to search field to filter the gallery
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> refreshGallery());
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
+            String query = newVal == null ? "" : newVal.toLowerCase();
+            filteredGalleryImages.setPredicate(query.isEmpty() ? null : imageFileName -> imageFileName.toLowerCase().contains(query));
+        });
 
         closeGalleryButton.setGraphic(new FontIcon(MaterialDesignC.CLOSE));
         closeGalleryButton.getStyleClass().add("rich-text-editor-button"); // Use a flat style for the icon button
@@ -79,19 +129,17 @@ public class ImageGalleryViewController {
             }
         });
 
-        // --- Responsive Tile Size ---
-        // Bind the preferred tile width to the width of the TilePane itself.
-        // This will create a 2-column layout that resizes with the panel.
-        // The subtraction accounts for horizontal gap and padding.
-        imageTilePane.prefTileWidthProperty().bind(imageTilePane.widthProperty().subtract(20));
+        cancelImportButton.setGraphic(new FontIcon(MaterialDesignC.CLOSE));
+        cancelImportButton.getStyleClass().add("rich-text-editor-button");
+        Tooltip.install(cancelImportButton, new Tooltip("Stop adding images"));
+        cancelImportButton.setOnAction(e -> importer.cancel());
 
         // --- Drag and Drop to Add Images ---
-        imageTilePane.setOnDragOver(event -> {
+        imageListView.setOnDragOver(event -> {
             Dragboard db = event.getDragboard();
             if (db.hasFiles()) {
                 // Check if any of the files are images
-                boolean hasImageFile = db.getFiles().stream()
-                        .anyMatch(file -> file.getName().toLowerCase().matches(".*\\.(png|jpg|jpeg|gif|bmp)$"));
+                boolean hasImageFile = db.getFiles().stream().anyMatch(ImageGalleryViewController::isImageFile);
                 if (hasImageFile) {
                     event.acceptTransferModes(TransferMode.COPY);
                 }
@@ -99,11 +147,11 @@ public class ImageGalleryViewController {
             event.consume();
         });
 
-        imageTilePane.setOnDragDropped(event -> {
+        imageListView.setOnDragDropped(event -> {
             Dragboard db = event.getDragboard();
             boolean success = false;
             if (db.hasFiles()) {
-                db.getFiles().forEach(file -> saveAndAddImage(file.toPath()));
+                saveAndAddImages(db.getFiles());
                 success = true;
             }
             event.setDropCompleted(success);
@@ -118,19 +166,17 @@ public class ImageGalleryViewController {
     public void setNoteManager(NoteManager noteManager) {
         this.noteManager = noteManager;
         refreshGallery();
+        if (noteManager != null) {
+            // The usage badges are shown once the notes using each image are known, without reading the boards here
+            noteManager.prepareImageUsage(imageListView::refresh, Platform::runLater);
+        }
     }
 
     private void refreshGallery() {
-        imageTilePane.getChildren().clear();
-        String query = searchField.getText().toLowerCase();
-
         if (noteManager != null) {
-            noteManager.getGalleryImagePaths().stream()
-                    .filter(imagePath -> query.isEmpty() || imagePath.toLowerCase().contains(query))
-                    .forEach(this::createImageView);
-            if (query.isEmpty()) {
-                searchField.clear();
-            }
+            galleryImages.setAll(noteManager.getGalleryImagePaths());
+        } else {
+            galleryImages.clear();
         }
     }
 
@@ -140,151 +186,164 @@ public class ImageGalleryViewController {
         fileChooser.getExtensionFilters().addAll(
                 new FileChooser.ExtensionFilter("Image Files", "*.png", "*.jpg", "*.jpeg", "*.gif", "*.bmp")
         );
-        File selectedFile = fileChooser.showOpenDialog(imageTilePane.getScene().getWindow());
+        File selectedFile = fileChooser.showOpenDialog(imageListView.getScene().getWindow());
 
         if (selectedFile != null) {
-            saveAndAddImage(selectedFile.toPath());
+            saveAndAddImages(List.of(selectedFile));
         }
     }
 
     private void handlePasteImage() {
         Clipboard clipboard = Clipboard.getSystemClipboard();
         if (clipboard.hasImage()) {
-            Image fxImage = clipboard.getImage();
-            Path tempFile = null;
-            try {
-                // Create a temporary file to save the clipboard image
-                tempFile = Files.createTempFile("pasted-image-", ".png");
-
-                // Convert JavaFX Image to AWT BufferedImage and write it to the file
-                BufferedImage bufferedImage = SwingFXUtils.fromFXImage(fxImage, null);
-                ImageIO.write(bufferedImage, "png", tempFile.toFile());
-
-                // Use the existing logic to save and add the image to the gallery
-                saveAndAddImage(tempFile);
-
-            } catch (IOException e) {
-                showError("Paste Failed", "Could not process the image from the clipboard. Error: " + e.getMessage());
-            } finally {
-                if (tempFile != null) {
-                    try { Files.deleteIfExists(tempFile); } catch (IOException ignored) { /* Not critical */ }
-                }
-            }
+            // The image is encoded as PNG in the background
+            importer.importImage(clipboard.getImage());
         } else if (clipboard.hasFiles()) {
-            clipboard.getFiles().stream()
-                    .filter(file -> file.getName().toLowerCase().matches(".*\\.(png|jpg|jpeg|gif|bmp)$"))
-                    .forEach(file -> saveAndAddImage(file.toPath())); // This already calls the correct method. No change needed, but good to confirm.
+            saveAndAddImages(clipboard.getFiles());
         }
     }
 
-    private void saveAndAddImage(Path sourcePath) {
-        try {
-            Path galleryDir = MainApp.getGalleryDirectory();
-            String uniqueFileName = UUID.randomUUID().toString().substring(0, 8) + "-" + sourcePath.getFileName().toString();
-            Path targetPath = galleryDir.resolve(uniqueFileName);
-
-            Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-
-            // Add to the model and update UI
-            noteManager.addGalleryImagePath(uniqueFileName);
-            createImageView(uniqueFileName);
-
-        } catch (IOException e) {
-            showError("Save Failed", "Could not save the image to the gallery. Error: " + e.getMessage());
-        }
+    /**
+     * Queues the image files among the given ones to be copied into the gallery.
+     */
+    private void saveAndAddImages(List<File> files) {
+        importer.importFiles(files.stream()
+                .filter(ImageGalleryViewController::isImageFile)
+                .map(File::toPath)
+                .toList());
     }
 
-    private void createImageView(String imageFileName) {
-        Path imagePath = MainApp.getGalleryDirectory().resolve(imageFileName);
-        // Load at a higher resolution so images don't look blurry when the panel is resized larger.
-        Image image = new Image(imagePath.toUri().toString(), 250, 250, true, true);
-        ImageView imageView = new ImageView(image);
-        imageView.setPreserveRatio(true);
-
-        // Bind the image view's size to the tile size for responsive scaling.
-        imageView.fitWidthProperty().bind(imageTilePane.prefTileWidthProperty());
-        // --- Container for image and overlays ---
-        HBox buttonBar = new HBox(5);
-        buttonBar.setAlignment(Pos.TOP_RIGHT);
-        buttonBar.setPadding(new Insets(4));
-        buttonBar.setVisible(false); // Initially hidden
-
-        // --- UI for Copying ---
-        FontIcon copyIcon = new FontIcon(MaterialDesignP.PAPERCLIP);
-        copyIcon.getStyleClass().add("image-overlay-icon");
-        Tooltip.install(copyIcon, new Tooltip("Copy Image to Clipboard"));
-        copyIcon.setOnMouseClicked(e -> {
-            if (e.getButton() == MouseButton.PRIMARY) {
-                ClipboardContent content = new ClipboardContent();
-                content.putImage(image);
-                Clipboard.getSystemClipboard().setContent(content);
-                e.consume();
-            }
-        });
-
-        // --- UI for Deleting ---
-        FontIcon deleteIcon = new FontIcon(MaterialDesignD.DELETE);
-        deleteIcon.getStyleClass().addAll("image-overlay-icon", "image-delete-icon");
-        Tooltip.install(deleteIcon, new Tooltip("Delete Image"));
-        deleteIcon.setOnMouseClicked(e -> {
-            if (e.getButton() == MouseButton.PRIMARY) {
-                handleDeleteImage(imageFileName, imagePath);
-                e.consume();
-            }
-        });
+    private static boolean isImageFile(File file) {
+        return file.getName().toLowerCase().matches(".*\\.(png|jpg|jpeg|gif|bmp)$");
+    }
 
-        StackPane imageContainer = new StackPane(imageView);
-        imageContainer.setCursor(Cursor.OPEN_HAND);
+    /**
+     * A tile in the gallery list. Tiles are only created for the visible rows and are given another image when they
+     * scroll out of view, so everything that depends on the image is looked up through {@link #getItem()}.
+     */
+    private class GalleryTileCell extends ListCell<String> {
+        private final ImageView imageView = new ImageView();
+        private final FontIcon linkIcon = new FontIcon(MaterialDesignL.LINK_VARIANT);
+        private final StackPane imageContainer = new StackPane(imageView);
+
+        GalleryTileCell() {
+            imageView.setPreserveRatio(true);
+            // Fit the image to the width of the list, leaving room for the scroll bar and the cell padding.
+            imageView.fitWidthProperty().bind(imageListView.widthProperty().subtract(30));
+
+            // --- Container for image and overlays ---
+            HBox buttonBar = new HBox(5);
+            buttonBar.setAlignment(Pos.TOP_RIGHT);
+            buttonBar.setPadding(new Insets(4));
+            buttonBar.setVisible(false); // Initially hidden
+
+            // --- UI for Copying ---
+            FontIcon copyIcon = new FontIcon(MaterialDesignP.PAPERCLIP);
+            copyIcon.getStyleClass().add("image-overlay-icon");
+            Tooltip.install(copyIcon, new Tooltip("Copy Image to Clipboard"));
+            copyIcon.setOnMouseClicked(e -> {
+                if (e.getButton() == MouseButton.PRIMARY) {
+                    ClipboardContent content = new ClipboardContent();
+                    content.putImage(imageView.getImage());
+                    Clipboard.getSystemClipboard().setContent(content);
+                    e.consume();
+                }
+            });
+
+            // --- UI for Deleting ---
+            FontIcon deleteIcon = new FontIcon(MaterialDesignD.DELETE);
+            deleteIcon.getStyleClass().addAll("image-overlay-icon", "image-delete-icon");
+            Tooltip.install(deleteIcon, new Tooltip("Delete Image"));
+            deleteIcon.setOnMouseClicked(e -> {
+                if (e.getButton() == MouseButton.PRIMARY && getItem() != null) {
+                    handleDeleteImage(getItem(), MainApp.getGalleryDirectory().resolve(getItem()));
+                    e.consume();
+                }
+            });
 
-        buttonBar.getChildren().addAll(copyIcon, deleteIcon);
-        imageContainer.getChildren().add(buttonBar);
+            imageContainer.setCursor(Cursor.OPEN_HAND);
+            buttonBar.getChildren().addAll(copyIcon, deleteIcon);
+            imageContainer.getChildren().add(buttonBar);
 
-        // --- UI for showing usage ---
-        List<Note> usingNotes = noteManager.getNotesUsingImage(imageFileName);
-        if (!usingNotes.isEmpty()) {
-            FontIcon linkIcon = new FontIcon(MaterialDesignL.LINK_VARIANT);
+            // --- UI for showing usage ---
             linkIcon.getStyleClass().add("image-usage-icon"); // A new style class for color, size etc.
             linkIcon.setIconSize(16);
-
-            String tooltipText = "Used in:\n" +
-                    usingNotes.stream()
+            // The note titles are only looked up when the tooltip is shown, since the notes may not be loaded.
+            Tooltip usageTooltip = new Tooltip();
+            usageTooltip.setOnShowing(e -> usageTooltip.setText("Used in:\n" +
+                    noteManager.getNotesUsingImage(getItem()).stream()
                             .map(Note::getTitle)
                             .map(title -> "• " + title)
-                            .collect(Collectors.joining("\n"));
-            Tooltip.install(linkIcon, new Tooltip(tooltipText));
-
+                            .collect(Collectors.joining("\n"))));
+            Tooltip.install(linkIcon, usageTooltip);
             imageContainer.getChildren().add(linkIcon);
             StackPane.setAlignment(linkIcon, Pos.BOTTOM_LEFT);
             StackPane.setMargin(linkIcon, new Insets(0, 0, 4, 4));
-        }
-
-        imageContainer.setOnMouseEntered(e -> buttonBar.setVisible(true));
-        imageContainer.setOnMouseExited(e -> buttonBar.setVisible(false));
-
-        // --- Drag and Drop Handling ---
-        imageContainer.setOnDragDetected(event -> {
-            Dragboard db = imageContainer.startDragAndDrop(TransferMode.COPY);
-            ClipboardContent content = new ClipboardContent();
-            // Put the unique filename into the dragboard. This is what the note editor will receive.
-            content.put(GALLERY_IMAGE_DATA_FORMAT, imageFileName);
 
-            // Create a snapshot for the drag view
-            SnapshotParameters params = new SnapshotParameters();
-            params.setFill(Color.TRANSPARENT);
-            WritableImage snapshot = imageContainer.snapshot(params, null);
-            db.setDragView(snapshot, event.getX(), event.getY());
+            imageContainer.setOnMouseEntered(e -> buttonBar.setVisible(true));
+            imageContainer.setOnMouseExited(e -> buttonBar.setVisible(false));
 
-            db.setContent(content);
-            imageContainer.setCursor(Cursor.CLOSED_HAND);
-            event.consume();
-        });
+            // --- Drag and Drop Handling ---
+            imageContainer.setOnDragDetected(event -> {
+                if (getItem() == null) {
+                    return;
+                }
+                Dragboard db = imageContainer.startDragAndDrop(TransferMode.COPY);
+                ClipboardContent content = new ClipboardContent();
+                // Put the unique filename into the dragboard. This is what the note editor will receive.
+                content.put(GALLERY_IMAGE_DATA_FORMAT, getItem());
+
+                // Create a snapshot for the drag view
+                SnapshotParameters params = new SnapshotParameters();
+                params.setFill(Color.TRANSPARENT);
+                WritableImage snapshot = imageContainer.snapshot(params, null);
+                db.setDragView(snapshot, event.getX(), event.getY());
+
+                db.setContent(content);
+                imageContainer.setCursor(Cursor.CLOSED_HAND);
+                event.consume();
+            });
+
+            imageContainer.setOnDragDone(event -> {
+                imageContainer.setCursor(Cursor.OPEN_HAND);
+                event.consume();
+            });
+        }
 
-        imageContainer.setOnDragDone(event -> {
-            imageContainer.setCursor(Cursor.OPEN_HAND);
-            event.consume();
-        });
+        @Override
+        protected void updateItem(String imageFileName, boolean empty) {
+            super.updateItem(imageFileName, empty);
+            setText(null);
+            if (empty || imageFileName == null) {
+                imageView.setImage(null);
+                setGraphic(null);
+            } else {
+                showThumbnail(imageFileName);
+                linkIcon.setVisible(noteManager != null && noteManager.isImageUsageReady()
+                        && noteManager.getImageUsageCount(imageFileName) > 0);
+                setGraphic(imageContainer);
+            }
+        }
 
-        imageTilePane.getChildren().add(imageContainer);
+        /**
+         * Shows the thumbnail of a gallery image, with a placeholder until it has been loaded in the background.
+         */
+        private void showThumbnail(String imageFileName) {
+            Path imagePath = MainApp.getGalleryDirectory().resolve(imageFileName);
+            Image cached = ThumbnailCache.getCached(imagePath, THUMBNAIL_SIZE);
+            if (cached != null) {
+                imageView.setImage(cached);
+                return;
+            }
+            imageView.setImage(ThumbnailCache.placeholder(THUMBNAIL_SIZE));
+            ThumbnailCache.load(imagePath, THUMBNAIL_SIZE).whenComplete((thumbnail, error) -> Platform.runLater(() -> {
+                if (thumbnail == null) {
+                    System.err.println("Could not load thumbnail for " + imagePath + ": " + error.getMessage());
+                } else if (imageFileName.equals(getItem())) { // The tile may show another image by now
+                    imageView.setImage(thumbnail);
+                }
+            }));
+        }
     }
 
     private void handleDeleteImage(String imageFileName, Path imagePath) {
@@ -309,19 +368,20 @@ public class ImageGalleryViewController {
         // Remove from the model first.
         if (noteManager.removeGalleryImagePath(imageFileName)) {
             // If successful, delete the physical file.
+            ThumbnailCache.evict(imagePath);
             try {
                 Files.deleteIfExists(imagePath);
             } catch (IOException ioException) {
                 showError("Deletion Failed", "Could not delete the image file from disk: " + ioException.getMessage());
             }
+            galleryImages.remove(imageFileName);
         }
-        refreshGallery();
     }
 
     private void showError(String header, String content) {
         javafx.scene.control.Alert alert = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.ERROR);
-        if (imageTilePane != null && imageTilePane.getScene() != null) {
-            alert.initOwner(imageTilePane.getScene().getWindow());
+        if (imageListView != null && imageListView.getScene() != null) {
+            alert.initOwner(imageListView.getScene().getWindow());
         }
         alert.setTitle("Image Gallery Error");
         alert.setHeaderText(header);
@@ -0,0 +1,112 @@
+package com.tarek.notetool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Brings a list (typically an observable list shown by a list view) into a desired order with as few changes as
+ * possible, matching items by key.
+ * <p>
+ * Items that are no longer wanted are removed, items that are new are inserted, and of the items that stay, the
+ * largest group that is already in the right relative order (a longest increasing subsequence) is left in place; only
+ * the others are moved. Views on the list then only update what actually changed, instead of everything as with
+ * {@code setAll}.
+ */
+final class ListReconciler {
+
+    private ListReconciler() {
+    }
+
+    /**
+     * Changes a list to match a desired list.
+     * @param current The list to change.
+     * @param desired The items the list should have, in order; keys must be unique.
+     * @param key Gets the key that identifies an item (e.g. its ID).
+     * @return The items that were inserted or moved, in their new order.
+     */
+    static <T, K> List<T> reconcile(List<T> current, List<? extends T> desired, Function<? super T, K> key) {
+        Map<K, Integer> desiredPositions = new HashMap<>(desired.size() * 2);
+        for (int i = 0; i < desired.size(); i++) {
+            desiredPositions.put(key.apply(desired.get(i)), i);
+        }
+
+        // The desired position of each current item that stays, and which of them are already in order.
+        int[] positions = new int[current.size()];
+        int staying = 0;
+        for (T item : current) {
+            Integer position = desiredPositions.get(key.apply(item));
+            if (position != null) {
+                positions[staying++] = position;
+            }
+        }
+        boolean[] inOrder = longestIncreasingSubsequence(Arrays.copyOf(positions, staying));
+        Set<K> keep = new HashSet<>();
+        int index = 0;
+        for (T item : current) {
+            K itemKey = key.apply(item);
+            if (desiredPositions.containsKey(itemKey) && inOrder[index++]) {
+                keep.add(itemKey);
+            }
+        }
+
+        // Remove everything else (with a single change, where the list supports it), then insert what is missing.
+        // The remaining items are in the desired order, so each missing one goes right at its desired position.
+        if (keep.size() < current.size()) {
+            List<T> toRemove = new ArrayList<>();
+            for (T item : current) {
+                if (!keep.contains(key.apply(item))) {
+                    toRemove.add(item);
+                }
+            }
+            current.removeAll(new HashSet<>(toRemove));
+        }
+        List<T> changed = new ArrayList<>();
+        for (int i = 0; i < desired.size(); i++) {
+            T item = desired.get(i);
+            if (i >= current.size() || !key.apply(current.get(i)).equals(key.apply(item))) {
+                current.add(i, item);
+                changed.add(item);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Finds a longest strictly increasing subsequence.
+     * @return For each value, whether it is part of the subsequence.
+     */
+    private static boolean[] longestIncreasingSubsequence(int[] values) {
+        // tails[k] is the index of the smallest value that ends an increasing subsequence of length k + 1.
+        int[] tails = new int[values.length];
+        int[] previous = new int[values.length];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tails[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        boolean[] inSubsequence = new boolean[values.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            inSubsequence[i] = true;
+        }
+        return inSubsequence;
+    }
+}
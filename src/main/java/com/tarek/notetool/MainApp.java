@@ -1,8 +1,6 @@
 package com.tarek.notetool;
 
 import atlantafx.base.theme.PrimerDark;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -12,21 +10,32 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.stage.Modality;
 import javafx.scene.image.Image;
-import javafx.util.Duration;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Optional;
+import java.util.prefs.Preferences;
 
 public class MainApp extends Application {
 
     // Define the path for the data directory. It checks for OneDrive and uses it if available.
     private static final Path DATA_DIRECTORY_PATH = determineDataPath();
 
+    private static final Preferences prefs = Preferences.userNodeForPackage(MainApp.class);
+    // Preference key for journaled persistence (note edits are appended to a per-board log).
+    private static final String JOURNALED_PERSISTENCE_KEY = "journaledPersistence";
+    // Preference key for saving boards in the compact binary format instead of JSON.
+    private static final String BINARY_BOARD_FORMAT_KEY = "binaryBoardFormat";
+    // Preference key for how much memory (in MB) the content of boards that aren't open may keep using.
+    private static final String BOARD_MEMORY_BUDGET_KEY = "boardMemoryBudgetMb";
+    private static final int DEFAULT_BOARD_MEMORY_BUDGET_MB = 256;
+
     private NoteManager noteManager;
-    private Timeline autoSaveTimeline;
+    private PersistenceService persistenceService;
+    // How long closing the app waits for pending saves before giving up.
+    private static final long SHUTDOWN_SAVE_TIMEOUT_MILLIS = 5000;
 
     /**
      * Gets the path to the directory where attachments are stored.
@@ -43,6 +52,14 @@ public class MainApp extends Application {
     public static Path getGalleryDirectory() {
         return DATA_DIRECTORY_PATH.resolve("gallery");
     }
+
+    /**
+     * Gets the path to the directory where the thumbnails of gallery images are cached.
+     * @return The Path for the application's thumbnail directory.
+     */
+    public static Path getThumbnailDirectory() {
+        return DATA_DIRECTORY_PATH.resolve("thumbnails");
+    }
     /**
      * Determines the appropriate data storage path.
      * If a OneDrive folder is detected via environment variables, it's used as the base.
@@ -77,6 +94,7 @@ public class MainApp extends Application {
         try {
             Files.createDirectories(getAttachmentsDirectory());
             Files.createDirectories(getGalleryDirectory());
+            Files.createDirectories(getThumbnailDirectory());
         } catch (IOException e) {
             System.err.println("Could not create data subdirectories: " + e.getMessage());
             // This is not fatal, so we just log it and continue.
@@ -113,37 +131,16 @@ public class MainApp extends Application {
 
         stage.show();
 
-        // Set up auto-save to run periodically
-        setupAutoSave();
+        // Save changes in the background shortly after they are made
+        persistenceService = new PersistenceService(noteManager, DATA_DIRECTORY_PATH);
 
         // Add a handler to save data when the application is closed
         stage.setOnCloseRequest(event -> {
-            if (autoSaveTimeline != null) {
-                autoSaveTimeline.stop();
-            }
-            // Perform one final save if there are pending changes.
-            if (noteManager != null && noteManager.isDirty()) {
-                System.out.println("Performing final save on exit...");
-                saveData();
-            }
+            // Write any pending changes, but don't hang the exit forever on a stuck disk.
+            persistenceService.shutdown(SHUTDOWN_SAVE_TIMEOUT_MILLIS);
         });
     }
 
-    /**
-     * Initializes and starts a timeline to periodically save the application data
-     * if any changes have been made.
-     */
-    private void setupAutoSave() {
-        autoSaveTimeline = new Timeline(new KeyFrame(Duration.seconds(30), e -> {
-            if (noteManager != null && noteManager.isDirty()) {
-                System.out.println("Auto-saving changes...");
-                saveData();
-            }
-        }));
-        autoSaveTimeline.setCycleCount(Timeline.INDEFINITE);
-        autoSaveTimeline.play();
-    }
-
     /**
      * Checks for data in the old single-file format and offers to migrate it.
      * Migration is offered if the old file exists and the new directory structure does not.
@@ -206,6 +203,9 @@ public class MainApp extends Application {
             // loadFromDirectory will create a new manager if the directory or files don't exist.
             noteManager = NoteManager.loadFromDirectory(DATA_DIRECTORY_PATH);
             System.out.println("Data loaded from " + DATA_DIRECTORY_PATH);
+            noteManager.setJournalingEnabled(prefs.getBoolean(JOURNALED_PERSISTENCE_KEY, true));
+            noteManager.setBinaryFormatEnabled(prefs.getBoolean(BINARY_BOARD_FORMAT_KEY, true));
+            noteManager.setMemoryBudgetBytes(prefs.getInt(BOARD_MEMORY_BUDGET_KEY, DEFAULT_BOARD_MEMORY_BUDGET_MB) * 1024L * 1024L);
         } catch (IOException e) {
             // This would be for a more serious I/O error, like permissions.
             System.err.println("Critical error loading data, starting with a new NoteManager. Reason: " + e.getMessage());
@@ -213,20 +213,6 @@ public class MainApp extends Application {
         }
     }
 
-    private void saveData() {
-        try {
-            // Ensure the directory exists before saving
-            if (!Files.exists(DATA_DIRECTORY_PATH)) {
-                Files.createDirectories(DATA_DIRECTORY_PATH);
-                System.out.println("Created data directory: " + DATA_DIRECTORY_PATH.toAbsolutePath());
-            }
-            noteManager.saveToDirectory(DATA_DIRECTORY_PATH);
-            System.out.println("Successfully saved data to " + DATA_DIRECTORY_PATH);
-        } catch (IOException e) {
-            System.err.println("Error saving data: " + e.getMessage());
-        }
-    }
-
     /**
      * Opens a new window to display a specific board.
      * @param board The board to display.
@@ -257,7 +243,15 @@ public class MainApp extends Application {
             // Set up global shortcuts for this new window
             controller.setupShortcuts(scene);
 
+            // Keep the board in memory while its window is open; once closed it may be evicted again.
+            noteManager.pinBoard(board);
+            boardStage.setOnHidden(e -> {
+                controller.dispose();
+                noteManager.unpinBoard(board);
+            });
+
             boardStage.show();
+            controller.warmUpNoteEditors();
         } catch (IOException e) {
             System.err.println("Failed to open board window: " + e.getMessage());
             e.printStackTrace();
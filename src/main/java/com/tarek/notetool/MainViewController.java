@@ -4,6 +4,7 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.application.Platform;
 import javafx.animation.Interpolator;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.animation.FadeTransition;
 import javafx.animation.TranslateTransition;
 import javafx.util.Duration;
@@ -13,6 +14,7 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.geometry.Pos;
 import javafx.geometry.Insets;
+import javafx.geometry.Bounds;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
 import javafx.scene.control.Button;
@@ -31,7 +33,6 @@ import javafx.scene.control.Menu;
 import javafx.scene.input.KeyCombination;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.Tooltip;
-import javafx.scene.control.ScrollPane;
 import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleButton;
@@ -53,23 +54,28 @@ import javafx.scene.paint.Color;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.stage.Modality;
+import javafx.stage.Popup;
 import javafx.stage.Stage;
 import javafx.scene.Node;
 import javafx.util.Pair;
 import javafx.stage.FileChooser;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Comparator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 import java.io.File;
@@ -88,7 +94,7 @@ import org.kordamp.ikonli.materialdesign2.MaterialDesignL;
 public class MainViewController {
 
     @FXML
-    private HBox columnsContainer;
+    private ListView<Column> columnsListView;
 
     @FXML
     private StackPane rootStackPane; // The new root pane from your FXML
@@ -96,9 +102,6 @@ public class MainViewController {
     @FXML
     private VBox imageGalleryPane; // The VBox containing the loaded ImageGalleryView
 
-    @FXML
-    private ScrollPane boardScrollPane;
-
     @FXML
     private Label boardTitleLabel;
 
@@ -116,14 +119,52 @@ public class MainViewController {
 
     private NoteManager noteManager;
     private Board currentBoard;
-    private final Map<UUID, VBox> noteContainersMap = new HashMap<>();
+    // The notes shown in each column, in display order. The column views only create cards for the visible notes.
+    private final Map<UUID, ObservableList<Note>> columnNotesMap = new HashMap<>();
+    // The columns shown on the board; the column strip only creates views for the columns in the viewport.
+    private final ObservableList<Column> visibleColumns = FXCollections.observableArrayList();
+    // The column views and note cards that are currently in view, by column and note ID.
+    private final Map<UUID, ColumnView> columnViewsMap = new HashMap<>();
+    private final Map<UUID, NoteCard> noteCardsMap = new HashMap<>();
+    // The columns to animate when their views are first shown after displayBoard, with their position on the board.
+    private final Map<UUID, Integer> pendingColumnAnimations = new HashMap<>();
 
     // A reusable placeholder for drag-and-drop operations.
     private final Region dropPlaceholder = new Region();
 
+    // Search-as-you-type: the running search and the drop-down below the search field that shows its results.
+    private static final int SEARCH_PAGE_SIZE = 25;
+    private NoteManager.SearchCursor liveSearch;
+    private final Popup liveSearchPopup = new Popup();
+    private final ListView<NoteManager.NoteBoardPair> liveSearchResults = new ListView<>();
+
+    private NoteEditorPool noteEditorPool; // Editor windows owned by this window, created once it's shown
+    // Keeps the board on screen in sync with the changes to the model, made in this window or another one.
+    private final Consumer<List<BoardEvent>> boardEventListener = this::handleBoardEvents;
+
     private ImageGalleryViewController imageGalleryViewController;    public void setNoteManager(NoteManager noteManager) {
         this.noteManager = noteManager;        // Pass the manager to the gallery controller
         if (imageGalleryViewController != null) imageGalleryViewController.setNoteManager(noteManager);
+        noteManager.addEventListener(boardEventListener);
+    }
+
+    /**
+     * Stops following the changes to the boards, once the window is closed.
+     */
+    public void dispose() {
+        if (noteManager != null) {
+            noteManager.removeEventListener(boardEventListener);
+        }
+        if (noteEditorPool != null) {
+            noteEditorPool.dispose();
+        }
+    }
+
+    /**
+     * Prepares a note editor in the background once the window is shown, so the first note opens without delay.
+     */
+    public void warmUpNoteEditors() {
+        noteEditorPool().warmUp();
     }
 
 
@@ -186,40 +227,100 @@ public class MainViewController {
     public void displayBoard(Board board) {
         this.currentBoard = board;
         boardTitleLabel.setText(board.getName());
-        columnsContainer.getChildren().clear(); // Clear previous board
-        noteContainersMap.clear();
- 
-        int i = 0;
+
+        List<Column> columnsToShow = new ArrayList<>();
+        Map<UUID, ObservableList<Note>> previousNotes = new HashMap<>(columnNotesMap);
+        columnNotesMap.clear();
         for (Column boardColumn : board.getColumns()) {
             if (boardColumn.getName().equalsIgnoreCase("Archived") && !showArchivedToggle.isSelected()) {
                 continue; // Skip archived column if toggle is off
             }
-            VBox column = createColumn(boardColumn);
-            columnsContainer.getChildren().add(column);
+            // Keep the list of a column that is already shown, so its view just picks up the changes.
+            ObservableList<Note> notes = previousNotes.getOrDefault(boardColumn.getId(), FXCollections.observableArrayList());
+            notes.setAll(currentBoard.getNotesInColumn(boardColumn.getId()));
+            columnNotesMap.put(boardColumn.getId(), notes);
+            columnsToShow.add(boardColumn);
+        }
+        // The columns fade in one after the other as their views are shown (see ColumnCell).
+        pendingColumnAnimations.clear();
+        for (int i = 0; i < columnsToShow.size(); i++) {
+            pendingColumnAnimations.put(columnsToShow.get(i).getId(), i);
+        }
+        visibleColumns.setAll(columnsToShow);
+        columnViewsMap.values().forEach(ColumnView::refresh);
+        // Views that already show one of the columns may not be updated by the column strip, so animate them now.
+        columnViewsMap.forEach((columnId, column) -> {
+            Integer position = pendingColumnAnimations.remove(columnId);
+            if (position != null && column.getScene() != null) {
+                animateColumnIn(column, position);
+            }
+        });
+    }
 
-            column.setOpacity(0);
-            column.setTranslateY(50); // Start 50px below final position
+    /**
+     * Brings the board on screen in sync with the model after a change, without rebuilding it: columns and notes that
+     * were added, removed or moved are inserted, removed or moved in their lists (matched by ID), the other columns
+     * and cards stay as they are, and only cards whose note was edited are updated.
+     */
+    private void reconcileBoard() {
+        List<Column> columnsToShow = new ArrayList<>();
+        Map<UUID, ObservableList<Note>> previousNotes = new HashMap<>(columnNotesMap);
+        columnNotesMap.clear();
+        for (Column boardColumn : currentBoard.getColumns()) {
+            if (boardColumn.getName().equalsIgnoreCase("Archived") && !showArchivedToggle.isSelected()) {
+                continue; // Skip archived column if toggle is off
+            }
+            ObservableList<Note> notes = previousNotes.get(boardColumn.getId());
+            if (notes == null) {
+                notes = FXCollections.observableArrayList(currentBoard.getNotesInColumn(boardColumn.getId()));
+            } else {
+                ListReconciler.reconcile(notes, currentBoard.getNotesInColumn(boardColumn.getId()), Note::getId);
+            }
+            columnNotesMap.put(boardColumn.getId(), notes);
+            columnsToShow.add(boardColumn);
+        }
 
-            FadeTransition ft = new FadeTransition(Duration.millis(400), column);
-            ft.setToValue(1);
+        // Only the columns that appear (e.g. the archive) fade in.
+        pendingColumnAnimations.clear();
+        List<Column> addedColumns = ListReconciler.reconcile(visibleColumns, columnsToShow, Column::getId);
+        addedColumns.stream()
+                .filter(column -> !previousNotes.containsKey(column.getId()))
+                .forEach(column -> pendingColumnAnimations.put(column.getId(), 0));
+
+        columnViewsMap.values().forEach(ColumnView::refresh);
+        for (NoteCard card : noteCardsMap.values()) {
+            if (card.isOutdated()) {
+                card.setNote(card.getNote());
+            }
+        }
+    }
 
-            TranslateTransition tt = new TranslateTransition(Duration.millis(400), column);
-            tt.setToY(0);
+    /**
+     * Fades a column in from below, staggered by its position on the board.
+     */
+    private void animateColumnIn(ColumnView column, int position) {
+        column.setOpacity(0);
+        column.setTranslateY(50); // Start 50px below final position
 
-            // Stagger the animation
-            ft.setDelay(Duration.millis(i * 70));
-            tt.setDelay(Duration.millis(i * 70));
+        FadeTransition ft = new FadeTransition(Duration.millis(400), column);
+        ft.setToValue(1);
 
-            ft.play();
-            tt.play();
-            i++;
-        }
+        TranslateTransition tt = new TranslateTransition(Duration.millis(400), column);
+        tt.setToY(0);
+
+        // Stagger the animation
+        ft.setDelay(Duration.millis(position * 70));
+        tt.setDelay(Duration.millis(position * 70));
+
+        ft.play();
+        tt.play();
     }
 
     @FXML
     private void initialize() {
-        // Add listener for search field to re-filter the board
+        // Search as the user types; Enter opens all results in a dialog
         searchField.setOnAction(event -> handleGlobalSearch());
+        setupLiveSearch();
 
         // Setup preferences button - This is now hidden, but we keep the logic in case it's re-added.
         preferencesButton.setGraphic(new FontIcon(MaterialDesignC.COG_OUTLINE));
@@ -231,7 +332,7 @@ public class MainViewController {
         showArchivedToggle.setGraphic(new FontIcon(MaterialDesignA.ARCHIVE_OUTLINE));
         showArchivedToggle.selectedProperty().addListener((obs, oldVal, newVal) -> {
             if (currentBoard != null) {
-                displayBoard(currentBoard);
+                reconcileBoard();
             }
         });
 
@@ -240,6 +341,11 @@ public class MainViewController {
         Tooltip.install(imageGalleryToggle, new Tooltip("Toggle Image Gallery"));
         imageGalleryToggle.setOnAction(e -> handleToggleImageGallery());
 
+        // The board is a horizontally virtualized strip of columns, each a virtualized list of cards.
+        columnsListView.setItems(visibleColumns);
+        columnsListView.setCellFactory(lv -> new ColumnCell());
+        columnsListView.setFocusTraversable(false);
+
         // Initialize the drop placeholder style
         dropPlaceholder.getStyleClass().add("note-card-drop-placeholder");
         setupImageGallery();
@@ -275,203 +381,97 @@ public class MainViewController {
         tt.play();
     }
 
-    // ... (rest of the file from createColumn onwards is largely the same, but with some methods removed)
-
-    private VBox createColumn(Column boardColumn) {
-        // Column Header
-        List<Note> notesInColumn = currentBoard.getNotesInColumn(boardColumn.getId());
-        int noteCount = notesInColumn.size();
-
-        HBox columnHeader = new HBox();
-        columnHeader.setSpacing(5);
-        columnHeader.setAlignment(Pos.CENTER_LEFT);
-
-        Label titleLabel = new Label(boardColumn.getName() + " (" + noteCount + ")");
-        titleLabel.setFont(new Font("System Bold", 16));
-
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-
-        // Initialize with empty text to prevent a NullPointerException in some JavaFX versions
-        // where the skin can be created before the graphic is set.
-        MenuButton optionsButton = new MenuButton("");
-        optionsButton.setGraphic(new FontIcon(MaterialDesignD.DOTS_VERTICAL));
-        Tooltip.install(optionsButton, new Tooltip("Column Options"));
-        optionsButton.getStyleClass().add("rich-text-editor-button");
-
-        // --- Column Options Menu ---
-        MenuItem renameItem = new MenuItem("Rename Column");
-        renameItem.setOnAction(e -> handleRenameColumn(boardColumn));
-
-        MenuItem addLeftItem = new MenuItem("Add Column to Left");
-        addLeftItem.setOnAction(e -> handleAddColumn(boardColumn, -1));
-
-        MenuItem addRightItem = new MenuItem("Add Column to Right");
-        addRightItem.setOnAction(e -> handleAddColumn(boardColumn, 1));
-
-        MenuItem deleteItem = new MenuItem("Delete Column");
-        deleteItem.setStyle("-fx-text-fill: -color-danger-fg;");
-        deleteItem.setOnAction(e -> handleDeleteColumn(boardColumn));
-
-        // --- Sorting Menu ---
-        Menu sortMenu = new Menu("Sort by");
-        Comparator<Note> byPriority = Comparator.comparing(Note::getPriority).reversed();
-        Comparator<Note> byDueDate = Comparator.comparing(Note::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()));
-        Comparator<Note> byTitle = Comparator.comparing(Note::getTitle, String.CASE_INSENSITIVE_ORDER);
-
-        MenuItem sortByPriority = new MenuItem("Priority (High to Low)");
-        sortByPriority.setOnAction(e -> handleSortColumn(boardColumn.getId(), byPriority));
-        MenuItem sortByDueDate = new MenuItem("Due Date (Soonest First)");
-        sortByDueDate.setOnAction(e -> handleSortColumn(boardColumn.getId(), byDueDate));
-        MenuItem sortByTitle = new MenuItem("Title (A-Z)");
-        sortByTitle.setOnAction(e -> handleSortColumn(boardColumn.getId(), byTitle));
-        sortMenu.getItems().addAll(sortByPriority, sortByDueDate, sortByTitle);
-
-        optionsButton.getItems().addAll(renameItem, sortMenu, new SeparatorMenuItem(), addLeftItem, addRightItem, new SeparatorMenuItem(), deleteItem);
-
-        columnHeader.getChildren().addAll(titleLabel, spacer, optionsButton);
-
-        // --- Column Drag & Drop for Reordering ---
-        SimpleStringProperty dragData = new SimpleStringProperty();
-        columnHeader.setOnDragDetected(event -> {
-            Dragboard db = columnHeader.startDragAndDrop(TransferMode.MOVE);
-            ClipboardContent content = new ClipboardContent();
-            content.putString(boardColumn.getId().toString());
-            db.setContent(content);
-            dragData.set(boardColumn.getId().toString());
-            event.consume();
-        });
-
-        columnHeader.setOnDragDone(event -> dragData.set(null));
-
-        columnHeader.setOnDragOver(event -> {
-            if (event.getGestureSource() != columnHeader && event.getDragboard().hasString()) {
-                // Ensure we are dragging a column from the same board
-                if (!event.getDragboard().getString().equals(boardColumn.getId().toString())) {
-                    event.acceptTransferModes(TransferMode.MOVE);
-                }
-            }
-            event.consume();
-        });
-
-        columnHeader.setOnDragEntered(event -> {
-            if (event.getGestureSource() != columnHeader && event.getDragboard().hasString()) {
-                columnHeader.getParent().getStyleClass().add("column-vbox-drag-over");
-            }
-        });
-
-        columnHeader.setOnDragExited(event -> {
-            columnHeader.getParent().getStyleClass().remove("column-vbox-drag-over");
-        });
-
-        columnHeader.setOnDragDropped(event -> {
-            Dragboard db = event.getDragboard();
-            boolean success = false;
-            if (db.hasString()) {
-                UUID draggedColumnId = UUID.fromString(db.getString());
-                handleReorderColumn(draggedColumnId, boardColumn.getId());
-                success = true;
-            }
-            event.setDropCompleted(success);
-            event.consume();
-        });
-
-        // VBox for notes
-        VBox notesContainer = new VBox(5);
-        noteContainersMap.put(boardColumn.getId(), notesContainer);
-
-        // Populate with all notes for the given status
-        notesInColumn.forEach(note -> {
-            VBox noteCard = createNoteCard(note);
-            notesContainer.getChildren().add(noteCard);
-        });
-
-        // Assemble the column
-        VBox columnVBox = new VBox(10, columnHeader, notesContainer);
-
-        // Only add the "Add Note" button for non-archived columns
-        if (!boardColumn.getName().equalsIgnoreCase("Archived")) {
-            Button addNoteButton = new Button("+ Add Note");
-            addNoteButton.setMaxWidth(Double.MAX_VALUE);
-            addNoteButton.setOnAction(e -> handleNewNote(boardColumn));
-            columnVBox.getChildren().add(addNoteButton);
+    /**
+     * Applies changes to the model to the board on screen: notes that were added, removed or moved are added to,
+     * removed from or moved in their column lists, edited notes get their card updated, and only the headers of the
+     * columns whose notes changed are refreshed. Column changes bring the column strip in sync with the board.
+     */
+    private void handleBoardEvents(List<BoardEvent> events) {
+        if (currentBoard == null) {
+            return;
         }
-
-        columnVBox.setPadding(new Insets(10));
-        columnVBox.setPrefWidth(250);
-
-        // --- Drag and Drop Event Handlers for the Column ---
-        columnVBox.setOnDragOver(event -> {
-            if (event.getGestureSource() != columnVBox && event.getDragboard().hasString()) {
-                event.acceptTransferModes(TransferMode.MOVE);
+        boolean columnsChanged = false;
+        Set<UUID> changedColumnIds = new HashSet<>();
+        for (BoardEvent event : events) {
+            if (event.board() != currentBoard) {
+                continue;
             }
-            event.consume();
-        });
-
-        columnVBox.setOnDragEntered(event -> {
-            if (event.getGestureSource() != columnVBox && event.getDragboard().hasString()) {
-                columnVBox.getStyleClass().add("column-vbox-drag-over");
+            if (event instanceof BoardEvent.NoteAdded added) {
+                Note note = added.note();
+                ObservableList<Note> notes = columnNotesMap.get(note.getColumnId());
+                if (notes != null) {
+                    notes.add(note);
+                }
+                changedColumnIds.add(note.getColumnId());
+            } else if (event instanceof BoardEvent.NoteUpdated updated) {
+                refreshNoteCard(updated.note());
+            } else if (event instanceof BoardEvent.NoteRemoved removed) {
+                ObservableList<Note> notes = columnNotesMap.get(removed.columnId());
+                if (notes != null) {
+                    notes.removeIf(note -> note.getId().equals(removed.noteId()));
+                }
+                changedColumnIds.add(removed.columnId());
+            } else if (event instanceof BoardEvent.NoteMoved moved) {
+                currentBoard.findNoteById(moved.noteId()).ifPresent(note -> {
+                    ObservableList<Note> oldNotes = columnNotesMap.get(moved.fromColumnId());
+                    if (oldNotes != null) {
+                        oldNotes.remove(note);
+                    }
+                    ObservableList<Note> newNotes = columnNotesMap.get(moved.toColumnId());
+                    if (newNotes != null) { // The target column may be hidden (archived)
+                        if (moved.index() >= 0 && moved.index() <= newNotes.size()) {
+                            newNotes.add(moved.index(), note);
+                        } else {
+                            newNotes.add(note); // Fallback to adding at the end
+                        }
+                    }
+                });
+                changedColumnIds.add(moved.fromColumnId());
+                changedColumnIds.add(moved.toColumnId());
+            } else if (event instanceof BoardEvent.BoardRenamed) {
+                boardTitleLabel.setText(currentBoard.getName());
+                if (columnsListView.getScene() != null && columnsListView.getScene().getWindow() instanceof Stage stage) {
+                    stage.setTitle(currentBoard.getName() + " - Note Tool");
+                }
+            } else if (event instanceof BoardEvent.BoardRemoved) {
+                if (columnsListView.getScene() != null) {
+                    columnsListView.getScene().getWindow().hide();
+                }
+                return;
+            } else {
+                columnsChanged = true; // A column was added, removed, renamed or moved
             }
-        });
-
-        columnVBox.setOnDragExited(event -> {
-            columnVBox.getStyleClass().remove("column-vbox-drag-over");
-        });
+        }
 
-        columnVBox.setOnDragDropped(event -> {
-            Dragboard db = event.getDragboard();
-            boolean success = false;
-            if (db.hasString()) {
-                UUID noteId = UUID.fromString(db.getString());
-                // Dropping on a column moves the note to that column.
-                handleReorderNote(noteId, boardColumn.getId(), -1); // -1 means add to end
-                success = true;
+        if (columnsChanged) {
+            reconcileBoard();
+        } else {
+            for (UUID columnId : changedColumnIds) {
+                ColumnView columnView = columnViewsMap.get(columnId);
+                if (columnView != null) {
+                    columnView.refresh();
+                }
             }
-            event.setDropCompleted(success);
-            event.consume();
-        });
-
-        columnVBox.getStyleClass().add("column-vbox");
-
-        return columnVBox;
+        }
     }
 
     /**
-     * Updates the note counts in the header of each column.
-     * This is more efficient than redrawing the entire board.
+     * Shows the current state of a note on its card, if the card is in view and was built before the last edit.
      */
-    private void updateColumnCounts() {
-        for (Column boardColumn : currentBoard.getColumns()) {
-            VBox notesContainer = noteContainersMap.get(boardColumn.getId());
-            if (notesContainer != null && notesContainer.getParent() instanceof VBox) {
-                VBox columnVBox = (VBox) notesContainer.getParent();
-                // The header is now an HBox, which is the first child.
-                if (!columnVBox.getChildren().isEmpty() && columnVBox.getChildren().get(0) instanceof HBox) {
-                    HBox headerBox = (HBox) columnVBox.getChildren().get(0);
-                    // Find the Label within the HBox
-                    Optional<Node> titleLabelOpt = headerBox.getChildren().stream()
-                            .filter(node -> node instanceof Label)
-                            .findFirst();
-
-                    titleLabelOpt.ifPresent(node -> {
-                        Label titleLabel = (Label) node;
-                        int noteCount = currentBoard.getNotesInColumn(boardColumn.getId()).size();
-                        titleLabel.setText(boardColumn.getName() + " (" + noteCount + ")");
-                    });
-                }
-            }
+    private void refreshNoteCard(Note note) {
+        NoteCard card = findNoteCard(note);
+        if (card != null && card.isOutdated()) {
+            card.setNote(note);
         }
     }
 
     /**
-     * Creates the UI representation of a single note (a "card").
-     * This method orchestrates the creation of the card's components, styling, and event handlers.
-     *
-     * @param note The note to represent.
-     * @return A VBox containing the note card UI.
+     * Finds the card that shows a note, if it is in view.
      */
-    private VBox createNoteCard(Note note) {
-        return new NoteCard(note);
+    private NoteCard findNoteCard(Note note) {
+        NoteCard card = noteCardsMap.get(note.getId());
+        // A list view doesn't tell the cells it drops (e.g. when its items are replaced), so check the card is still shown.
+        return card != null && card.getNote() == note && card.getScene() != null ? card : null;
     }
 
     /**
@@ -576,7 +576,7 @@ public class MainViewController {
                 .map(Note.Dependency::otherNoteTitle)
                 .collect(Collectors.toList());
 
-        boolean hasLinkedGoals = note.getGoals().stream().anyMatch(this::goalHasLinks);
+        boolean hasLinkedGoals = note.hasLinkedGoals();
 
         if (relatedNoteTitles.isEmpty() && !hasLinkedGoals) {
             return Optional.empty();
@@ -615,9 +615,18 @@ public class MainViewController {
     }
 
     /**
-     * Sets up the context menu (right-click) for a note card.
+     * Sets up the context menu (right-click) for a note card. The menu is built when it is requested, for the note
+     * the card shows at that time.
      */
-    private void setupCardContextMenu(VBox card, Note note) {
+    private void setupCardContextMenu(NoteCard card) {
+        card.setOnContextMenuRequested(e -> {
+            if (card.getNote() != null) {
+                createCardContextMenu(card.getNote()).show(card, e.getScreenX(), e.getScreenY());
+            }
+        });
+    }
+
+    private ContextMenu createCardContextMenu(Note note) {
         ContextMenu contextMenu = new ContextMenu();
 
         MenuItem moveToTop = new MenuItem("Move to Top");
@@ -627,8 +636,8 @@ public class MainViewController {
         MenuItem moveToBottom = new MenuItem("Move to Bottom");
         moveToBottom.setGraphic(new FontIcon(MaterialDesignA.ARROW_DOWN_BOLD_BOX_OUTLINE));
         moveToBottom.setOnAction(e -> {
-            VBox container = noteContainersMap.get(note.getColumnId());
-            int newIndex = container != null ? container.getChildren().size() : -1;
+            List<Note> notes = columnNotesMap.get(note.getColumnId());
+            int newIndex = notes != null ? notes.size() : -1;
             handleReorderNote(note.getId(), note.getColumnId(), newIndex);
         });
 
@@ -637,11 +646,8 @@ public class MainViewController {
         for (Column newColumn : currentBoard.getColumns()) {
             if (!newColumn.getId().equals(note.getColumnId())) {
                 MenuItem moveItem = new MenuItem(newColumn.getName());
-                moveItem.setOnAction(e -> {
-                    VBox newContainer = noteContainersMap.get(newColumn.getId());
-                    // Move to the end of the target column
-                    handleReorderNote(note.getId(), newColumn.getId(), newContainer.getChildren().size());
-                });
+                // Move to the end of the target column
+                moveItem.setOnAction(e -> handleReorderNote(note.getId(), newColumn.getId(), -1));
                 moveMenu.getItems().add(moveItem);
             }
         }
@@ -658,42 +664,33 @@ public class MainViewController {
         deleteItem.setOnAction(e -> handleDeleteNote(note));
         contextMenu.getItems().addAll(moveToTop, moveToBottom, new SeparatorMenuItem(),
                 duplicateItem, moveMenu, new SeparatorMenuItem(), deleteItem);
-        card.setOnContextMenuRequested(e -> contextMenu.show(card, e.getScreenX(), e.getScreenY()));
+        return contextMenu;
     }
 
     /**
      * Sets up the click handler to open the note detail view.
      */
-    private void setupCardClickHandling(VBox card, Note note) {
+    private void setupCardClickHandling(NoteCard card) {
         card.setOnMouseClicked(event -> {
-            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 1) {
-                showNoteDetailView(note, card);
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 1 && card.getNote() != null) {
+                showNoteDetailView(card.getNote());
             }
         });
     }
 
-    /**
-     * Sets up the drag-and-drop functionality for a note card.
-     */
-    private void setupCardDragAndDrop(VBox card, Note note) {
-        setupDragSourceForCard(card, note);
-        setupDropTargetForCard(card);
-    }
-
     /**
      * Configures the event handlers for a note card to act as a drag source.
      * This includes starting the drag operation and cleaning up when it's done.
      *
      * @param card The UI node for the note card.
-     * @param note The data object for the note.
      */
-    private void setupDragSourceForCard(VBox card, Note note) {
+    private void setupDragSourceForCard(NoteCard card) {
         card.setOnDragDetected(event -> {
-            if (event.getButton() != MouseButton.PRIMARY) return;
+            if (event.getButton() != MouseButton.PRIMARY || card.getNote() == null) return;
 
             Dragboard db = card.startDragAndDrop(TransferMode.MOVE);
             ClipboardContent content = new ClipboardContent();
-            content.putString(note.getId().toString());
+            content.putString(card.getNote().getId().toString());
 
             // Use a snapshot of the card as the drag view
             WritableImage snapshot = card.snapshot(new SnapshotParameters(), null);
@@ -713,56 +710,58 @@ public class MainViewController {
         card.setOnDragDone(event -> {
             // --- IMPROVED ANIMATION: Fade the card back in ---
             // If the move was not successful (drag cancelled), fade it back in its original spot.
-            // If it was successful, the card is removed and re-added, so this fade-in won't be visible on the old card.
+            // If it was successful, the card now shows the note in its new place (or another note), so restore it at once.
             if (!event.isDropCompleted()) {
                 FadeTransition ft = new FadeTransition(Duration.millis(200), card);
                 ft.setFromValue(0.4);
                 ft.setToValue(1.0);
                 ft.play();
+            } else {
+                card.setOpacity(1.0);
             }
             event.consume();
         });
     }
 
     /**
-     * Configures the event handlers for a note card to act as a drop target for reordering.
+     * Configures the event handlers for a note card cell to act as a drop target for reordering.
+     * While a card is dragged over another one, the drop placeholder is shown above or below it.
      *
-     * @param card The UI node for the note card.
+     * @param cell The list cell that shows the note card.
      */
-    private void setupDropTargetForCard(VBox card) {
-        card.setOnDragOver(event -> {
-            if (event.getGestureSource() != card && event.getDragboard().hasString() && card.getParent() instanceof VBox) {
+    private void setupDropTargetForCard(NoteCardCell cell) {
+        cell.setOnDragOver(event -> {
+            if (cell.isEmpty()) {
+                return; // Below the last card: let the column handle it (adds to the end)
+            }
+            if (event.getGestureSource() != cell.card && event.getDragboard().hasString()) {
                 event.acceptTransferModes(TransferMode.MOVE);
 
-                VBox container = (VBox) card.getParent();
-                container.getChildren().remove(dropPlaceholder);
-
-                int index = container.getChildren().indexOf(card);
-                if (event.getY() < card.getHeight() / 2) {
-                    container.getChildren().add(index, dropPlaceholder);
-                } else {
-                    container.getChildren().add(index + 1, dropPlaceholder);
-                }
+                cell.cardBox.getChildren().remove(dropPlaceholder);
+                cell.cardBox.getChildren().add(cell.isAboveCardCenter(event.getSceneX(), event.getSceneY()) ? 0 : 1, dropPlaceholder);
             }
             event.consume();
         });
 
-        card.setOnDragExited(event -> {
-            if (card.getParent() instanceof VBox) ((VBox) card.getParent()).getChildren().remove(dropPlaceholder);
+        cell.setOnDragExited(event -> {
+            cell.cardBox.getChildren().remove(dropPlaceholder);
             event.consume();
         });
 
-        card.setOnDragDropped(event -> {
+        cell.setOnDragDropped(event -> {
+            if (cell.isEmpty()) {
+                return;
+            }
             Dragboard db = event.getDragboard();
             boolean success = false;
             if (db.hasString()) {
                 // Clean up placeholder before dropping
-                if (card.getParent() instanceof VBox) ((VBox) card.getParent()).getChildren().remove(dropPlaceholder);
+                cell.cardBox.getChildren().remove(dropPlaceholder);
 
                 UUID draggedNoteId = UUID.fromString(db.getString());
-                Note targetNote = ((NoteCard) card).getNote();
-                int targetIndex = ((VBox) card.getParent()).getChildren().indexOf(card);
-                int newIndex = (event.getY() < card.getHeight() / 2) ? targetIndex : targetIndex + 1;
+                Note targetNote = cell.getItem();
+                int targetIndex = cell.getIndex();
+                int newIndex = cell.isAboveCardCenter(event.getSceneX(), event.getSceneY()) ? targetIndex : targetIndex + 1;
 
                 handleReorderNote(draggedNoteId, targetNote.getColumnId(), newIndex);
                 success = true;
@@ -808,13 +807,91 @@ public class MainViewController {
                 newNote.setAssignees(List.of(noteManager.getCurrentUser()));
             }
 
-            currentBoard.addNote(newNote);
-            noteManager.markAsDirty();
+            currentBoard.addNote(newNote); // The card is added by handleBoardEvents
+        });
+    }
 
-            // Incrementally update the UI
-            noteContainersMap.get(column.getId()).getChildren().add(createNoteCard(newNote));
-            updateColumnCounts();
+    private void setupLiveSearch() {
+        liveSearchResults.setPrefSize(450, 300);
+        liveSearchResults.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(NoteManager.NoteBoardPair item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                    return;
+                }
+                setText("'" + item.note.getTitle() + "' in board [" + item.board.getName() + "]");
+                // Read the next page once the last result scrolls into view
+                if (getIndex() == getListView().getItems().size() - 1) {
+                    Platform.runLater(() -> loadMoreSearchResults(liveSearch, getListView()));
+                }
+            }
         });
+        liveSearchResults.setOnMouseClicked(event -> {
+            NoteManager.NoteBoardPair selected = liveSearchResults.getSelectionModel().getSelectedItem();
+            if (event.getButton() == MouseButton.PRIMARY && selected != null) {
+                liveSearchPopup.hide();
+                openSearchResult(selected.note, selected.board);
+            }
+        });
+        liveSearchResults.setOnKeyPressed(event -> {
+            NoteManager.NoteBoardPair selected = liveSearchResults.getSelectionModel().getSelectedItem();
+            if (event.getCode() == KeyCode.ENTER && selected != null) {
+                liveSearchPopup.hide();
+                openSearchResult(selected.note, selected.board);
+            } else if (event.getCode() == KeyCode.ESCAPE) {
+                liveSearchPopup.hide();
+                searchField.requestFocus();
+            }
+        });
+        liveSearchPopup.getContent().add(liveSearchResults);
+        liveSearchPopup.setAutoHide(true);
+
+        searchField.textProperty().addListener((obs, oldText, newText) -> startLiveSearch(newText));
+        searchField.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.DOWN && liveSearchPopup.isShowing()) {
+                liveSearchResults.requestFocus();
+                liveSearchResults.getSelectionModel().selectFirst();
+            } else if (event.getCode() == KeyCode.ESCAPE) {
+                liveSearchPopup.hide();
+            }
+        });
+    }
+
+    /**
+     * Starts a background search for the current text of the search field, cancelling the previous one.
+     * The first page of results replaces the drop-down's content as soon as the search index has answered.
+     */
+    private void startLiveSearch(String query) {
+        if (liveSearch != null) {
+            liveSearch.cancel();
+            liveSearch = null;
+        }
+        if (noteManager == null || query == null || query.trim().isEmpty()) {
+            liveSearchResults.getItems().clear();
+            liveSearchPopup.hide();
+            return;
+        }
+        liveSearch = noteManager.searchAllNotesAsync(query, cursor -> {
+            if (cursor != liveSearch) {
+                return;
+            }
+            liveSearchResults.getItems().setAll(cursor.nextPage(SEARCH_PAGE_SIZE));
+            liveSearchResults.scrollTo(0);
+            if (liveSearchResults.getItems().isEmpty()) {
+                liveSearchPopup.hide();
+            } else if (!liveSearchPopup.isShowing() && searchField.getScene() != null) {
+                Bounds bounds = searchField.localToScreen(searchField.getBoundsInLocal());
+                liveSearchPopup.show(searchField, bounds.getMinX(), bounds.getMaxY());
+            }
+        }, Platform::runLater);
+    }
+
+    private static void loadMoreSearchResults(NoteManager.SearchCursor cursor, ListView<NoteManager.NoteBoardPair> listView) {
+        if (cursor != null && !cursor.isCancelled() && cursor.hasMore()) {
+            listView.getItems().addAll(cursor.nextPage(SEARCH_PAGE_SIZE));
+        }
     }
 
     private void handleGlobalSearch() {
@@ -822,11 +899,14 @@ public class MainViewController {
         if (query == null || query.trim().isEmpty()) {
             return;
         }
+        liveSearchPopup.hide();
+        noteManager.searchAllNotesAsync(query, this::showSearchResults, Platform::runLater);
+    }
 
-        Map<Note, Board> searchResults = noteManager.searchAllNotes(query);
-
-        if (searchResults.isEmpty()) {
-            showInfo("No Results", "No notes found matching your search query '" + query + "'.");
+    private void showSearchResults(NoteManager.SearchCursor cursor) {
+        List<NoteManager.NoteBoardPair> firstPage = cursor.nextPage(SEARCH_PAGE_SIZE);
+        if (firstPage.isEmpty()) {
+            showInfo("No Results", "No notes found matching your search query '" + cursor.getQuery() + "'.");
             return;
         }
 
@@ -838,33 +918,34 @@ public class MainViewController {
             Parent page = loader.load();
 
             Stage dialogStage = new Stage();
-            dialogStage.setTitle("Search Results for '" + query + "'");
+            dialogStage.setTitle("Search Results for '" + cursor.getQuery() + "'");
             dialogStage.initModality(Modality.WINDOW_MODAL);
-            Scene ownerScene = boardScrollPane.getScene().getWindow().getScene();
+            Scene ownerScene = columnsListView.getScene().getWindow().getScene();
             dialogStage.initOwner(ownerScene.getWindow());
             Scene dialogScene = new Scene(page);
             ThemeManager.loadAndApplyTheme(dialogScene);
             dialogStage.setScene(dialogScene);
             controller.setDialogStage(dialogStage);
-            controller.setSearchResults(searchResults);
+            controller.setSearchResults(cursor, firstPage, SEARCH_PAGE_SIZE);
 
             dialogStage.showAndWait();
+            cursor.cancel();
 
-            controller.getSelectedResult().ifPresent(pair -> {
-                Board targetBoard = pair.getValue();
-                Note targetNote = pair.getKey();
-                if (currentBoard != null && currentBoard.getName().equals(targetBoard.getName())) {
-                    showNoteDetailView(targetNote, null);
-                } else {
-                    showInfo("Note on Different Board", "The selected note '" + targetNote.getTitle() + "' is on the board '" + targetBoard.getName() + "'.\n\nPlease open that board to view the note.");
-                }
-            });
+            controller.getSelectedResult().ifPresent(pair -> openSearchResult(pair.getKey(), pair.getValue()));
         } catch (IOException e) {
             showError("Search Error", "Could not open search results view. Error: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    private void openSearchResult(Note targetNote, Board targetBoard) {
+        if (currentBoard != null && currentBoard.getName().equals(targetBoard.getName())) {
+            showNoteDetailView(targetNote);
+        } else {
+            showInfo("Note on Different Board", "The selected note '" + targetNote.getTitle() + "' is on the board '" + targetBoard.getName() + "'.\n\nPlease open that board to view the note.");
+        }
+    }
+
     private void handleDuplicateNote(Note originalNote) {
         Note newNote = originalNote.duplicate(); // Use the dedicated duplicate method
 
@@ -878,20 +959,12 @@ public class MainViewController {
             }
         }
 
-        currentBoard.addNote(newNote);
-        noteManager.markAsDirty();
-
-        // Incrementally add the new card to the UI instead of redrawing everything
-        VBox container = noteContainersMap.get(newNote.getColumnId());
-        if (container != null) {
-            container.getChildren().add(createNoteCard(newNote));
-        }
-        updateColumnCounts();
+        currentBoard.addNote(newNote); // The card is added by handleBoardEvents
     }
 
     /**
-     * Handles the sorting of a column. It sorts the underlying data model
-     * and then re-populates the UI with a staggered fade-in animation.
+     * Handles the sorting of a column. It sorts the notes for display
+     * and then moves the cards that changed places with a staggered fade-in animation.
      * @param status The status of the column to sort.
      * @param comparator The comparator to use for sorting.
      */
@@ -904,22 +977,27 @@ public class MainViewController {
         List<Note> notesToSort = new ArrayList<>(currentBoard.getNotesInColumn(columnId));
         notesToSort.sort(comparator);
 
-        // 2. Re-populate the UI container
-        VBox notesContainer = noteContainersMap.get(columnId);
-        if (notesContainer != null) {
-            notesContainer.getChildren().clear();
-
-            for (int i = 0; i < notesToSort.size(); i++) {
-                Note note = notesToSort.get(i);
-                VBox noteCard = createNoteCard(note);
-
-                noteCard.setOpacity(0);
-                FadeTransition ft = new FadeTransition(Duration.millis(300), noteCard);
-                ft.setToValue(1);
-                ft.setDelay(Duration.millis(i * 40)); // Stagger the animation
-                ft.play();
-
-                notesContainer.getChildren().add(noteCard);
+        // 2. Reorder the UI list (only the notes that are out of order are moved),
+        //    and fade in the moved cards that are in view one after the other
+        ObservableList<Note> notes = columnNotesMap.get(columnId);
+        ColumnView columnView = columnViewsMap.get(columnId);
+        if (notes != null) {
+            List<Note> movedNotes = ListReconciler.reconcile(notes, notesToSort, Note::getId);
+            if (columnView != null) {
+                columnView.notesListView.layout();
+                int i = 0;
+                for (Note note : movedNotes) {
+                    NoteCard noteCard = findNoteCard(note);
+                    if (noteCard == null) {
+                        continue; // Not in view
+                    }
+                    noteCard.setOpacity(0);
+                    FadeTransition ft = new FadeTransition(Duration.millis(300), noteCard);
+                    ft.setToValue(1);
+                    ft.setDelay(Duration.millis(i * 40)); // Stagger the animation
+                    ft.play();
+                    i++;
+                }
             }
         }
         // Note: This is a UI-only sort, so we don't mark the model as dirty.
@@ -943,45 +1021,23 @@ public class MainViewController {
                 }
 
                 // If checks pass, proceed with the move
-                VBox oldContainer = noteContainersMap.get(noteToMove.getColumnId());
-                VBox newContainer = noteContainersMap.get(targetColumnId);
-
-                if (oldContainer != null && newContainer != null) {
-                    Optional<Node> cardToMoveOpt = oldContainer.getChildren().stream()
-                            .filter(nodeUI -> nodeUI instanceof NoteCard && noteToMove.equals(((NoteCard) nodeUI).getNote()))
-                            .findFirst();
-
-                    cardToMoveOpt.ifPresent(cardNode -> {
-                        // The index for the model needs to be adjusted if we move an item
-                        // downwards in the same list, because we remove it first.
-                        int modelIndex = newIndexInUI;
-                        if (oldContainer == newContainer) {
-                            int oldIndexInUI = oldContainer.getChildren().indexOf(cardNode);
-                            if (oldIndexInUI < newIndexInUI) {
-                                modelIndex--;
-                            }
-                        }
+                ObservableList<Note> oldNotes = columnNotesMap.get(noteToMove.getColumnId());
+                ObservableList<Note> newNotes = columnNotesMap.get(targetColumnId);
+                int oldIndexInUI = oldNotes != null ? oldNotes.indexOf(noteToMove) : -1;
+
+                if (oldIndexInUI >= 0) {
+                    // The index for the model needs to be adjusted if we move an item
+                    // downwards in the same list, because we remove it first.
+                    int modelIndex = newIndexInUI;
+                    if (oldNotes == newNotes && oldIndexInUI < newIndexInUI) {
+                        modelIndex--;
+                    }
 
-                        // Perform model update first
-                        if (currentBoard.moveNote(draggedNoteId, targetColumnId, modelIndex)) {
-                            // If model update is successful, update the UI
-                            oldContainer.getChildren().remove(cardNode);
-                            if (newContainer != null) { // Defensive check
-                                // Add to the correct position in the UI
-                                if (newIndexInUI >= 0 && newIndexInUI <= newContainer.getChildren().size()) {
-                                    newContainer.getChildren().add(newIndexInUI, cardNode);
-                                } else {
-                                    newContainer.getChildren().add(cardNode); // Fallback to adding at the end
-                                }
-
-                                // --- NEW: Add "physics" animation on drop ---
-                                animateCardDrop(cardNode, oldContainer, newContainer);
-
-                            }
-                            updateColumnCounts();
-                            noteManager.markAsDirty();
-                        }
-                    });
+                    // The model update moves the card as well (see handleBoardEvents)
+                    if (currentBoard.moveNote(draggedNoteId, targetColumnId, modelIndex) && newNotes != null) {
+                        // --- NEW: Add "physics" animation on drop ---
+                        animateCardDrop(noteToMove, oldNotes != newNotes);
+                    }
                 }
             });
         });
@@ -991,12 +1047,16 @@ public class MainViewController {
      * Animates a note card when it's dropped into a new position, giving it a "settle" effect.
      * The animation direction (vertical or horizontal) depends on whether the card moved between columns.
      *
-     * @param cardNode The UI node of the card that was moved.
-     * @param oldContainer The column VBox the card was moved from.
-     * @param newContainer The column VBox the card was moved to.
+     * @param note The note that was moved.
+     * @param movedColumns Whether the note was moved to another column.
      */
-    private void animateCardDrop(Node cardNode, VBox oldContainer, VBox newContainer) {
-        boolean movedColumns = oldContainer != newContainer;
+    private void animateCardDrop(Note note, boolean movedColumns) {
+        // Lay out the columns now, so the note's card in its new position exists (if it is in view).
+        columnViewsMap.values().forEach(columnView -> columnView.notesListView.layout());
+        NoteCard cardNode = findNoteCard(note);
+        if (cardNode == null) {
+            return;
+        }
 
         // Temporarily translate the card from its new final position.
         // If it moved columns, it comes from the side. If not, it comes from above/below.
@@ -1020,10 +1080,8 @@ public class MainViewController {
         dialog.setContentText("Name:");
 
         dialog.showAndWait().ifPresent(newName -> {
-            if (!newName.trim().isEmpty() && !newName.equals(column.getName())) {
-                column.setName(newName);
-                noteManager.markAsDirty();
-                displayBoard(currentBoard); // Redraw board to reflect name change
+            if (!newName.trim().isEmpty()) {
+                currentBoard.renameColumn(column.getId(), newName);
             }
         });
     }
@@ -1034,8 +1092,6 @@ public class MainViewController {
         if (index != -1) {
             columns.add(index + (offset > 0 ? 1 : 0), new Column("New Column"));
             currentBoard.setColumns(columns);
-            noteManager.markAsDirty();
-            displayBoard(currentBoard);
         }
     }
 
@@ -1054,18 +1110,17 @@ public class MainViewController {
             if (response == ButtonType.OK) {
                 List<Column> columns = new ArrayList<>(currentBoard.getColumns());
                 Column firstColumn = columns.get(0);
-                // Move notes from the deleted column to the first column
-                List<Note> notesToMove = new ArrayList<>(currentBoard.getNotesInColumn(columnToDelete.getId()));
-                notesToMove.forEach(note -> {
-                    currentBoard.moveNote(note.getId(), firstColumn.getId(), -1); // Move to end of the first column
-                });
+                // The board on screen is updated once, after all notes are moved and the column is gone.
+                noteManager.batch(() -> {
+                    // Move notes from the deleted column to the first column
+                    List<Note> notesToMove = new ArrayList<>(currentBoard.getNotesInColumn(columnToDelete.getId()));
+                    notesToMove.forEach(note -> {
+                        currentBoard.moveNote(note.getId(), firstColumn.getId(), -1); // Move to end of the first column
+                    });
 
-                columns.remove(columnToDelete);
-                currentBoard.setColumns(columns);
-                noteManager.markAsDirty();
-                // The underlying model for notes has changed columns, so a full redraw is the safest way
-                // to ensure the UI is perfectly in sync.
-                displayBoard(currentBoard); 
+                    columns.remove(columnToDelete);
+                    currentBoard.setColumns(columns);
+                });
             }
         });
     }
@@ -1085,8 +1140,6 @@ public class MainViewController {
                 columns.remove(dragged.get());
                 columns.add(targetIndex, dragged.get());
                 currentBoard.setColumns(columns);
-                noteManager.markAsDirty();
-                displayBoard(currentBoard);
             }
         }
     }
@@ -1100,20 +1153,7 @@ public class MainViewController {
 
         confirmation.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                VBox container = noteContainersMap.get(note.getColumnId());
-                if (container != null) {
-                    Optional<Node> cardToRemove = container.getChildren().stream()
-                            .filter(nodeUI -> nodeUI instanceof NoteCard && note.equals(((NoteCard) nodeUI).getNote()))
-                            .findFirst();
-
-                    cardToRemove.ifPresent(cardNode -> {
-                        if (currentBoard.removeNote(note.getId())) {
-                            container.getChildren().remove(cardNode);
-                            updateColumnCounts();
-                            noteManager.markAsDirty();
-                        }
-                    });
-                }
+                currentBoard.removeNote(note.getId()); // The card is removed by handleBoardEvents
             }
         });
     }
@@ -1135,8 +1175,8 @@ public class MainViewController {
     }
 
     private void initAlertOwner(Alert alert) {
-        if (boardScrollPane != null && boardScrollPane.getScene() != null) {
-            alert.initOwner(boardScrollPane.getScene().getWindow());
+        if (columnsListView != null && columnsListView.getScene() != null) {
+            alert.initOwner(columnsListView.getScene().getWindow());
         }
     }
 
@@ -1158,109 +1198,95 @@ public class MainViewController {
         alert.showAndWait();
     }
 
-    private void showNoteDetailView(Note note, VBox noteCard) {
+    private void showNoteDetailView(Note note) {
         try {
-            // Load the fxml file and create a new stage for the popup dialog.
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/tarek/notetool/note-detail-view.fxml"));
-            // Manually create and set the controller for robustness in packaged applications.
-            NoteDetailViewController controller = new NoteDetailViewController();
-            loader.setController(controller);
-            Parent page = loader.load();
-
-            // Create the dialog Stage.
-            Stage dialogStage = new Stage();
-            dialogStage.setTitle("Edit Note");
-            dialogStage.initModality(Modality.WINDOW_MODAL);
-            dialogStage.initOwner(boardScrollPane.getScene().getWindow());
-            Scene scene = new Scene(page);
-            // Apply the user's custom theme to the new dialog's scene
-            ThemeManager.loadAndApplyTheme(scene);
-            dialogStage.setScene(scene);
-
-            // Set the note into the controller.
-            controller.setDialogStage(dialogStage);
-            controller.setNote(note);
-            controller.setUsers(currentBoard.getMembers());
-            controller.setAllTags(noteManager.getAllTags());
-            controller.setNoteManager(noteManager); // Pass the NoteManager for dependency searching
-            if (noteManager.getCurrentUser() != null) {
-                controller.setCurrentUser(noteManager.getCurrentUser()); // Set the current user for commenting
+            // Take a ready-made editor window (see NoteEditorPool); it's given back once closed.
+            NoteEditorPool.Editor editor = noteEditorPool().acquire();
+            try {
+                showNoteDetailView(note, editor);
+            } finally {
+                noteEditorPool().release(editor);
             }
+        } catch (IOException | UncheckedIOException e) { // UncheckedIOException: the note's body couldn't be read
+            showError("Failed to open editor", "Could not load the note detail view. Error: " + e.getMessage());
+        }
+    }
 
-            // Add fade-in animation
-            page.setOpacity(0);
-            FadeTransition ft = new FadeTransition(Duration.millis(300), page);
-            ft.setToValue(1);
-            ft.play();
-
-            // Setup shortcuts after the scene is available
-            controller.setupShortcuts();
-
-            // Store the note's status before editing to detect if it changed
-            UUID originalColumnId = note.getColumnId();
+    /**
+     * Shows a note in an editor window and waits until it's closed, then applies the changes if the user saved.
+     */
+    private void showNoteDetailView(Note note, NoteEditorPool.Editor editor) {
+        Stage dialogStage = editor.stage();
+        Parent page = editor.page();
+        NoteDetailViewController controller = editor.controller();
+        // Set the note into the controller.
+        controller.setNote(note);
+        controller.setUsers(currentBoard.getMembers());
+        controller.setAllTags(noteManager.getAllTags());
+        controller.setNoteManager(noteManager); // Pass the NoteManager for dependency searching
+        if (noteManager.getCurrentUser() != null) {
+            controller.setCurrentUser(noteManager.getCurrentUser()); // Set the current user for commenting
+        }
 
-            // Record access before showing
-            noteManager.recordNoteAccess(note.getId());
+        // Add fade-in animation
+        page.setOpacity(0);
+        FadeTransition ft = new FadeTransition(Duration.millis(300), page);
+        ft.setToValue(1);
+        ft.play();
+
+        // Record access before showing
+        noteManager.recordNoteAccess(note.getId());
+
+        // Show the dialog and wait until the user closes it.
+        // The WelcomeViewController will now be responsible for refreshing its recent notes list.
+        dialogStage.showAndWait();
+
+        // Check if the user clicked a link to open another note
+        Optional<UUID> noteToOpenId = controller.getNoteToOpen();
+        if (noteToOpenId.isPresent()) {
+            noteManager.findNoteAndBoard(noteToOpenId.get()).ifPresent(pair -> {
+                // Use Platform.runLater to avoid issues with opening a new dialog
+                // while the old one is still in its closing phase.
+                Platform.runLater(() -> {
+                    // Switch to the board if it's not the current one
+                    // Since we can't open a new board from here, we just show an info message.
+                    // A more advanced implementation could use a callback to the MainApp to open the new window.
+                    showInfo("Note on Different Board", "The linked note '" + pair.note.getTitle() + "' is on the board '" + pair.board.getName() + "'.\n\nPlease open that board to view the note.");
+                    // If it was on the same board, we would open it:
+                    // if (currentBoard != null && currentBoard.getName().equals(pair.board.getName())) { showNoteDetailView(pair.note); }
+                });
+            });
+            // Stop further processing since we are opening a new note and any other result is irrelevant.
+            return;
+        }
 
-            // Show the dialog and wait until the user closes it.
-            // The WelcomeViewController will now be responsible for refreshing its recent notes list.
-            dialogStage.showAndWait();
+        // Check if the user saved the changes by getting the returned note copy
+        controller.getResult().ifPresent(result -> {
+            Note savedNoteCopy = result.savedNote();
 
-            // Check if the user clicked a link to open another note
-            Optional<UUID> noteToOpenId = controller.getNoteToOpen();
-            if (noteToOpenId.isPresent()) {
-                noteManager.findNoteAndBoard(noteToOpenId.get()).ifPresent(pair -> {
-                    // Use Platform.runLater to avoid issues with opening a new dialog
-                    // while the old one is still in its closing phase.
-                    Platform.runLater(() -> {
-                        // Switch to the board if it's not the current one
-                        // Since we can't open a new board from here, we just show an info message.
-                        // A more advanced implementation could use a callback to the MainApp to open the new window.
-                        showInfo("Note on Different Board", "The linked note '" + pair.note.getTitle() + "' is on the board '" + pair.board.getName() + "'.\n\nPlease open that board to view the note.");
-                        // If it was on the same board, we would open it:
-                        // if (currentBoard != null && currentBoard.getName().equals(pair.board.getName())) { showNoteDetailView(pair.note, null); }
-                    });
-                });
-                // Stop further processing since we are opening a new note and any other result is irrelevant.
-                return;
+            // If any new tags were created ad-hoc, add them to the global list
+            if (!result.newTags().isEmpty()) {
+                noteManager.getAllTags().addAll(result.newTags());
+                noteManager.markSettingsDirty();
             }
 
-            // Check if the user saved the changes by getting the returned note copy
-            controller.getResult().ifPresent(result -> {
-                Note savedNoteCopy = result.savedNote();
-
-                // If any new tags were created ad-hoc, add them to the global list
-                if (!result.newTags().isEmpty()) {
-                    noteManager.getAllTags().addAll(result.newTags());
+            // The user saved. Update the original note object with the new data.
+            // A new status (column) is a move on the board, to the end of the new column; handleBoardEvents then
+            // moves and updates the card.
+            noteManager.batch(() -> {
+                if (!Objects.equals(note.getColumnId(), savedNoteCopy.getColumnId())) {
+                    currentBoard.moveNote(note.getId(), savedNoteCopy.getColumnId(), -1);
                 }
-
-                // The user saved. Update the original note object with the new data.
                 note.updateFrom(savedNoteCopy);
-                noteManager.markAsDirty();
-
-                // Now, update the UI to reflect the changes to the original note object.
-                if (noteCard != null) {
-                    // If the status (column) has changed, move the card. Otherwise, just update it.
-                    if (!Objects.equals(originalColumnId, note.getColumnId())) {
-                        VBox oldContainer = noteContainersMap.get(originalColumnId);
-                        oldContainer.getChildren().remove(noteCard);
-                        VBox newContainer = noteContainersMap.get(note.getColumnId());
-                        if (newContainer != null) newContainer.getChildren().add(createNoteCard(note)); // Re-create the card in the new column
-                    } else {
-                        // The card is in the same column, so just replace it in-place.
-                        VBox container = (VBox) noteCard.getParent();
-                        int cardIndex = container.getChildren().indexOf(noteCard);
-                        container.getChildren().set(cardIndex, createNoteCard(note)); // Re-create the card to show updates
-                    }
-                    updateColumnCounts();
-                } else {
-                    // If the editor was opened from a context without a specific card (e.g., recent notes), refresh the whole board.
-                    displayBoard(currentBoard);
-                }
             });
-        } catch (IOException e) {
-            showError("Failed to open editor", "Could not load the note detail view. Error: " + e.getMessage());
+        });
+    }
+
+    private NoteEditorPool noteEditorPool() {
+        if (noteEditorPool == null) {
+            noteEditorPool = new NoteEditorPool(columnsListView.getScene().getWindow());
         }
+        return noteEditorPool;
     }
 
     /**
@@ -1288,41 +1314,317 @@ public class MainViewController {
      * @param goal The goal to check.
      * @return true if a link is found, false otherwise.
      */
-    private boolean goalHasLinks(Note.Goal goal) {
-        if (goal.isLink()) {
-            return true;
-        }
-        // The getSubGoals() method on the Goal class returns an unmodifiable list, which is never null.
-        return goal.getSubGoals().stream().anyMatch(this::goalHasLinks);
-    }
-
     /**
      * An inner class representing the UI for a single Note.
      * This encapsulates all the logic for building, styling, and handling events for a note card.
+     * Cards are reused for other notes as the columns scroll, so the handlers always go through {@link #getNote()}.
      */
     private class NoteCard extends VBox {
-        private final Note note;
+        private Note note;
+        private LocalDateTime shownVersion; // The last-modified date of the note when the card was built
 
-        public NoteCard(Note note) {
-            this.note = note;
+        public NoteCard() {
+            // 1. Configure this VBox
+            this.setSpacing(5);
+            this.setPadding(new Insets(10));
 
-            // 1. Build UI components
+            // 2. Set up the event handlers
+            setupCardContextMenu(this);
+            setupCardClickHandling(this);
+            setupDragSourceForCard(this);
+        }
+
+        /**
+         * Shows a note on this card, rebuilding its content.
+         */
+        public void setNote(Note note) {
+            this.note = note;
+            this.shownVersion = note.getLastModifiedDate();
             Label title = new Label(note.getTitle());
             title.setWrapText(true);
             HBox detailsBox = buildCardDetails(note);
             FlowPane tagsPane = buildTagsFlowPane(note);
+            this.getChildren().setAll(title, detailsBox, tagsPane);
+            setCardStyleClass(this, note);
+        }
 
-            // 2. Configure this VBox
-            this.setSpacing(5);
+        public Note getNote() {
+            return note;
+        }
+
+        /**
+         * Checks whether the note was edited since the card was built.
+         */
+        public boolean isOutdated() {
+            return note != null && !Objects.equals(shownVersion, note.getLastModifiedDate());
+        }
+    }
+
+    /**
+     * A cell of a column's note list. It shows one note card, and the drop placeholder above or below it while
+     * another card is dragged over it.
+     */
+    private class NoteCardCell extends ListCell<Note> {
+        private final NoteCard card = new NoteCard();
+        private final VBox cardBox = new VBox(card);
+
+        NoteCardCell() {
+            setupDropTargetForCard(this);
+        }
+
+        @Override
+        protected void updateItem(Note note, boolean empty) {
+            Note previousNote = getItem();
+            super.updateItem(note, empty);
+            setText(null);
+            cardBox.getChildren().remove(dropPlaceholder);
+            if (previousNote != null) {
+                noteCardsMap.remove(previousNote.getId(), card);
+            }
+            if (empty || note == null) {
+                setGraphic(null);
+                return;
+            }
+            if (card.getNote() != note || card.isOutdated()) {
+                card.setNote(note);
+                // Reset any animation state left over from the note the card showed before.
+                card.setOpacity(1.0);
+                card.setTranslateX(0);
+                card.setTranslateY(0);
+            }
+            noteCardsMap.put(note.getId(), card);
+            setGraphic(cardBox);
+        }
+
+        /**
+         * Checks whether a point (in scene coordinates) is in the upper half of the card.
+         */
+        boolean isAboveCardCenter(double sceneX, double sceneY) {
+            return card.sceneToLocal(sceneX, sceneY).getY() < card.getHeight() / 2;
+        }
+    }
+
+    /**
+     * The UI for one column: its header, the list of its note cards and the "Add Note" button.
+     * Column views are reused for other columns as the board scrolls, so the handlers always go through {@link #column}.
+     */
+    private class ColumnView extends VBox {
+        private Column column;
+        private final Label titleLabel = new Label();
+        private final ListView<Note> notesListView = new ListView<>();
+        private final Button addNoteButton = new Button("+ Add Note");
+
+        ColumnView() {
+            // Column Header
+            HBox columnHeader = new HBox();
+            columnHeader.setSpacing(5);
+            columnHeader.setAlignment(Pos.CENTER_LEFT);
+
+            titleLabel.setFont(new Font("System Bold", 16));
+
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+
+            // Initialize with empty text to prevent a NullPointerException in some JavaFX versions
+            // where the skin can be created before the graphic is set.
+            MenuButton optionsButton = new MenuButton("");
+            optionsButton.setGraphic(new FontIcon(MaterialDesignD.DOTS_VERTICAL));
+            Tooltip.install(optionsButton, new Tooltip("Column Options"));
+            optionsButton.getStyleClass().add("rich-text-editor-button");
+
+            // --- Column Options Menu ---
+            MenuItem renameItem = new MenuItem("Rename Column");
+            renameItem.setOnAction(e -> handleRenameColumn(column));
+
+            MenuItem addLeftItem = new MenuItem("Add Column to Left");
+            addLeftItem.setOnAction(e -> handleAddColumn(column, -1));
+
+            MenuItem addRightItem = new MenuItem("Add Column to Right");
+            addRightItem.setOnAction(e -> handleAddColumn(column, 1));
+
+            MenuItem deleteItem = new MenuItem("Delete Column");
+            deleteItem.setStyle("-fx-text-fill: -color-danger-fg;");
+            deleteItem.setOnAction(e -> handleDeleteColumn(column));
+
+            // --- Sorting Menu ---
+            Menu sortMenu = new Menu("Sort by");
+            Comparator<Note> byPriority = Comparator.comparing(Note::getPriority).reversed();
+            Comparator<Note> byDueDate = Comparator.comparing(Note::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()));
+            Comparator<Note> byTitle = Comparator.comparing(Note::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+            MenuItem sortByPriority = new MenuItem("Priority (High to Low)");
+            sortByPriority.setOnAction(e -> handleSortColumn(column.getId(), byPriority));
+            MenuItem sortByDueDate = new MenuItem("Due Date (Soonest First)");
+            sortByDueDate.setOnAction(e -> handleSortColumn(column.getId(), byDueDate));
+            MenuItem sortByTitle = new MenuItem("Title (A-Z)");
+            sortByTitle.setOnAction(e -> handleSortColumn(column.getId(), byTitle));
+            sortMenu.getItems().addAll(sortByPriority, sortByDueDate, sortByTitle);
+
+            optionsButton.getItems().addAll(renameItem, sortMenu, new SeparatorMenuItem(), addLeftItem, addRightItem, new SeparatorMenuItem(), deleteItem);
+
+            columnHeader.getChildren().addAll(titleLabel, spacer, optionsButton);
+
+            // --- Column Drag & Drop for Reordering ---
+            SimpleStringProperty dragData = new SimpleStringProperty();
+            columnHeader.setOnDragDetected(event -> {
+                Dragboard db = columnHeader.startDragAndDrop(TransferMode.MOVE);
+                ClipboardContent content = new ClipboardContent();
+                content.putString(column.getId().toString());
+                db.setContent(content);
+                dragData.set(column.getId().toString());
+                event.consume();
+            });
+
+            columnHeader.setOnDragDone(event -> dragData.set(null));
+
+            columnHeader.setOnDragOver(event -> {
+                if (event.getGestureSource() != columnHeader && event.getDragboard().hasString()) {
+                    // Ensure we are dragging a column from the same board
+                    if (!event.getDragboard().getString().equals(column.getId().toString())) {
+                        event.acceptTransferModes(TransferMode.MOVE);
+                    }
+                }
+                event.consume();
+            });
+
+            columnHeader.setOnDragEntered(event -> {
+                if (event.getGestureSource() != columnHeader && event.getDragboard().hasString()) {
+                    getStyleClass().add("column-vbox-drag-over");
+                }
+            });
+
+            columnHeader.setOnDragExited(event -> {
+                getStyleClass().remove("column-vbox-drag-over");
+            });
+
+            columnHeader.setOnDragDropped(event -> {
+                Dragboard db = event.getDragboard();
+                boolean success = false;
+                if (db.hasString()) {
+                    UUID draggedColumnId = UUID.fromString(db.getString());
+                    handleReorderColumn(draggedColumnId, column.getId());
+                    success = true;
+                }
+                event.setDropCompleted(success);
+                event.consume();
+            });
+
+            // Virtualized list for notes: only the cards in view exist, and they are reused while scrolling.
+            notesListView.setCellFactory(lv -> new NoteCardCell());
+            notesListView.getStyleClass().add("column-notes");
+            notesListView.setPlaceholder(new Region());
+            notesListView.setFocusTraversable(false);
+            // A small preferred height, so the column is as tall as the board rather than as its content.
+            notesListView.setPrefHeight(100);
+            VBox.setVgrow(notesListView, Priority.ALWAYS);
+
+            addNoteButton.setMaxWidth(Double.MAX_VALUE);
+            addNoteButton.setOnAction(e -> handleNewNote(column));
+
+            // Assemble the column
+            this.setSpacing(10);
+            this.getChildren().addAll(columnHeader, notesListView, addNoteButton);
             this.setPadding(new Insets(10));
-            this.getChildren().addAll(title, detailsBox, tagsPane);
+            this.setPrefWidth(250);
 
-            // 3. Apply styles and event handlers
-            setCardStyleClass(this, note);
-            setupCardContextMenu(this, note);
-            setupCardClickHandling(this, note);
-            setupCardDragAndDrop(this, note);
+            // --- Drag and Drop Event Handlers for the Column ---
+            this.setOnDragOver(event -> {
+                if (event.getGestureSource() != this && event.getDragboard().hasString()) {
+                    event.acceptTransferModes(TransferMode.MOVE);
+                }
+                event.consume();
+            });
+
+            this.setOnDragEntered(event -> {
+                if (event.getGestureSource() != this && event.getDragboard().hasString()) {
+                    getStyleClass().add("column-vbox-drag-over");
+                }
+            });
+
+            this.setOnDragExited(event -> {
+                getStyleClass().remove("column-vbox-drag-over");
+            });
+
+            this.setOnDragDropped(event -> {
+                Dragboard db = event.getDragboard();
+                boolean success = false;
+                if (db.hasString()) {
+                    UUID noteId = UUID.fromString(db.getString());
+                    // Dropping on a column moves the note to that column.
+                    handleReorderNote(noteId, column.getId(), -1); // -1 means add to end
+                    success = true;
+                }
+                event.setDropCompleted(success);
+                event.consume();
+            });
+
+            this.getStyleClass().add("column-vbox");
+        }
+
+        /**
+         * Shows a column in this view.
+         */
+        void setColumn(Column column) {
+            this.column = column;
+            ObservableList<Note> notes = columnNotesMap.getOrDefault(column.getId(), FXCollections.observableArrayList());
+            if (notesListView.getItems() != notes) {
+                notesListView.setItems(notes);
+            }
+            refresh();
+        }
+
+        /**
+         * Updates the header (name and note count) and the "Add Note" button.
+         */
+        void refresh() {
+            int noteCount = notesListView.getItems().size();
+            titleLabel.setText(column.getName() + " (" + noteCount + ")");
+            // Only show the "Add Note" button for non-archived columns
+            boolean archived = column.getName().equalsIgnoreCase("Archived");
+            addNoteButton.setVisible(!archived);
+            addNoteButton.setManaged(!archived);
+        }
+    }
+
+    /**
+     * A cell of the column strip, which shows one column view.
+     */
+    private class ColumnCell extends ListCell<Column> {
+        private final ColumnView columnView = new ColumnView();
+
+        @Override
+        protected void updateItem(Column column, boolean empty) {
+            Column previousColumn = getItem();
+            super.updateItem(column, empty);
+            setText(null);
+            if (previousColumn != null) {
+                columnViewsMap.remove(previousColumn.getId(), columnView);
+            }
+            if (empty || column == null) {
+                setGraphic(null);
+                return;
+            }
+            columnView.setColumn(column);
+            columnViewsMap.put(column.getId(), columnView);
+            setGraphic(columnView);
+
+            Integer position = pendingColumnAnimations.remove(column.getId());
+            if (position != null) {
+                animateColumnIn(columnView, position);
+                // Only the columns shown by this layout pass are animated, not the ones scrolled into view later.
+                Platform.runLater(pendingColumnAnimations::clear);
+            }
+        }
+
+        @Override
+        protected void layoutChildren() {
+            super.layoutChildren();
+            // Stretch the column to the full height of the board (a cell only gives its graphic its preferred size).
+            if (getGraphic() != null) {
+                getGraphic().resizeRelocate(snappedLeftInset(), snappedTopInset(),
+                        getWidth() - snappedLeftInset() - snappedRightInset(),
+                        getHeight() - snappedTopInset() - snappedBottomInset());
+            }
         }
-        public Note getNote() { return note; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,291 @@
+package com.tarek.notetool;
+
+import com.vladsch.flexmark.ast.AutoLink;
+import com.vladsch.flexmark.ast.BlockQuote;
+import com.vladsch.flexmark.ast.Code;
+import com.vladsch.flexmark.ast.Emphasis;
+import com.vladsch.flexmark.ast.FencedCodeBlock;
+import com.vladsch.flexmark.ast.HardLineBreak;
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ast.IndentedCodeBlock;
+import com.vladsch.flexmark.ast.Link;
+import com.vladsch.flexmark.ast.ListBlock;
+import com.vladsch.flexmark.ast.ListItem;
+import com.vladsch.flexmark.ast.MailLink;
+import com.vladsch.flexmark.ast.OrderedList;
+import com.vladsch.flexmark.ast.Paragraph;
+import com.vladsch.flexmark.ast.SoftLineBreak;
+import com.vladsch.flexmark.ast.StrongEmphasis;
+import com.vladsch.flexmark.ast.ThematicBreak;
+import com.vladsch.flexmark.ext.gfm.strikethrough.Strikethrough;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListItem;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.TextCollectingVisitor;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.Hyperlink;
+import javafx.scene.control.Label;
+import javafx.scene.control.Separator;
+import javafx.scene.control.Tooltip;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import java.awt.Desktop;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Shows markdown as plain JavaFX nodes (text flows, labels, image views) instead of HTML in a web view.
+ * <p>
+ * A web view starts a whole web engine, which is far too heavy for a few lines of formatted text in a list cell or a
+ * popup. This renderer covers what short texts use: headings, emphasis, strikethrough, lists and task lists, code,
+ * quotes, links and images. The note editor's preview still uses a web view (see {@link MarkdownRenderer}).
+ * Text is colored with the theme's colors, so it follows light and dark mode.
+ */
+final class MarkdownNodeRenderer {
+
+    private static final int IMAGE_SIZE = 240;
+    private static final String GALLERY_PREFIX = "gallery://";
+
+    /**
+     * How a run of text is formatted, from the inline elements it's in.
+     */
+    private record TextStyle(boolean bold, boolean italic, boolean strikethrough, boolean code, double fontScale) {
+        static final TextStyle PLAIN = new TextStyle(false, false, false, false, 1);
+
+        TextStyle withBold() {
+            return new TextStyle(true, italic, strikethrough, code, fontScale);
+        }
+
+        TextStyle withItalic() {
+            return new TextStyle(bold, true, strikethrough, code, fontScale);
+        }
+
+        TextStyle withStrikethrough() {
+            return new TextStyle(bold, italic, true, code, fontScale);
+        }
+
+        TextStyle withCode() {
+            return new TextStyle(bold, italic, strikethrough, true, fontScale);
+        }
+
+        static TextStyle heading(int level) {
+            double scale = switch (level) {
+                case 1 -> 1.6;
+                case 2 -> 1.4;
+                case 3 -> 1.2;
+                default -> 1.05;
+            };
+            return new TextStyle(true, false, false, false, scale);
+        }
+
+        String css() {
+            StringBuilder css = new StringBuilder("-fx-fill: -color-fg-default;");
+            if (bold) {
+                css.append(" -fx-font-weight: bold;");
+            }
+            if (italic) {
+                css.append(" -fx-font-style: italic;");
+            }
+            if (strikethrough) {
+                css.append(" -fx-strikethrough: true;");
+            }
+            if (code) {
+                css.append(" -fx-font-family: monospace;");
+            }
+            if (fontScale != 1) {
+                css.append(String.format(Locale.US, " -fx-font-size: %.1fpx;", Font.getDefault().getSize() * fontScale));
+            }
+            return css.toString();
+        }
+    }
+
+    private MarkdownNodeRenderer() {
+    }
+
+    /**
+     * Renders markdown to nodes.
+     * @param markdown The markdown text.
+     * @return A box with one node per top-level block; give it a width for the text to wrap.
+     */
+    static VBox render(String markdown) {
+        return render(MarkdownRenderer.parse(markdown));
+    }
+
+    /**
+     * Renders parsed markdown to nodes.
+     * @param document The document, as parsed by {@link MarkdownRenderer#parse}.
+     * @return A box with one node per top-level block; give it a width for the text to wrap.
+     */
+    static VBox render(Document document) {
+        VBox box = new VBox(6);
+        addBlocks(document, box);
+        return box;
+    }
+
+    private static void addBlocks(com.vladsch.flexmark.util.ast.Node parent, VBox box) {
+        for (com.vladsch.flexmark.util.ast.Node block : parent.getChildren()) {
+            box.getChildren().add(renderBlock(block));
+        }
+    }
+
+    private static Node renderBlock(com.vladsch.flexmark.util.ast.Node block) {
+        if (block instanceof Heading heading) {
+            return textFlow(heading, TextStyle.heading(heading.getLevel()));
+        } else if (block instanceof Paragraph) {
+            return textFlow(block, TextStyle.PLAIN);
+        } else if (block instanceof ListBlock list) {
+            return renderList(list);
+        } else if (block instanceof FencedCodeBlock codeBlock) {
+            return codeBlock(codeBlock.getContentChars().toString());
+        } else if (block instanceof IndentedCodeBlock codeBlock) {
+            return codeBlock(codeBlock.getContentChars().toString());
+        } else if (block instanceof BlockQuote) {
+            VBox quote = new VBox(4);
+            quote.setStyle("-fx-border-color: -color-border-default; -fx-border-width: 0 0 0 3; -fx-padding: 0 0 0 8;");
+            addBlocks(block, quote);
+            return quote;
+        } else if (block instanceof ThematicBreak) {
+            return new Separator();
+        }
+        // Anything else (e.g. an HTML block) is shown as its source text
+        return new TextFlow(text(block.getChars().toString().strip(), TextStyle.PLAIN));
+    }
+
+    private static Node renderList(ListBlock list) {
+        VBox items = new VBox(2);
+        items.setPadding(new Insets(0, 0, 0, 8));
+        int number = list instanceof OrderedList ordered ? ordered.getStartNumber() : 0;
+        for (com.vladsch.flexmark.util.ast.Node child : list.getChildren()) {
+            if (!(child instanceof ListItem item)) {
+                continue;
+            }
+            String marker;
+            if (item instanceof TaskListItem task) {
+                marker = task.isItemDoneMarker() ? "☑" : "☐";
+            } else if (list instanceof OrderedList ordered) {
+                marker = number + String.valueOf(ordered.getDelimiter());
+            } else {
+                marker = "•";
+            }
+            number++;
+
+            Label markerLabel = new Label(marker);
+            markerLabel.setMinWidth(Region.USE_PREF_SIZE);
+            VBox content = new VBox(2);
+            addBlocks(item, content);
+            HBox.setHgrow(content, Priority.ALWAYS);
+            items.getChildren().add(new HBox(6, markerLabel, content));
+        }
+        return items;
+    }
+
+    private static Node codeBlock(String code) {
+        Label label = new Label(code.stripTrailing());
+        label.setWrapText(true);
+        label.setMaxWidth(Double.MAX_VALUE);
+        label.setStyle("-fx-font-family: monospace; -fx-background-color: -color-bg-subtle; -fx-background-radius: 4; -fx-padding: 6;");
+        return label;
+    }
+
+    private static TextFlow textFlow(com.vladsch.flexmark.util.ast.Node parent, TextStyle style) {
+        TextFlow flow = new TextFlow();
+        addInlines(parent, style, flow.getChildren());
+        return flow;
+    }
+
+    private static void addInlines(com.vladsch.flexmark.util.ast.Node parent, TextStyle style, List<Node> nodes) {
+        for (com.vladsch.flexmark.util.ast.Node inline : parent.getChildren()) {
+            if (inline instanceof com.vladsch.flexmark.ast.Text) {
+                nodes.add(text(inline.getChars().toString(), style));
+            } else if (inline instanceof StrongEmphasis) {
+                addInlines(inline, style.withBold(), nodes);
+            } else if (inline instanceof Emphasis) {
+                addInlines(inline, style.withItalic(), nodes);
+            } else if (inline instanceof Strikethrough) {
+                addInlines(inline, style.withStrikethrough(), nodes);
+            } else if (inline instanceof Code code) {
+                nodes.add(text(code.getText().toString(), style.withCode()));
+            } else if (inline instanceof SoftLineBreak) {
+                nodes.add(text(" ", style));
+            } else if (inline instanceof HardLineBreak) {
+                nodes.add(text("\n", style));
+            } else if (inline instanceof com.vladsch.flexmark.ast.Image image) {
+                nodes.add(image(image.getUrl().toString(), image.getText().toString()));
+            } else if (inline instanceof Link link) {
+                nodes.add(link(new TextCollectingVisitor().collectAndGetText(link), link.getUrl().toString()));
+            } else if (inline instanceof AutoLink autoLink) {
+                nodes.add(link(autoLink.getText().toString(), autoLink.getText().toString()));
+            } else if (inline instanceof MailLink mailLink) {
+                nodes.add(link(mailLink.getText().toString(), "mailto:" + mailLink.getText()));
+            } else if (inline.hasChildren()) {
+                addInlines(inline, style, nodes);
+            } else {
+                nodes.add(text(inline.getChars().toString(), style));
+            }
+        }
+    }
+
+    private static Text text(String content, TextStyle style) {
+        Text text = new Text(content);
+        text.setStyle(style.css());
+        return text;
+    }
+
+    private static Node link(String label, String url) {
+        Hyperlink link = new Hyperlink(label.isEmpty() ? url : label);
+        link.setPadding(Insets.EMPTY);
+        Tooltip.install(link, new Tooltip(url));
+        link.setOnAction(e -> openLink(url));
+        return link;
+    }
+
+    private static void openLink(String url) {
+        try {
+            Desktop.getDesktop().browse(new URI(url));
+        } catch (IOException | URISyntaxException | UnsupportedOperationException e) {
+            System.err.println("Failed to open link " + url + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Shows an image scaled down to fit {@link #IMAGE_SIZE}, loaded in the background. Gallery images use their
+     * cached thumbnails.
+     */
+    private static Node image(String url, String description) {
+        ImageView view = new ImageView();
+        if (url.startsWith(GALLERY_PREFIX)) {
+            Path path = MainApp.getGalleryDirectory().resolve(url.substring(GALLERY_PREFIX.length()));
+            Image cached = ThumbnailCache.getCached(path, IMAGE_SIZE);
+            if (cached != null) {
+                view.setImage(cached);
+            } else {
+                view.setImage(ThumbnailCache.placeholder(IMAGE_SIZE));
+                ThumbnailCache.load(path, IMAGE_SIZE).thenAccept(image -> Platform.runLater(() -> view.setImage(image)));
+            }
+        } else {
+            try {
+                view.setImage(new Image(url, IMAGE_SIZE, IMAGE_SIZE, true, true, true));
+            } catch (IllegalArgumentException e) {
+                // Not a URL an image can be loaded from; show the description instead
+                return text(description.isEmpty() ? url : description, TextStyle.PLAIN.withItalic());
+            }
+        }
+        if (!description.isEmpty()) {
+            Tooltip.install(view, new Tooltip(description));
+        }
+        return view;
+    }
+}
@@ -0,0 +1,315 @@
+package com.tarek.notetool;
+
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the markdown of a note to HTML for the editor's preview, off the JavaFX thread.
+ * <p>
+ * The HTML comes as one string per top-level block (paragraph, heading, list, code block...), so the preview can
+ * replace just the blocks that changed.
+ * <p>
+ * Large notes aren't parsed as a whole: the text is first cut into chunks at blank lines where a new block is sure to
+ * start (not inside a fenced code block or an HTML block, and not before something that may continue a list), and
+ * each chunk is parsed and rendered on its own. Each editor has its own renderer, which keeps the chunks of the last
+ * text it rendered. The next render compares the new text with that one. Only the part between the unchanged start
+ * and end is split into chunks again, starting from the chunk boundary before the edit, and the splitting stops at
+ * the first boundary after the edit that was a boundary before too. Only those chunks are parsed again, and the
+ * others are reused as they are. So apart from comparing the texts, a render takes time in proportion to the size
+ * of the edit rather than of the note.
+ */
+final class MarkdownRenderer {
+
+    private static final Pattern GALLERY_IMAGE = Pattern.compile("src=\"gallery://([^\"]+)\"");
+    // A link reference definition ("[name]: url") applies to the whole document, so such notes are parsed as a whole.
+    private static final Pattern LINK_REFERENCE = Pattern.compile("^ {0,3}\\[[^\\]]+]:", Pattern.MULTILINE);
+    private static final Pattern LIST_ITEM = Pattern.compile("^(?:[-+*]|\\d{1,9}[.)])(?:[ \t].*)?$");
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})");
+    // HTML blocks that may contain blank lines, and the text that ends them
+    private static final Pattern HTML_BLOCK = Pattern.compile("^ {0,3}<(!--|script|pre|style|textarea)", Pattern.CASE_INSENSITIVE);
+    // One thread, so renders run in the order they were asked for; the parser and renderer are thread-safe.
+    private static final ExecutorService RENDERER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "markdown-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Parser PARSER;
+    private static final HtmlRenderer HTML_RENDERER;
+
+    static {
+        MutableDataSet options = new MutableDataSet();
+        // Enable GitHub Flavored Markdown extensions for task lists and strikethrough
+        options.set(Parser.EXTENSIONS, Arrays.asList(
+                TaskListExtension.create(),
+                StrikethroughExtension.create()
+        ));
+        PARSER = Parser.builder(options).build();
+        HTML_RENDERER = HtmlRenderer.builder(options).build();
+    }
+
+    /**
+     * A chunk of the last rendered text: its length and its blocks.
+     */
+    private record Chunk(int length, List<String> blocks) {
+    }
+
+    // The last render, which the next one starts from. Only used on the renderer thread.
+    private String text = "";
+    private List<Chunk> chunks = List.of();
+    private List<String> blocks = List.of();
+    private boolean wholeDocument = false; // The text has link references, so it was parsed as a whole
+
+    /**
+     * Parses markdown with the same extensions as the preview, e.g. for {@link MarkdownNodeRenderer}.
+     */
+    static Document parse(String markdown) {
+        return PARSER.parse(markdown != null ? markdown : "");
+    }
+
+    /**
+     * Renders markdown in the background, reusing what the last render of this renderer has in common with it.
+     * Renders run in the order they're asked for.
+     * @param markdown The markdown text.
+     * @return A future completed on a background thread with the HTML of each top-level block, in order.
+     */
+    CompletableFuture<List<String>> renderBlocks(String markdown) {
+        String newText = markdown != null ? markdown : "";
+        return CompletableFuture.supplyAsync(() -> update(newText), RENDERER);
+    }
+
+    private List<String> update(String newText) {
+        int prefix = 0;
+        int maxPrefix = Math.min(text.length(), newText.length());
+        while (prefix < maxPrefix && text.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == text.length() && prefix == newText.length()) {
+            return blocks;
+        }
+        int suffix = 0;
+        while (suffix < maxPrefix - prefix
+                && text.charAt(text.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) {
+            suffix++;
+        }
+
+        List<Chunk> newChunks;
+        if (wholeDocument || chunks.isEmpty()) {
+            wholeDocument = LINK_REFERENCE.matcher(newText).find();
+            newChunks = wholeDocument
+                    ? List.of(renderChunk(newText, 0, newText.length()))
+                    : renderChunks(newText, 0, chunkStarts(newText, 0, start -> false), newText.length());
+        } else {
+            newChunks = updateChunks(newText, prefix, suffix);
+        }
+        List<String> newBlocks = new ArrayList<>();
+        for (Chunk chunk : newChunks) {
+            newBlocks.addAll(chunk.blocks());
+        }
+        text = newText;
+        chunks = newChunks;
+        blocks = Collections.unmodifiableList(newBlocks);
+        return blocks;
+    }
+
+    /**
+     * Splits and renders only the chunks around an edit.
+     * @param prefix How many characters at the start of the text didn't change.
+     * @param suffix How many characters at the end of the text didn't change.
+     */
+    private List<Chunk> updateChunks(String newText, int prefix, int suffix) {
+        int[] oldStarts = new int[chunks.size()];
+        for (int i = 1; i < oldStarts.length; i++) {
+            oldStarts[i] = oldStarts[i - 1] + chunks.get(i - 1).length();
+        }
+        // Restart from the chunk before the one the edit starts in: the edit may remove the boundary of its own chunk.
+        int editChunk = Arrays.binarySearch(oldStarts, Math.max(prefix - 1, 0));
+        if (editChunk < 0) {
+            editChunk = -editChunk - 2;
+        }
+        int first = Math.max(editChunk - 1, 0);
+        int restart = oldStarts[first];
+
+        // Stop at a boundary after the edit that was a boundary before; the rest of the chunks are the same as before.
+        int newEditEnd = newText.length() - suffix;
+        int shift = newText.length() - text.length();
+        IntPredicate oldBoundary = start -> start >= newEditEnd && Arrays.binarySearch(oldStarts, start - shift) >= 0;
+        List<Integer> starts = chunkStarts(newText, restart, oldBoundary);
+        boolean stopped = !starts.isEmpty() && oldBoundary.test(starts.get(starts.size() - 1));
+        int end = stopped ? starts.remove(starts.size() - 1) : newText.length();
+
+        Matcher reference = LINK_REFERENCE.matcher(newText).region(restart, end);
+        if (reference.find()) {
+            wholeDocument = true;
+            return List.of(renderChunk(newText, 0, newText.length()));
+        }
+
+        List<Chunk> newChunks = new ArrayList<>(chunks.subList(0, first));
+        int oldIndex = first;
+        int chunkStart = restart;
+        starts.add(end);
+        for (int chunkEnd : starts) {
+            // Chunks that end before the edit are unchanged if they are still cut at the same places
+            while (oldIndex < oldStarts.length && oldStarts[oldIndex] < chunkStart) {
+                oldIndex++;
+            }
+            if (chunkEnd <= prefix && oldIndex < oldStarts.length && oldStarts[oldIndex] == chunkStart
+                    && chunks.get(oldIndex).length() == chunkEnd - chunkStart) {
+                newChunks.add(chunks.get(oldIndex));
+            } else {
+                newChunks.add(renderChunk(newText, chunkStart, chunkEnd));
+            }
+            chunkStart = chunkEnd;
+        }
+        if (stopped) {
+            newChunks.addAll(chunks.subList(Arrays.binarySearch(oldStarts, end - shift), chunks.size()));
+        }
+        return newChunks;
+    }
+
+    private static List<Chunk> renderChunks(String markdown, int from, List<Integer> starts, int to) {
+        List<Chunk> chunks = new ArrayList<>(starts.size() + 1);
+        int chunkStart = from;
+        for (int chunkEnd : starts) {
+            chunks.add(renderChunk(markdown, chunkStart, chunkEnd));
+            chunkStart = chunkEnd;
+        }
+        chunks.add(renderChunk(markdown, chunkStart, to));
+        return chunks;
+    }
+
+    private static Chunk renderChunk(String markdown, int start, int end) {
+        return new Chunk(end - start, render(markdown.substring(start, end)));
+    }
+
+    private static List<String> render(String markdown) {
+        // Gallery images are written as gallery://<file name>; point them to the file in the gallery directory.
+        String galleryUri = Matcher.quoteReplacement("src=\"" + MainApp.getGalleryDirectory().toUri());
+        List<String> blocks = new ArrayList<>();
+        for (Node block : PARSER.parse(markdown).getChildren()) {
+            String html = HTML_RENDERER.render(block);
+            if (html.contains("gallery://")) {
+                html = GALLERY_IMAGE.matcher(html).replaceAll(galleryUri + "$1\"");
+            }
+            blocks.add(html);
+        }
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * Cuts markdown into chunks that parse to the same blocks on their own as they do within the whole text.
+     * <p>
+     * A chunk ends at a blank line followed by an unindented line that doesn't start a list item. Blank lines inside
+     * fenced code and inside HTML blocks that may contain them (comments, {@code <pre>}...) don't end a chunk. When in
+     * doubt the text is left in one chunk, which is always correct, just slower to update.
+     */
+    static List<String> splitChunks(String markdown) {
+        if (LINK_REFERENCE.matcher(markdown).find()) {
+            return List.of(markdown);
+        }
+        List<String> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        for (int chunkEnd : chunkStarts(markdown, 0, start -> false)) {
+            chunks.add(markdown.substring(chunkStart, chunkEnd));
+            chunkStart = chunkEnd;
+        }
+        chunks.add(markdown.substring(chunkStart));
+        return chunks;
+    }
+
+    /**
+     * Finds where the chunks of markdown start (see {@link #splitChunks}). Nothing before a chunk start changes how
+     * the text after it is cut, so the search can start at any chunk start.
+     * @param from Where to start: 0 or the start of a chunk.
+     * @param stop Tells whether to stop at a chunk start; it's included in the result.
+     * @return The chunk starts after {@code from}, in order.
+     */
+    private static List<Integer> chunkStarts(String markdown, int from, IntPredicate stop) {
+        List<Integer> starts = new ArrayList<>();
+        boolean afterBlankLine = false;
+        String fence = null; // The fence of the code block we're in
+        String htmlEnd = null; // What ends the HTML block we're in
+        int lineStart = from;
+        while (lineStart < markdown.length()) {
+            int lineEnd = markdown.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = markdown.length();
+            }
+            String line = markdown.substring(lineStart, lineEnd);
+
+            if (fence != null) {
+                if (closesFence(line, fence)) {
+                    fence = null;
+                }
+            } else if (htmlEnd != null) {
+                if (line.toLowerCase().contains(htmlEnd)) {
+                    htmlEnd = null;
+                }
+            } else if (line.isBlank()) {
+                afterBlankLine = true;
+            } else {
+                if (afterBlankLine && startsChunk(line)) {
+                    starts.add(lineStart);
+                    if (stop.test(lineStart)) {
+                        return starts;
+                    }
+                }
+                afterBlankLine = false;
+
+                Matcher fenceMatcher = FENCE.matcher(line);
+                Matcher htmlMatcher = HTML_BLOCK.matcher(line);
+                if (fenceMatcher.find() && !(line.charAt(fenceMatcher.end() - 1) == '`'
+                        && line.indexOf('`', fenceMatcher.end()) >= 0)) { // "```a```" is inline code, not a fence
+                    fence = fenceMatcher.group(1);
+                } else if (htmlMatcher.find()) {
+                    String tag = htmlMatcher.group(1).toLowerCase();
+                    String end = tag.equals("!--") ? "-->" : "</" + tag + ">";
+                    // The block may end on the line it starts on
+                    if (!line.substring(htmlMatcher.end()).toLowerCase().contains(end)) {
+                        htmlEnd = end;
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return starts;
+    }
+
+    private static boolean startsChunk(String line) {
+        char first = line.charAt(0);
+        // An indented line may continue a list item or an indented code block
+        return first != ' ' && first != '\t' && !LIST_ITEM.matcher(line).matches();
+    }
+
+    /**
+     * A code fence is closed by a line of at least as many of the same characters, indented by up to three spaces.
+     */
+    private static boolean closesFence(String line, String fence) {
+        String stripped = line.strip();
+        if (line.length() - line.stripLeading().length() > 3 || stripped.length() < fence.length()) {
+            return false;
+        }
+        char fenceChar = fence.charAt(0);
+        for (int i = 0; i < stripped.length(); i++) {
+            if (stripped.charAt(i) != fenceChar) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,8 +1,11 @@
 package com.tarek.notetool;
 
 import com.google.gson.annotations.Expose;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -10,7 +13,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class Note {
 
@@ -63,19 +65,21 @@ public class Note {
         URGENT
     }
 
-    public static class Goal {
-        private String description;
-        private boolean completed;
-        private List<Goal> subGoals;
-        private UUID linkedNoteId;
-        private String linkedNoteTitle;
+    /**
+     * A goal with its sub-goals. Goals are immutable: the {@code with...} methods return a changed goal that shares
+     * everything else with the original, including the sub-goal trees that didn't change. A note and its copies can
+     * therefore share their goal trees, and an edit only copies the goals on the path to the changed one.
+     */
+    public static final class Goal {
+        private final String description;
+        private final boolean completed;
+        private final List<Goal> subGoals;
+        private final UUID linkedNoteId;
+        private final String linkedNoteTitle;
+        private final boolean containsLink;
 
         public Goal(String description) {
-            this.description = description;
-            this.completed = false;
-            this.subGoals = new ArrayList<>();
-            this.linkedNoteId = null;
-            this.linkedNoteTitle = null;
+            this(List.of(), description, false, null, null);
         }
 
         /**
@@ -85,25 +89,25 @@ public class Note {
          * @param linkedNoteTitle The title of the linked note, stored for display.
          */
         public Goal(String description, UUID linkedNoteId, String linkedNoteTitle) {
+            this(List.of(), description, false, linkedNoteId, linkedNoteTitle);
+        }
+
+        /**
+         * Constructor with all of a goal's fields, e.g. for reading saved boards.
+         * @param subGoals The sub-goals, which are copied; null for none.
+         */
+        public Goal(String description, boolean completed, List<Goal> subGoals, UUID linkedNoteId, String linkedNoteTitle) {
+            this(frozenList(subGoals), description, completed, linkedNoteId, linkedNoteTitle);
+        }
+
+        // Shares the given (unmodifiable) list of sub-goals.
+        private Goal(List<Goal> subGoals, String description, boolean completed, UUID linkedNoteId, String linkedNoteTitle) {
             this.description = description;
-            this.completed = false;
-            this.subGoals = new ArrayList<>();
+            this.completed = completed;
+            this.subGoals = subGoals;
             this.linkedNoteId = linkedNoteId;
             this.linkedNoteTitle = linkedNoteTitle;
-        }
-
-        public Goal(Goal original) {
-            this.description = original.description;
-            this.completed = original.completed;
-            this.linkedNoteId = original.linkedNoteId;
-            this.linkedNoteTitle = original.linkedNoteTitle;
-            // Deep copy of sub-goals
-            this.subGoals = new ArrayList<>();
-            if (original.subGoals != null) {
-                for (Goal subGoal : original.subGoals) {
-                    this.subGoals.add(new Goal(subGoal)); // Recursive copy
-                }
-            }
+            this.containsLink = linkedNoteId != null || subGoals.stream().anyMatch(Goal::containsLink);
         }
 
         public String getDescription() {
@@ -114,44 +118,44 @@ public class Note {
             return completed;
         }
 
-        public void setCompleted(boolean completed) {
-            this.completed = completed;
-        }
-
-        public void setDescription(String description) {
-            this.description = description;
-        }
-
-        public List<Goal> getSubGoals() {
-            return Collections.unmodifiableList(subGoals);
-        }
-
-        public void setSubGoals(List<Goal> subGoals) {
-            if (subGoals == null) {
-                this.subGoals = new ArrayList<>();
-            } else {
-                // Create a defensive copy to prevent external modifications to the list
-                this.subGoals = new ArrayList<>(subGoals);
+        /**
+         * @return This goal with the given completion status; its sub-goals are not changed.
+         */
+        public Goal withCompleted(boolean completed) {
+            if (completed == this.completed) {
+                return this;
             }
+            return new Goal(subGoals, description, completed, linkedNoteId, linkedNoteTitle);
         }
 
-        public void addSubGoal(Goal subGoal) {
-            this.subGoals.add(subGoal);
-        }
-
-        public void removeSubGoal(Goal subGoal) {
-            this.subGoals.remove(subGoal);
+        /**
+         * @return This goal with the given description.
+         */
+        public Goal withDescription(String description) {
+            if (Objects.equals(description, this.description)) {
+                return this;
+            }
+            return new Goal(subGoals, description, completed, linkedNoteId, linkedNoteTitle);
         }
 
         /**
-         * Removes all completed sub-goals from this goal's internal list.
-         * @return true if the list was modified, false otherwise.
+         * @return This goal with the given sub-goals, or this goal itself if they are the same goals in the same order.
          */
-        public boolean removeCompletedSubGoals() {
-            if (this.subGoals == null) {
-                return false;
+        public Goal withSubGoals(List<Goal> subGoals) {
+            if (subGoals.size() == this.subGoals.size()) {
+                boolean same = true;
+                for (int i = 0; i < subGoals.size() && same; i++) {
+                    same = subGoals.get(i) == this.subGoals.get(i);
+                }
+                if (same) {
+                    return this;
+                }
             }
-            return this.subGoals.removeIf(Goal::isCompleted);
+            return new Goal(frozenList(subGoals), description, completed, linkedNoteId, linkedNoteTitle);
+        }
+
+        public List<Goal> getSubGoals() {
+            return subGoals;
         }
 
         public Optional<UUID> getLinkedNoteId() {
@@ -165,6 +169,13 @@ public class Note {
         public boolean isLink() {
             return this.linkedNoteId != null;
         }
+
+        /**
+         * @return true if this goal or any of its sub-goals links to another note.
+         */
+        public boolean containsLink() {
+            return containsLink;
+        }
     }
 
     public static class Comment {
@@ -178,11 +189,26 @@ public class Note {
             this.timestamp = LocalDateTime.now();
         }
 
+        /**
+         * Restores a comment with its original timestamp, used when reading saved boards.
+         */
+        Comment(String text, User author, LocalDateTime timestamp) {
+            this.text = text;
+            this.author = author;
+            this.timestamp = timestamp;
+        }
+
         public String getText() { return text; }
         public User getAuthor() { return author; }
         public LocalDateTime getTimestamp() { return timestamp; }
     }
 
+    /**
+     * The heavy fields of a note, which binary boards store apart from the card data (see {@link NoteBodyStore}).
+     */
+    record Body(String content, List<Comment> comments, List<Goal> goals, List<String> attachmentPaths) {
+    }
+
     private final UUID id;
     private String title;
     private String content;
@@ -191,6 +217,7 @@ public class Note {
     private final LocalDateTime creationDate;
     private LocalDateTime lastModifiedDate;
     private LocalDateTime dueDate;
+    // The collections are unmodifiable and replaced as a whole on every change, so copies of the note share them.
     private List<User> assignees;
     private List<Comment> comments;
     private List<Goal> goals; // A list of sub-tasks or goals
@@ -198,6 +225,14 @@ public class Note {
     private List<String> attachmentPaths; // Stores relative paths to attached files
     private List<Dependency> dependencies; // Stores relationships to other notes
     private List<String> referenceImagePaths; // Stores paths to linked gallery images
+    private transient Runnable changeListener; // Notified after every edit; set by the owning board
+
+    // For notes read from a binary board, the body (content, comments, goals and attachment paths) stays on disk
+    // until it's first used, and can be dropped again as long as it's unchanged from the saved copy.
+    private transient boolean bodyLoaded = true;
+    private transient NoteBodyStore.Ref bodyRef; // Where the current body is saved, or null if it changed since
+    private transient long bodyModCount; // Incremented on every change to the body
+    private transient boolean bodyHasLinkedGoals; // Kept for the card while the body isn't loaded
 
     /**
      * Constructor for a new Note.
@@ -211,46 +246,73 @@ public class Note {
         this.priority = Priority.MEDIUM; // Default priority
         this.creationDate = LocalDateTime.now();
         this.lastModifiedDate = LocalDateTime.now();
-        this.assignees = new ArrayList<>();
-        this.comments = new ArrayList<>();
-        this.goals = new ArrayList<>();
-        this.tags = new HashSet<>();
-        this.attachmentPaths = new ArrayList<>();
-        this.dependencies = new ArrayList<>();
-        this.referenceImagePaths = new ArrayList<>();
+        this.assignees = List.of();
+        this.comments = List.of();
+        this.goals = List.of();
+        this.tags = Set.of();
+        this.attachmentPaths = List.of();
+        this.dependencies = List.of();
+        this.referenceImagePaths = List.of();
+    }
+
+    /**
+     * Restores a note with all of its saved fields, used by the JSON adapters when reading saved boards.
+     * The collections are used as they are, without copying, and must not be changed afterwards.
+     */
+    Note(UUID id, String title, String content, UUID columnId, Priority priority,
+         LocalDateTime creationDate, LocalDateTime lastModifiedDate, LocalDateTime dueDate,
+         List<User> assignees, List<Comment> comments, List<Goal> goals, Set<String> tags,
+         List<String> attachmentPaths, List<Dependency> dependencies, List<String> referenceImagePaths) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.columnId = columnId;
+        this.priority = priority;
+        this.creationDate = creationDate;
+        this.lastModifiedDate = lastModifiedDate;
+        this.dueDate = dueDate;
+        this.assignees = assignees != null ? Collections.unmodifiableList(assignees) : List.of();
+        this.comments = comments != null ? Collections.unmodifiableList(comments) : List.of();
+        this.goals = goals != null ? Collections.unmodifiableList(goals) : List.of();
+        this.tags = tags != null ? Collections.unmodifiableSet(tags) : Set.of();
+        this.attachmentPaths = attachmentPaths != null ? Collections.unmodifiableList(attachmentPaths) : List.of();
+        this.dependencies = dependencies != null ? Collections.unmodifiableList(dependencies) : List.of();
+        this.referenceImagePaths = referenceImagePaths != null ? Collections.unmodifiableList(referenceImagePaths) : List.of();
     }
 
     /**
-     * A deep copy constructor that creates an identical, but separate, instance of a note.
+     * A copy constructor that creates an identical, but separate, instance of a note.
      * This is crucial for the "edit" functionality, where we need to work on a temporary
-     * copy (`noteCopy`) and only commit the changes back to the original object upon saving.
-     * This constructor performs a deep copy of the `goals` list to ensure that changes
-     * to the copy's goals do not affect the original note's goals until the `updateFrom`
-     * method is explicitly called.
+     * copy (`noteCopy`) and only commit the changes back to the original object upon saving,
+     * and for saving a board in the background.
+     * Since goals and the note's collections are immutable, the copy shares them with the original
+     * instead of copying them, which makes this a constant-time snapshot however large the note is.
      *
      * @param original The note to create a snapshot of.
      */
     public Note(Note original) {
         this.id = original.id;
         this.title = original.title;
-        this.content = original.content;
         this.columnId = original.columnId;
         this.priority = original.priority;
         this.creationDate = original.creationDate;
         this.lastModifiedDate = original.lastModifiedDate;
         this.dueDate = original.dueDate;
-        this.assignees = original.assignees != null ? new ArrayList<>(original.assignees) : new ArrayList<>();
-        this.comments = original.comments != null ? new ArrayList<>(original.comments) : new ArrayList<>();
-        this.goals = new ArrayList<>();
-        if (original.goals != null) {
-            for (Goal originalGoal : original.goals) {
-                this.goals.add(new Goal(originalGoal));
-            }
+        this.assignees = original.assignees;
+        // A body that isn't loaded stays on disk; the copy reads it from there when it's needed.
+        this.bodyLoaded = original.bodyLoaded;
+        this.bodyRef = original.bodyRef;
+        this.bodyModCount = original.bodyModCount;
+        this.bodyHasLinkedGoals = original.bodyHasLinkedGoals;
+        if (original.bodyLoaded) {
+            this.content = original.content;
+            this.comments = original.comments;
+            this.goals = original.goals;
+            this.attachmentPaths = original.attachmentPaths;
         }
-        this.tags = original.tags != null ? new HashSet<>(original.tags) : new HashSet<>();
-        this.attachmentPaths = original.attachmentPaths != null ? new ArrayList<>(original.attachmentPaths) : new ArrayList<>();
-        this.dependencies = original.dependencies != null ? new ArrayList<>(original.dependencies) : new ArrayList<>();
-        this.referenceImagePaths = original.referenceImagePaths != null ? new ArrayList<>(original.referenceImagePaths) : new ArrayList<>();
+        this.tags = original.tags;
+        this.dependencies = original.dependencies;
+        this.referenceImagePaths = original.referenceImagePaths;
     }
 
     /**
@@ -262,6 +324,7 @@ public class Note {
      * @return A new `Note` instance that is a functional duplicate of the original.
      */
     public Note duplicate() {
+        ensureBodyLoaded();
         // Use the main constructor to get a new ID and timestamps
         Note newNote = new Note(this.title, this.content);
 
@@ -269,15 +332,9 @@ public class Note {
         newNote.setColumnId(this.columnId);
         newNote.setPriority(this.priority);
         newNote.setDueDate(this.dueDate);
-        newNote.setAssignees(this.assignees); // setAssignees already creates a new list
-        newNote.setTags(this.tags); // setTags already creates a new set
-
-        // Deep copy goals
-        List<Goal> newGoals = new ArrayList<>();
-        for (Goal g : this.goals) {
-            newGoals.add(new Goal(g));
-        }
-        newNote.setGoals(newGoals);
+        newNote.setAssignees(this.assignees);
+        newNote.setTags(this.tags);
+        newNote.setGoals(this.goals); // Goals are immutable, so the duplicate shares the goal trees
 
         // Copy attachments and dependencies
         newNote.setAttachmentPaths(this.attachmentPaths);
@@ -304,11 +361,14 @@ public class Note {
     }
 
     public String getContent() {
+        ensureBodyLoaded();
         return content;
     }
 
     public void setContent(String content) {
+        ensureBodyLoaded();
         this.content = content;
+        bodyChanged();
         updateLastModified();
     }
 
@@ -352,75 +412,86 @@ public class Note {
     }
 
     public void setAssignees(List<User> assignees) {
-        this.assignees = new ArrayList<>(assignees);
+        this.assignees = frozenList(assignees);
         updateLastModified();
     }
 
     public List<Comment> getComments() {
-        return Collections.unmodifiableList(comments);
+        ensureBodyLoaded();
+        return comments;
     }
 
     public void setComments(List<Comment> comments) {
-        this.comments = new ArrayList<>(comments);
+        ensureBodyLoaded();
+        this.comments = frozenList(comments);
+        bodyChanged();
         updateLastModified();
     }
 
     public List<Goal> getGoals() {
-        return Collections.unmodifiableList(goals);
+        ensureBodyLoaded();
+        return goals;
     }
 
     public void setGoals(List<Goal> goals) {
-        // Create a mutable copy to ensure the internal list cannot be modified externally
-        this.goals = new ArrayList<>(goals);
+        ensureBodyLoaded();
+        // Copy the list (not the goals, which are immutable) so it cannot be modified externally
+        this.goals = frozenList(goals);
+        bodyChanged();
         updateLastModified();
     }
 
+    /**
+     * Checks whether any goal links to another note. Unlike {@link #getGoals()}, this doesn't load the note's body.
+     * @return true if a goal or sub-goal is a link.
+     */
+    public boolean hasLinkedGoals() {
+        if (!bodyLoaded) {
+            return bodyHasLinkedGoals;
+        }
+        return goals.stream().anyMatch(Goal::containsLink);
+    }
+
     public Set<String> getTags() {
-        return Collections.unmodifiableSet(tags);
+        return tags;
     }
 
     public void setTags(Set<String> tags) {
-        // Create a mutable copy to ensure the internal set cannot be modified externally
-        this.tags = new HashSet<>(tags);
+        // Create a copy to ensure the internal set cannot be modified externally
+        this.tags = Collections.unmodifiableSet(new HashSet<>(tags));
         updateLastModified();
     }
 
     public List<String> getAttachmentPaths() {
-        if (attachmentPaths == null) {
-            attachmentPaths = new ArrayList<>();
-        }
-        return Collections.unmodifiableList(attachmentPaths);
+        ensureBodyLoaded();
+        return attachmentPaths;
     }
 
     public void setAttachmentPaths(List<String> attachmentPaths) {
-        // Create a mutable copy to ensure the internal list cannot be modified externally
-        this.attachmentPaths = new ArrayList<>(attachmentPaths);
+        ensureBodyLoaded();
+        // Create a copy to ensure the internal list cannot be modified externally
+        this.attachmentPaths = frozenList(attachmentPaths);
+        bodyChanged();
         updateLastModified();
     }
 
     public List<Dependency> getDependencies() {
-        if (dependencies == null) {
-            dependencies = new ArrayList<>();
-        }
-        return Collections.unmodifiableList(dependencies);
+        return dependencies;
     }
 
     public void setDependencies(List<Dependency> dependencies) {
-        // Create a mutable copy to ensure the internal list cannot be modified externally
-        this.dependencies = new ArrayList<>(dependencies);
+        // Create a copy to ensure the internal list cannot be modified externally
+        this.dependencies = frozenList(dependencies);
         updateLastModified();
     }
 
     public List<String> getReferenceImagePaths() {
-        if (referenceImagePaths == null) {
-            referenceImagePaths = new ArrayList<>();
-        }
-        return Collections.unmodifiableList(referenceImagePaths);
+        return referenceImagePaths;
     }
 
     public void setReferenceImagePaths(List<String> referenceImagePaths) {
-        // Create a mutable copy to ensure the internal list cannot be modified externally
-        this.referenceImagePaths = new ArrayList<>(referenceImagePaths);
+        // Create a copy to ensure the internal list cannot be modified externally
+        this.referenceImagePaths = frozenList(referenceImagePaths);
         updateLastModified();
     }
 
@@ -431,9 +502,8 @@ public class Note {
     /**
      * Updates this note's fields from another note instance.
      * This is used to commit changes from an edited copy back to the original object.
-     * The creation date and ID are immutable and are not changed. This method performs
-     * a deep copy of the goals to ensure the receiving note has a completely independent
-     * goal hierarchy.
+     * The creation date and ID are immutable and are not changed. The goals and collections
+     * are shared with the source, as they are immutable.
      *
      * @param source The note (typically an edited copy) to copy data from.
      * @throws IllegalArgumentException if the source note has a different ID.
@@ -442,28 +512,200 @@ public class Note {
         if (!this.id.equals(source.id)) {
             throw new IllegalArgumentException("Cannot update from a note with a different ID.");
         }
+        source.ensureBodyLoaded();
+        // The body is replaced as a whole; it is only still the saved one if the source carries the same one.
+        boolean sameSavedBody = bodyRef != null && bodyRef.equals(source.bodyRef);
+        this.bodyLoaded = true;
+        if (!sameSavedBody) {
+            bodyChanged();
+        }
         this.title = source.title;
         this.content = source.content;
         this.columnId = source.columnId;
         this.priority = source.priority;
         this.lastModifiedDate = source.lastModifiedDate;
         this.dueDate = source.dueDate;
-        this.assignees = new ArrayList<>(source.assignees);
-        this.comments = new ArrayList<>(source.comments);
-        this.goals = source.goals.stream().map(Goal::new).collect(Collectors.toList());
-        this.tags = new HashSet<>(source.tags);
-        this.attachmentPaths = new ArrayList<>(source.attachmentPaths);
-        this.dependencies = new ArrayList<>(source.dependencies);
-        this.referenceImagePaths = new ArrayList<>(source.referenceImagePaths);
+        this.assignees = source.assignees;
+        this.comments = source.comments;
+        this.goals = source.goals;
+        this.tags = source.tags;
+        this.attachmentPaths = source.attachmentPaths;
+        this.dependencies = source.dependencies;
+        this.referenceImagePaths = source.referenceImagePaths;
+        notifyChanged();
+    }
+
+    // --- Body storage ---
+
+    /**
+     * Makes the note's body lazy: it's read from the given location the first time it's needed.
+     * Used when reading binary boards.
+     * @param bodyRef Where the body is saved.
+     * @param hasLinkedGoals Whether the saved goals contain a link, for {@link #hasLinkedGoals()}.
+     */
+    void deferBody(NoteBodyStore.Ref bodyRef, boolean hasLinkedGoals) {
+        this.content = null;
+        this.comments = null;
+        this.goals = null;
+        this.attachmentPaths = null;
+        this.bodyLoaded = false;
+        this.bodyRef = bodyRef;
+        this.bodyHasLinkedGoals = hasLinkedGoals;
+    }
+
+    /**
+     * @return true if the note's content, comments, goals and attachment paths are in memory.
+     */
+    boolean isBodyLoaded() {
+        return bodyLoaded;
+    }
+
+    /**
+     * Reads the note's body from disk if it isn't loaded yet.
+     * @throws IOException if the body could not be read.
+     */
+    void loadBody() throws IOException {
+        if (bodyLoaded) {
+            return;
+        }
+        Body body = bodyRef.store().read(bodyRef);
+        this.content = body.content();
+        this.comments = frozenList(body.comments());
+        this.goals = frozenList(body.goals());
+        this.attachmentPaths = frozenList(body.attachmentPaths());
+        this.bodyLoaded = true;
+    }
+
+    /**
+     * Loads the note's body and forgets where it was saved, so it's saved again with the note; used for notes
+     * read from a file outside the data directory.
+     * @throws IOException if the body could not be read.
+     */
+    void detachBody() throws IOException {
+        loadBody();
+        bodyChanged();
+    }
+
+    /**
+     * Reads the note's body from disk if it isn't loaded yet, e.g. when it is opened in the editor.
+     * @throws UncheckedIOException if the body could not be read.
+     */
+    void ensureBodyLoaded() {
+        try {
+            loadBody();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load the content of note '" + title + "'", e);
+        }
+    }
+
+    /**
+     * Drops the note's body from memory if an identical copy is saved on disk; it's read again on the next access.
+     * @return true if the body was released.
+     */
+    boolean releaseBody() {
+        if (!bodyLoaded || bodyRef == null) {
+            return false;
+        }
+        bodyHasLinkedGoals = hasLinkedGoals();
+        deferBody(bodyRef, bodyHasLinkedGoals);
+        return true;
+    }
+
+    /**
+     * @return The note's body, loading it if necessary.
+     */
+    Body getBody() {
+        ensureBodyLoaded();
+        return new Body(content, comments, goals, attachmentPaths != null ? attachmentPaths : List.of());
+    }
+
+    NoteBodyStore.Ref getBodyRef() {
+        return bodyRef;
+    }
+
+    /**
+     * Records where the note's current body was saved. Ignored if the body changed after the given
+     * modification count, since the saved copy is then out of date.
+     * @param bodyRef The saved location.
+     * @param savedModCount The value of {@link #getBodyModCount()} for the body that was saved.
+     */
+    void setBodyRef(NoteBodyStore.Ref bodyRef, long savedModCount) {
+        if (savedModCount == bodyModCount) {
+            this.bodyRef = bodyRef;
+        }
+    }
+
+    long getBodyModCount() {
+        return bodyModCount;
+    }
+
+    private void bodyChanged() {
+        bodyRef = null;
+        bodyModCount++;
+    }
+
+    /**
+     * Roughly estimates how much heap the note uses: a fixed cost per object plus two bytes per character.
+     * A body that isn't loaded doesn't count.
+     */
+    long estimateHeapBytes() {
+        long bytes = 600 + 2L * length(title);
+        bytes += 60L * (tags.size() + assignees.size() + getDependencies().size() + getReferenceImagePaths().size());
+        if (bodyLoaded) {
+            bytes += 2L * length(content) + 60L * getAttachmentPaths().size() + estimateGoalBytes(goals);
+            for (Comment comment : comments) {
+                bytes += 150 + 2L * length(comment.getText());
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateGoalBytes(List<Goal> goals) {
+        long bytes = 0;
+        for (Goal goal : goals) {
+            bytes += 120 + 2L * length(goal.getDescription()) + estimateGoalBytes(goal.getSubGoals());
+        }
+        return bytes;
+    }
+
+    /**
+     * Copies a collection into an unmodifiable list, which copies of the note can then share.
+     */
+    private static <T> List<T> frozenList(Collection<? extends T> items) {
+        return items == null || items.isEmpty() ? List.of() : Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
     }
 
     private void updateLastModified() {
         this.lastModifiedDate = LocalDateTime.now();
+        notifyChanged();
+    }
+
+    /**
+     * Sets the callback that is run after every edit to this note.
+     * Copies made with the copy constructor do not inherit it, so editing a copy is never reported.
+     * @param changeListener The callback, or null to remove it.
+     */
+    void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void notifyChanged() {
+        if (changeListener != null) {
+            changeListener.run();
+        }
     }
 
     public void addGoal(String goal) {
         if (goal != null && !goal.trim().isEmpty()) {
-            this.goals.add(new Goal(goal));
+            ensureBodyLoaded();
+            List<Goal> newGoals = new ArrayList<>(this.goals);
+            newGoals.add(new Goal(goal));
+            this.goals = Collections.unmodifiableList(newGoals);
+            bodyChanged();
             updateLastModified();
         }
     }
@@ -471,7 +713,9 @@ public class Note {
     public void addTag(String tag) {
         if (tag != null && !tag.trim().isEmpty()) {
             // Only update if the tag was actually added (it wasn't a duplicate)
-            if (this.tags.add(tag.toLowerCase())) {
+            Set<String> newTags = new HashSet<>(this.tags);
+            if (newTags.add(tag.toLowerCase())) {
+                this.tags = Collections.unmodifiableSet(newTags);
                 updateLastModified();
             }
         }
@@ -481,7 +725,9 @@ public class Note {
         if (tag != null) {
             // Check if removal was successful to decide whether to update the modified date
             // The tag argument is guaranteed to be lowercase from the UI, so no need to convert.
-            if (this.tags.remove(tag)) {
+            Set<String> newTags = new HashSet<>(this.tags);
+            if (newTags.remove(tag)) {
+                this.tags = Collections.unmodifiableSet(newTags);
                 updateLastModified();
             }
         }
@@ -0,0 +1,162 @@
+package com.tarek.notetool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The separate on-disk segment that holds the bodies of a binary board's notes: their content, comments, goals and
+ * attachment paths ('[board-name].[id].body', next to the board file).
+ * <p>
+ * The board file only stores the card data of each note (title, priority, dates, assignees, tags, ...) plus the
+ * location of its body in this file, so a board can be loaded without reading any note bodies. A note reads its
+ * body the first time one of those fields is accessed (see {@link Note#loadBody()}) and can drop it again as long
+ * as it is unchanged.
+ * <p>
+ * The file is append-only: a saved body is never modified or moved, so a {@link Ref} stays valid for as long as the
+ * file exists, even while the board file is being rewritten. Changed bodies are appended when the board is saved;
+ * once most of the file is unused, the next save starts a new file (see {@link NoteManager#writeSnapshot}).
+ * Files that no board refers to any more are deleted the next time the data directory is loaded.
+ */
+final class NoteBodyStore {
+
+    /**
+     * The location of one saved note body.
+     * @param store The file the body is in.
+     * @param offset The position of the body in the file.
+     * @param length The size of the encoded body in bytes.
+     */
+    record Ref(NoteBodyStore store, long offset, int length) {
+    }
+
+    private static final String EXTENSION = ".body";
+    // Appends to a file never overlap, even through different instances (e.g. a save and a journal compaction).
+    private static final Map<Path, ReentrantLock> APPEND_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+
+    NoteBodyStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates a store with a new, unique file name for a board file.
+     * @param boardFile The board file the store belongs to.
+     * @return The new store; its file is created on the first append.
+     */
+    static NoteBodyStore createFor(Path boardFile) {
+        String fileName = boardFile.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        String id = UUID.randomUUID().toString().substring(0, 8);
+        return new NoteBodyStore(boardFile.resolveSibling(baseName + "." + id + EXTENSION));
+    }
+
+    static boolean isBodyFile(Path file) {
+        return file.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Checks whether a body is stored in this store's file (which may be another instance for the same file).
+     */
+    boolean contains(Ref ref) {
+        return ref != null && ref.store().file.equals(file);
+    }
+
+    /**
+     * Reads one saved note body.
+     * @param ref The location of the body.
+     * @return The body.
+     * @throws IOException if the file could not be read or the body is corrupt.
+     */
+    Note.Body read(Ref ref) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(ref.length());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = ref.offset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Note body file " + file + " is truncated.");
+                }
+                position += read;
+            }
+        }
+        return BoardBinaryCodec.readBody(buffer.array());
+    }
+
+    /**
+     * Opens the file for appending bodies. Only one appender per file is open at a time; this waits for
+     * any other one to be closed.
+     * @return The appender, which must be closed (on the same thread) to make the appended bodies durable.
+     * @throws IOException if the file could not be opened.
+     */
+    Appender openAppender() throws IOException {
+        ReentrantLock lock = APPEND_LOCKS.computeIfAbsent(file, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            return new Appender(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE), lock);
+        } catch (IOException | RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends encoded bodies to the end of the file.
+     */
+    final class Appender implements Closeable {
+        private final FileChannel channel;
+        private final ReentrantLock lock;
+        private long position;
+
+        private Appender(FileChannel channel, ReentrantLock lock) throws IOException {
+            this.channel = channel;
+            this.lock = lock;
+            this.position = channel.size();
+        }
+
+        /**
+         * Appends one encoded body.
+         * @param body The body, as encoded by {@link BoardBinaryCodec}.
+         * @return Its location.
+         * @throws IOException if it could not be written.
+         */
+        Ref append(byte[] body) throws IOException {
+            long offset = position;
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            return new Ref(NoteBodyStore.this, offset, body.length);
+        }
+
+        NoteBodyStore store() {
+            return NoteBodyStore.this;
+        }
+
+        /**
+         * Forces the appended bodies to the storage device, so a board file referring to them can safely replace
+         * the old one, and closes the file.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.force(false);
+            } finally {
+                channel.close();
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -52,19 +52,16 @@ import javafx.geometry.Side;
 import javafx.scene.layout.VBox;
 import javafx.scene.image.Image;
 import javafx.scene.web.WebView;
+import javafx.concurrent.Worker;
 import javafx.stage.FileChooser;
 import javafx.util.Pair;
 import javafx.util.Duration;
 import org.kordamp.ikonli.javafx.FontIcon;
+import com.google.gson.Gson;
 import org.kordamp.ikonli.materialdesign2.MaterialDesignL;
 import org.kordamp.ikonli.materialdesign2.MaterialDesignC;
 import org.kordamp.ikonli.materialdesign2.MaterialDesignP;
 import org.kordamp.ikonli.materialdesign2.MaterialDesignD;
-import com.vladsch.flexmark.html.HtmlRenderer;
-import com.vladsch.flexmark.parser.Parser;
-import com.vladsch.flexmark.util.data.MutableDataSet;
-import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
-import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
 
 import java.awt.Desktop;
 import java.io.File;
@@ -74,7 +71,6 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.stream.IntStream;
 import java.util.stream.Collectors;
-import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.UUID;
 import java.util.HashSet;
@@ -166,22 +162,18 @@ public class NoteDetailViewController {
     private List<String> tempReferenceImagePaths;
     
     private ContextMenu noteSuggestionsPopup;
+    private static final int MAX_NOTE_SUGGESTIONS = 15;
+    private static final int REFERENCE_IMAGE_SIZE = 80;
     private ContextMenu imageSuggestionsPopup;
     private UUID noteToOpen = null;
-    private final Parser markdownParser;
-    private final HtmlRenderer markdownRenderer;
     private PauseTransition markdownRenderDebounce;
-
-    public NoteDetailViewController() {
-        MutableDataSet options = new MutableDataSet();
-        // Enable GitHub Flavored Markdown extensions for task lists and strikethrough
-        options.set(Parser.EXTENSIONS, Arrays.asList(
-                TaskListExtension.create(),
-                StrikethroughExtension.create()
-        ));
-        this.markdownParser = Parser.builder(options).build();
-        this.markdownRenderer = HtmlRenderer.builder(options).build();
-    }
+    // The preview page is loaded once; after that, only the blocks that changed are replaced in it.
+    private static final Gson PREVIEW_GSON = new Gson();
+    private boolean previewLoaded = false;
+    private List<String> previewBlocks = List.of(); // The HTML of the blocks the preview shows
+    private List<String> pendingPreviewBlocks; // Rendered before the page finished loading
+    private long previewRenderRequest = 0; // Counts the renders, so a result that is already outdated is dropped
+    private MarkdownRenderer markdownRenderer = new MarkdownRenderer(); // Reuses the chunks of the last render
 
     @FXML
     private void initialize() {
@@ -311,6 +303,7 @@ public class NoteDetailViewController {
         // which would be inefficient. Instead, it waits for a brief pause in typing.
         markdownRenderDebounce = new PauseTransition(Duration.millis(300));
         markdownRenderDebounce.setOnFinished(event -> renderMarkdown());
+        loadPreviewPage();
 
         contentArea.textProperty().addListener((obs, oldVal, newVal) -> {
             // Restart the debounce timer on every text change.
@@ -377,6 +370,7 @@ public class NoteDetailViewController {
     public void setNote(Note note) {
         // Work on a copy to prevent modifying the original object unless "Save" is clicked.
         this.noteCopy = new Note(note);
+        noteCopy.ensureBodyLoaded(); // Boards may only hold the card data; read the content, comments and goals once
         this.initialNoteState = new Note(noteCopy); // Create a snapshot for change detection
 
         headerLabel.setText("Edit: " + noteCopy.getTitle());
@@ -388,6 +382,7 @@ public class NoteDetailViewController {
             dueHourComboBox.setValue(noteCopy.getDueDate().getHour());
             dueMinuteComboBox.setValue(noteCopy.getDueDate().getMinute());
         } else {
+            dueDatePicker.setValue(null);
             dueHourComboBox.setValue(null);
             dueMinuteComboBox.setValue(null);
         }
@@ -434,21 +429,65 @@ public class NoteDetailViewController {
         Platform.runLater(titleField::requestFocus);
     }
 
+    /**
+     * Clears the editor once it's closed, so it can be used for another note (see {@link NoteEditorPool}).
+     */
+    public void reset() {
+        markdownRenderDebounce.stop();
+        noteSuggestionsPopup.hide();
+        imageSuggestionsPopup.hide();
+        saved = false;
+        noteToOpen = null;
+        noteCopy = null;
+        initialNoteState = null;
+        currentUser = null;
+        newGoalField.clear();
+        newCommentField.clear();
+        goalsTreeView.setRoot(null);
+        commentsListView.getItems().clear();
+        assigneeListView.getItems().clear();
+        if (attachmentsListView != null) {
+            attachmentsListView.getItems().clear();
+        }
+        if (dependenciesListView != null) {
+            dependenciesListView.getItems().clear();
+        }
+        if (referenceImagesFlowPane != null) {
+            referenceImagesFlowPane.getChildren().clear();
+        }
+        // Empty the preview, so the next note doesn't briefly show this one's content; drop a render still running
+        previewRenderRequest++;
+        showPreviewBlocks(List.of());
+        markdownRenderer = new MarkdownRenderer();
+    }
+
     public Optional<UUID> getNoteToOpen() {
         return Optional.ofNullable(noteToOpen);
     }
 
     /**
      * Recursively builds a TreeItem structure from a given Goal object and its sub-goals.
+     * While editing, the tree items hold the goal hierarchy: goals are immutable, so an edited goal is replaced in
+     * its item, and the goals are put together again from the tree with {@link #buildGoals}.
      */
     private TreeItem<Note.Goal> createGoalTreeItem(Note.Goal goal) {
         TreeItem<Note.Goal> item = new TreeItem<>(goal);
-        if (goal.getSubGoals() != null) {
-            goal.getSubGoals().forEach(subGoal -> item.getChildren().add(createGoalTreeItem(subGoal)));
-        }
+        goal.getSubGoals().forEach(subGoal -> item.getChildren().add(createGoalTreeItem(subGoal)));
         return item;
     }
 
+    /**
+     * Recursively builds the goals shown under a tree item. Goals whose subtree was not edited are reused as they
+     * are, so only the goals on the path to an edit are new.
+     */
+    private List<Note.Goal> buildGoals(TreeItem<Note.Goal> parent) {
+        List<Note.Goal> goals = new ArrayList<>(parent.getChildren().size());
+        for (TreeItem<Note.Goal> child : parent.getChildren()) {
+            goals.add(child.getValue().withSubGoals(buildGoals(child)));
+        }
+        return goals;
+    }
+
     /**
      * Returns the edited note copy if the user saved, otherwise returns an empty Optional.
      * @return An Optional containing the saved note.
@@ -475,10 +514,7 @@ public class NoteDetailViewController {
         noteCopy.setAssignees(assigneeListView.getSelectionModel().getSelectedItems());
 
         // Persist the goals list back to the note object
-        List<Note.Goal> topLevelGoals = goalsTreeView.getRoot().getChildren().stream()
-                .map(TreeItem::getValue)
-                .collect(Collectors.toList());
-        noteCopy.setGoals(topLevelGoals);
+        noteCopy.setGoals(buildGoals(goalsTreeView.getRoot()));
 
         noteCopy.setComments(commentsListView.getItems());
         noteCopy.setTags(this.tempTags);
@@ -552,11 +588,6 @@ public class NoteDetailViewController {
             parent.getChildren().removeAll(childrenToRemove);
             wasChanged = true;
         }
-
-        // --- FIX: Update the underlying data model ---
-        if (parent.getValue() != null) {
-            if (parent.getValue().removeCompletedSubGoals()) wasChanged = true;
-        }
         return wasChanged;
     }
 
@@ -617,42 +648,86 @@ public class NoteDetailViewController {
         return tagView;
     }
 
-    private void renderMarkdown() {
-        if (contentArea == null || contentPreview == null) {
+    /**
+     * Loads the (empty) preview page, which the rendered markdown is then put into block by block.
+     */
+    private void loadPreviewPage() {
+        if (contentPreview == null) {
             return;
         }
-        String markdownText = contentArea.getText();
-        com.vladsch.flexmark.util.ast.Node document = markdownParser.parse(markdownText);
-        String rawHtml = markdownRenderer.render(document);
+        contentPreview.getEngine().getLoadWorker().stateProperty().addListener((obs, oldState, newState) -> {
+            if (newState == Worker.State.SUCCEEDED) {
+                previewLoaded = true;
+                if (pendingPreviewBlocks != null) {
+                    showPreviewBlocks(pendingPreviewBlocks);
+                    pendingPreviewBlocks = null;
+                }
+            }
+        });
 
         // This HTML uses CSS variables defined by the AtlantaFX theme, so it will adapt to light/dark mode.
-        // --- NEW: Process custom 'gallery://' links ---
-        // Replace our custom protocol with a valid file URI that the WebView can understand.
-        String galleryUri = MainApp.getGalleryDirectory().toUri().toString();
-        String processedHtml = rawHtml.replaceAll("src=\"gallery://([^\"]+)\"", "src=\"" + galleryUri + "$1\"");
-
-        // Get the path to the external CSS file.
+        // Get the paths to the external CSS file and to the script that updates the page.
         String markdownCssPath = Objects.requireNonNull(getClass().getResource("/com/tarek/notetool/markdown-preview.css")).toExternalForm();
+        String previewScriptPath = Objects.requireNonNull(getClass().getResource("/com/tarek/notetool/markdown-preview.js")).toExternalForm();
 
-        String fullHtml = """
+        String pageHtml = """
             <html>
                 <head>
                     <link rel="stylesheet" href="%s">
+                    <script src="%s"></script>
                 </head>
                 <body>
-                    %s
-                    <script src="https://cdnjs.cloudflare.com/ajax/libs/highlight.js/11.9.0/highlight.min.js"></script>
-                    <script>
-                        // Find all <pre><code> blocks and apply syntax highlighting
-                        document.addEventListener('DOMContentLoaded', (event) => {
-                            document.querySelectorAll('pre code').forEach((el) => { hljs.highlightElement(el); });
-                        });
-                    </script>
+                    <div id="preview"></div>
                 </body>
             </html>
-        """.formatted(markdownCssPath, processedHtml);
+        """.formatted(markdownCssPath, previewScriptPath);
 
-        contentPreview.getEngine().loadContent(fullHtml);
+        contentPreview.getEngine().loadContent(pageHtml);
+    }
+
+    /**
+     * Renders the content in the background, then shows it in the preview.
+     */
+    private void renderMarkdown() {
+        if (contentArea == null || contentPreview == null) {
+            return;
+        }
+        long request = ++previewRenderRequest;
+        markdownRenderer.renderBlocks(contentArea.getText()).whenComplete((blocks, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Failed to render the note preview: " + error.getMessage());
+            } else if (request == previewRenderRequest) {
+                showPreviewBlocks(blocks);
+            }
+        }));
+    }
+
+    /**
+     * Updates the preview page to show the given blocks, replacing only the ones between the unchanged blocks at
+     * the start and at the end.
+     */
+    private void showPreviewBlocks(List<String> blocks) {
+        if (!previewLoaded) {
+            pendingPreviewBlocks = blocks;
+            return;
+        }
+        int shared = Math.min(previewBlocks.size(), blocks.size());
+        int start = 0;
+        while (start < shared && previewBlocks.get(start).equals(blocks.get(start))) {
+            start++;
+        }
+        int end = 0;
+        while (end < shared - start
+                && previewBlocks.get(previewBlocks.size() - 1 - end).equals(blocks.get(blocks.size() - 1 - end))) {
+            end++;
+        }
+        int deleteCount = previewBlocks.size() - start - end;
+        List<String> changedBlocks = blocks.subList(start, blocks.size() - end);
+        if (deleteCount > 0 || !changedBlocks.isEmpty()) {
+            contentPreview.getEngine().executeScript("notePreview.patch(" + start + ", " + deleteCount + ", "
+                    + PREVIEW_GSON.toJson(changedBlocks) + ")");
+        }
+        previewBlocks = blocks;
     }
 
     // --- Reference Image Methods ---
@@ -691,8 +766,21 @@ public class NoteDetailViewController {
 
     private Node createReferenceImageView(String imageFileName) {
         Path imagePath = MainApp.getGalleryDirectory().resolve(imageFileName);
-        Image image = new Image(imagePath.toUri().toString(), 80, 80, true, true);
-        ImageView imageView = new ImageView(image);
+        ImageView imageView = new ImageView();
+        Image cached = ThumbnailCache.getCached(imagePath, REFERENCE_IMAGE_SIZE);
+        if (cached != null) {
+            imageView.setImage(cached);
+        } else {
+            // Decoding the original can take a while for large images; show a placeholder until the thumbnail is ready.
+            imageView.setImage(ThumbnailCache.placeholder(REFERENCE_IMAGE_SIZE));
+            ThumbnailCache.load(imagePath, REFERENCE_IMAGE_SIZE).whenComplete((thumbnail, error) -> Platform.runLater(() -> {
+                if (thumbnail != null) {
+                    imageView.setImage(thumbnail);
+                } else {
+                    System.err.println("Could not load thumbnail for " + imagePath + ": " + error.getMessage());
+                }
+            }));
+        }
 
         Button removeButton = new Button();
         removeButton.setGraphic(new FontIcon(MaterialDesignC.CLOSE_CIRCLE_OUTLINE));
@@ -866,11 +954,12 @@ public class NoteDetailViewController {
         if (text != null && text.startsWith("@")) {
             String query = text.substring(1);
             if (!query.trim().isEmpty()) {
-                // Search for notes
-                Map<Note, Board> results = noteManager.searchAllNotes(query);
+                // Search for notes; one more than shown, since this note may be among the results
+                Map<Note, Board> results = noteManager.searchAllNotes(query, MAX_NOTE_SUGGESTIONS + 1);
                 List<Pair<Note, Board>> resultList = results.entrySet().stream()
                         .filter(entry -> !entry.getKey().getId().equals(noteCopy.getId())) // Exclude self
                         .map(entry -> new Pair<>(entry.getKey(), entry.getValue()))
+                        .limit(MAX_NOTE_SUGGESTIONS)
                         .collect(Collectors.toList());
 
                 if (!resultList.isEmpty()) {
@@ -977,8 +1066,7 @@ public class NoteDetailViewController {
                     // Get the other note's dependencies, remove the inverse link, and set them back
                     List<Note.Dependency> otherNoteDependencies = new ArrayList<>(otherNote.getDependencies());
                     if (otherNoteDependencies.remove(inverseDependency)) {
-                        otherNote.setDependencies(otherNoteDependencies);
-                        noteManager.markAsDirty(); // Mark manager as dirty for the change on the other note
+                        otherNote.setDependencies(otherNoteDependencies); // The other note's board records this change
                     }
                 });
 
@@ -1033,8 +1121,7 @@ public class NoteDetailViewController {
                 List<Note.Dependency> otherNoteDependencies = new ArrayList<>(selectedNote.getDependencies());
                 if (!otherNoteDependencies.contains(inverseDependency)) {
                     otherNoteDependencies.add(inverseDependency);
-                    selectedNote.setDependencies(otherNoteDependencies);
-                    noteManager.markAsDirty(); // IMPORTANT: Mark the manager as dirty because we changed another note
+                    selectedNote.setDependencies(otherNoteDependencies); // The other note's board records this change
                 }
             }
         });
@@ -1079,10 +1166,7 @@ public class NoteDetailViewController {
         if (!currentAssignees.equals(initialAssignees)) return true;
 
         // Compare goals (order and content matter)
-        List<Note.Goal> currentTopLevelGoals = new ArrayList<>();
-        currentTopLevelGoals = goalsTreeView.getRoot().getChildren().stream()
-                .map(TreeItem::getValue).collect(Collectors.toList());
-        if (areGoalListsDifferent(currentTopLevelGoals, initialNoteState.getGoals())) return true;
+        if (areGoalListsDifferent(buildGoals(goalsTreeView.getRoot()), initialNoteState.getGoals())) return true;
 
         // Compare tags
         if (!tempTags.equals(initialNoteState.getTags())) return true;
@@ -1107,6 +1191,7 @@ public class NoteDetailViewController {
         for (int i = 0; i < list1.size(); i++) {
             Note.Goal goal1 = list1.get(i);
             Note.Goal goal2 = list2.get(i);
+            if (goal1 == goal2) continue; // An unedited goal tree is shared, so it doesn't need to be compared
             if (!Objects.equals(goal1.getDescription(), goal2.getDescription())) return true;
             if (goal1.isCompleted() != goal2.isCompleted()) return true;
             // Recursive call for sub-goals
@@ -1195,8 +1280,8 @@ public class NoteDetailViewController {
         // Recurse for all children
         for (TreeItem<Note.Goal> childItem : parentItem.getChildren()) {
             // Set the completion for the child's goal
-            if (childItem.getValue() != null && childItem.getValue().isCompleted() != completed) {
-                childItem.getValue().setCompleted(completed);
+            if (childItem.getValue() != null) {
+                childItem.setValue(childItem.getValue().withCompleted(completed));
             }
             // Recurse for grandchildren
             setSubGoalsCompletion(childItem, completed);
@@ -1223,13 +1308,13 @@ public class NoteDetailViewController {
 
         Note.Goal parentGoal = parentItem.getValue();
 
-        // Check if all children of the parent are completed by looking at the model
-        boolean allChildrenCompleted = parentGoal.getSubGoals().stream()
-                .allMatch(Note.Goal::isCompleted);
+        // Check if all children of the parent are completed by looking at the tree
+        boolean allChildrenCompleted = parentItem.getChildren().stream()
+                .allMatch(child -> child.getValue().isCompleted());
 
         // If the parent's completion status needs to change, update it and recurse upwards
         if (parentGoal.isCompleted() != allChildrenCompleted) {
-            parentGoal.setCompleted(allChildrenCompleted);
+            parentItem.setValue(parentGoal.withCompleted(allChildrenCompleted));
             // Recurse to check the grandparent
             updateParentCompletion(parentItem);
         }
@@ -1271,7 +1356,7 @@ public class NoteDetailViewController {
             checkBox.setOnAction(event -> {
                 if (getItem() != null) {
                     boolean isSelected = checkBox.isSelected();
-                    getItem().setCompleted(isSelected);
+                    getTreeItem().setValue(getItem().withCompleted(isSelected));
 
                     // Propagate completion status downwards to all sub-goals
                     setSubGoalsCompletion(getTreeItem(), isSelected);
@@ -1288,11 +1373,7 @@ public class NoteDetailViewController {
                 TreeItem<Note.Goal> treeItem = getTreeItem();
                 if (treeItem != null && treeItem.getParent() != null) {
                     TreeItem<Note.Goal> parentTreeItem = treeItem.getParent();
-                    // If the parent is not the invisible root, remove the goal from the parent goal's list of sub-goals
-                    if (parentTreeItem.getValue() != null) {
-                        parentTreeItem.getValue().removeSubGoal(getItem());
-                    }
-                    // Remove the item from the TreeView
+                    // Remove the item from the TreeView (the parent goal's sub-goals are rebuilt from the tree)
                     parentTreeItem.getChildren().remove(treeItem);
 
                     // After removing, check if the parent should now be marked as complete
@@ -1305,23 +1386,22 @@ public class NoteDetailViewController {
 
             addSubGoalButton.setOnAction(event -> {
                 if (getTreeItem() != null) {
+                    TreeItem<Note.Goal> parentTreeItem = getTreeItem();
                     Note.Goal parentGoal = getItem();
 
                     // If parent was completed, un-complete it since we're adding a new task
                     if (parentGoal.isCompleted()) {
-                        parentGoal.setCompleted(false);
+                        parentTreeItem.setValue(parentGoal.withCompleted(false));
                         // Manually update the checkbox in the UI to reflect the model change
                         checkBox.setSelected(false);
                         // Also need to update grandparents
-                        updateParentCompletion(getTreeItem());
+                        updateParentCompletion(parentTreeItem);
                     }
 
                     Note.Goal newSubGoal = new Note.Goal("New Sub-goal");
-                    parentGoal.addSubGoal(newSubGoal); // Update model
-
                     TreeItem<Note.Goal> newTreeItem = new TreeItem<>(newSubGoal); // Create UI item
-                    getTreeItem().getChildren().add(newTreeItem); // Add to UI tree
-                    getTreeItem().setExpanded(true);
+                    parentTreeItem.getChildren().add(newTreeItem); // Add to UI tree
+                    parentTreeItem.setExpanded(true);
 
                     goalsTreeView.refresh();
                     updateGoalsProgress();
@@ -1397,16 +1477,14 @@ public class NoteDetailViewController {
             editField = new TextField();
             editField.setOnKeyPressed(event -> {
                 if (event.getCode() == KeyCode.ENTER) {
-                    getItem().setDescription(editField.getText());
-                    commitEdit(getItem());
+                    commitEdit(getItem().withDescription(editField.getText()));
                 } else if (event.getCode() == KeyCode.ESCAPE) {
                     cancelEdit();
                 }
             });
             editField.focusedProperty().addListener((obs, wasFocused, isNowFocused) -> {
-                if (wasFocused && !isNowFocused) {
-                    getItem().setDescription(editField.getText());
-                    commitEdit(getItem());
+                if (wasFocused && !isNowFocused && getItem() != null) {
+                    commitEdit(getItem().withDescription(editField.getText()));
                 }
             });
         }
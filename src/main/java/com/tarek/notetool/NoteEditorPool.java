@@ -0,0 +1,130 @@
+package com.tarek.notetool;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The note editor windows of a board window, built ahead of time and reused.
+ * <p>
+ * Building an editor (loading its FXML, creating its controls and starting the web engine of its preview) takes a
+ * noticeable moment. Instead of doing that every time a note is opened, an editor is built while the application is
+ * idle and kept once it's closed, so opening a note only fills it in. Editors are modal to their board window, and a
+ * stage's owner can't change once set, so each board window has its own pool; as only one editor can be open at a
+ * time, one spare editor is enough.
+ */
+final class NoteEditorPool {
+
+    /**
+     * An editor window, its content and its controller.
+     */
+    record Editor(Stage stage, Parent page, NoteDetailViewController controller) {
+    }
+
+    private static final int SPARE_EDITORS = 1;
+    private static final Duration WARM_UP_DELAY = Duration.seconds(1);
+
+    private final Window owner;
+    private final Deque<Editor> spareEditors = new ArrayDeque<>();
+    private PauseTransition warmUp;
+    private boolean disposed = false;
+
+    NoteEditorPool(Window owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Builds the spare editors shortly after the board window has opened, once it's done with its own work.
+     */
+    void warmUp() {
+        if (warmUp == null) {
+            warmUp = new PauseTransition(WARM_UP_DELAY);
+            warmUp.setOnFinished(e -> buildSpareEditor());
+        }
+        warmUp.playFromStart();
+    }
+
+    /**
+     * Gets an editor to show a note in: a spare one, or a new one if there is none.
+     * Give it back with {@link #release} once it's closed.
+     * @throws IOException if the editor's FXML can't be loaded.
+     */
+    Editor acquire() throws IOException {
+        Editor editor = spareEditors.poll();
+        if (editor == null) {
+            editor = create();
+        } else {
+            // The theme may have changed since the editor was built
+            ThemeManager.loadAndApplyTheme(editor.stage().getScene());
+        }
+        return editor;
+    }
+
+    /**
+     * Takes back a closed editor, clearing it so it can be used for the next note.
+     */
+    void release(Editor editor) {
+        editor.controller().reset();
+        if (!disposed && spareEditors.size() < SPARE_EDITORS) {
+            spareEditors.push(editor);
+        }
+    }
+
+    /**
+     * Drops the spare editors, once the board window is closed.
+     */
+    void dispose() {
+        disposed = true;
+        if (warmUp != null) {
+            warmUp.stop();
+        }
+        spareEditors.clear();
+    }
+
+    private void buildSpareEditor() {
+        if (disposed || spareEditors.size() >= SPARE_EDITORS) {
+            return;
+        }
+        try {
+            spareEditors.push(create());
+        } catch (IOException e) {
+            System.err.println("Failed to prepare a note editor: " + e.getMessage());
+            return;
+        }
+        // Build the next one later, so the board window stays responsive in between
+        Platform.runLater(this::buildSpareEditor);
+    }
+
+    private Editor create() throws IOException {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/tarek/notetool/note-detail-view.fxml"));
+        // Manually create and set the controller for robustness in packaged applications.
+        NoteDetailViewController controller = new NoteDetailViewController();
+        loader.setController(controller);
+        Parent page = loader.load();
+
+        Stage stage = new Stage();
+        stage.setTitle("Edit Note");
+        stage.initModality(Modality.WINDOW_MODAL);
+        stage.initOwner(owner);
+        Scene scene = new Scene(page);
+        // Apply the user's custom theme to the new dialog's scene
+        ThemeManager.loadAndApplyTheme(scene);
+        stage.setScene(scene);
+
+        controller.setDialogStage(stage);
+        controller.setupShortcuts();
+        // Work out the styles now instead of when the editor is first shown
+        page.applyCss();
+        return new Editor(stage, page, controller);
+    }
+}
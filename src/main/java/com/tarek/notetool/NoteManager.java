@@ -2,13 +2,7 @@ package com.tarek.notetool;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
-import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
@@ -17,17 +11,24 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
-import java.lang.reflect.Type;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.stream.Stream;
 import java.time.LocalDateTime;
 import java.util.Deque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,6 +36,16 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -47,10 +58,79 @@ public class NoteManager {
     private User currentUser;
     private final Set<String> allTags;
     private final List<String> galleryImagePaths;
-    private transient boolean isDirty = false;
-    private transient Set<Path> loadedBoardFiles = new HashSet<>();
+    // Change tracking: only boards in this set (and the settings, if flagged) are rewritten on save.
+    private final transient Set<Board> dirtyBoards = Collections.newSetFromMap(new IdentityHashMap<>());
+    private transient boolean settingsDirty = false;
+    // The file each board was last loaded from or saved to, so unchanged boards can be skipped.
+    private final transient Map<Board, Path> boardFiles = new IdentityHashMap<>();
+    // Board files that no longer belong to any board (deleted or renamed boards) and should be removed.
+    private final transient Set<Path> obsoleteBoardFiles = new HashSet<>();
+    // Updated by background saves, hence atomic.
+    private final transient AtomicLong totalFilesWritten = new AtomicLong();
+    private final transient AtomicLong totalFilesSkipped = new AtomicLong();
+    // Notified whenever something is marked dirty, e.g. to schedule a background save.
+    private transient Runnable dirtyListener;
+    // Journaled persistence: note-level edits are appended to a per-board log instead of dirtying the board.
+    private transient boolean journalingEnabled = true;
+    private final transient Map<Board, BoardJournal> journals = new IdentityHashMap<>();
+    // Board files are written in the compact binary format by default; JSON is still read and used for exports.
+    private transient boolean binaryFormatEnabled = true;
+    // Lazy residency: boards are read from their header at startup and their content is loaded on first use.
+    // Resident boards in least-recently-used order, with their estimated heap size.
+    private final transient Map<Board, Long> residentBoards = new LinkedHashMap<>(16, 0.75f, true);
+    private transient long memoryBudgetBytes = DEFAULT_MEMORY_BUDGET_BYTES;
+    // Boards shown in an open window (with a count per window); these are never evicted.
+    private final transient Map<Board, Integer> pinnedBoards = new IdentityHashMap<>();
+    // Boards captured for a save that hasn't finished; their file on disk is stale until it does.
+    private final transient Set<Board> boardsBeingWritten = ConcurrentHashMap.newKeySet();
+    // The board each note is on, so cross-board lookups don't have to search (or load) every board.
+    // Boards that only have their header are indexed from the column note lists in their file; notes outside any
+    // column are added when the board is loaded.
+    private final transient Map<UUID, Board> noteIndex = new HashMap<>();
+    // Full-text index for searchAllNotes; built on the first search, then kept up to date as notes change.
+    private final transient NoteSearchIndex searchIndex = new NoteSearchIndex();
+    private transient boolean searchIndexBuilt = false;
+    // While the index is built in the background: the build, and the notes that changed meanwhile.
+    private transient CompletableFuture<Void> searchIndexBuild;
+    private transient Set<UUID> notesChangedDuringSearchIndexBuild;
+    // The notes that reference each gallery image, and the images indexed for each note (to update it on edits).
+    // Built on the first lookup, like the search index.
+    private final transient Map<String, Set<UUID>> imageUsage = new HashMap<>();
+    private final transient Map<UUID, List<String>> noteImages = new HashMap<>();
+    private transient boolean imageUsageBuilt = false;
+    private transient CompletableFuture<Map<UUID, List<String>>> imageUsageBuild;
+    private transient Set<UUID> notesChangedDuringImageUsageBuild;
+    private final transient Board.ChangeListener boardChangeListener = this::boardChanged;
+    // Subscribers to the changes of all boards, and the changes of the running batch that they haven't received yet.
+    private final transient List<Consumer<List<BoardEvent>>> eventListeners = new CopyOnWriteArrayList<>();
+    private final transient List<BoardEvent> pendingEvents = new ArrayList<>();
+    private transient int batchDepth = 0;
 
     private static final int MAX_RECENT_NOTES = 10;
+    // Queries the search index and builds it and the image usage off the JavaFX thread; one thread, so a burst of
+    // keystrokes runs one query at a time.
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "note-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final String JSON_BOARD_EXTENSION = ".json";
+    private static final String BINARY_BOARD_EXTENSION = ".board";
+    private static final long DEFAULT_MEMORY_BUDGET_BYTES = 256L * 1024 * 1024;
+    // A note body file is replaced by a new one once less than half of it is in use, if it has at least this size.
+    private static final long BODY_FILE_COMPACTION_MIN_BYTES = 1024 * 1024;
+
+    // Gson instances are thread-safe and expensive to build, so they are created once and shared.
+    private static final Gson GSON = BoardJsonAdapters.register(new GsonBuilder())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .registerTypeAdapter(NoteManager.class, new NoteManagerAdapter().nullSafe())
+            .setPrettyPrinting()
+            .enableComplexMapKeySerialization()
+            .create();
+    private static final Gson COMPACT_GSON = BoardJsonAdapters.register(new GsonBuilder())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .enableComplexMapKeySerialization()
+            .create();
 
     public static class NoteBoardPair {
         public final Note note;
@@ -62,6 +142,64 @@ public class NoteManager {
         }
     }
 
+    /**
+     * The outcome of a save: how many files were rewritten and how many were skipped because they had not changed.
+     */
+    public record SaveStats(int filesWritten, int filesSkipped) {
+    }
+
+    /**
+     * A point-in-time copy of the state that needs saving, captured on the JavaFX thread by
+     * {@link #captureSnapshot(Path)} and written on any thread by {@link #writeSnapshot(SaveSnapshot)}.
+     */
+    public static final class SaveSnapshot {
+        private final Path dataDirectory;
+        private NoteManagerSettings settings; // null if the settings didn't change
+        private final List<BoardWrite> boards = new ArrayList<>();
+        private final List<Path> obsoleteFiles = new ArrayList<>();
+        private int skipped = 0;
+
+        // Filled in by writeSnapshot()
+        private boolean settingsFailed = false;
+        private final List<Board> failedBoards = new ArrayList<>();
+        private final List<Path> failedDeletions = new ArrayList<>();
+
+        private SaveSnapshot(Path dataDirectory) {
+            this.dataDirectory = dataDirectory;
+        }
+
+        public boolean isEmpty() {
+            return settings == null && boards.isEmpty() && obsoleteFiles.isEmpty();
+        }
+
+        public boolean hasFailures() {
+            return failureCount() > 0;
+        }
+
+        public int failureCount() {
+            return (settingsFailed ? 1 : 0) + failedBoards.size();
+        }
+
+        /**
+         * Records everything in the snapshot as failed, e.g. after writing it stopped with an unexpected error, so
+         * that {@link #restoreFailedSnapshot(SaveSnapshot)} retries all of it.
+         */
+        public void markAllFailed() {
+            settingsFailed = settings != null;
+            for (BoardWrite boardWrite : boards) {
+                if (!failedBoards.contains(boardWrite.board())) {
+                    failedBoards.add(boardWrite.board());
+                }
+            }
+            failedDeletions.clear();
+            failedDeletions.addAll(obsoleteFiles);
+        }
+    }
+
+    // One board to write: the live board (to re-mark on failure) and the copy that is actually written.
+    private record BoardWrite(Board board, Board copy, BoardJournal journal, long includedSequence, boolean discardJournal) {
+    }
+
     public NoteManager() {
         this.boards = new HashMap<>();
         this.recentNoteIds = new LinkedList<>();
@@ -70,12 +208,366 @@ public class NoteManager {
         this.galleryImagePaths = new ArrayList<>();
     }
 
-    public void markAsDirty() {
-        this.isDirty = true;
+    /**
+     * Flags a board as changed so that its file is rewritten on the next save.
+     * @param board The board that was modified.
+     */
+    public void markBoardDirty(Board board) {
+        if (board != null) {
+            dirtyBoards.add(board);
+            notifyDirty();
+        }
+    }
+
+    /**
+     * Flags the workspace settings (current user, tags, recent notes, gallery) as changed.
+     */
+    public void markSettingsDirty() {
+        this.settingsDirty = true;
+        notifyDirty();
     }
 
     public boolean isDirty() {
-        return isDirty;
+        return settingsDirty || !dirtyBoards.isEmpty() || !obsoleteBoardFiles.isEmpty();
+    }
+
+    public boolean isBoardDirty(Board board) {
+        return dirtyBoards.contains(board);
+    }
+
+    public boolean isJournalingEnabled() {
+        return journalingEnabled;
+    }
+
+    /**
+     * Switches between journaled persistence (note edits are appended to a per-board log)
+     * and snapshot persistence (any note edit rewrites the whole board file on the next save).
+     * @param journalingEnabled true to journal note-level edits.
+     */
+    public void setJournalingEnabled(boolean journalingEnabled) {
+        this.journalingEnabled = journalingEnabled;
+        if (!journalingEnabled) {
+            // Fold any existing journals into their snapshots on the next save.
+            journals.forEach((board, journal) -> {
+                if (Files.exists(journal.getJournalFile())) {
+                    markBoardDirty(board);
+                }
+            });
+        }
+    }
+
+    public boolean isBinaryFormatEnabled() {
+        return binaryFormatEnabled;
+    }
+
+    /**
+     * Chooses the format board files are saved in: the compact binary format ('.board') or pretty-printed
+     * JSON ('.json'). Boards loaded from files in the other format are marked dirty, so they are converted
+     * on the next save.
+     * @param binaryFormatEnabled true to save boards in the binary format.
+     */
+    public void setBinaryFormatEnabled(boolean binaryFormatEnabled) {
+        this.binaryFormatEnabled = binaryFormatEnabled;
+        String extension = binaryFormatEnabled ? BINARY_BOARD_EXTENSION : JSON_BOARD_EXTENSION;
+        boardFiles.forEach((board, file) -> {
+            if (!file.toString().endsWith(extension)) {
+                markBoardDirty(board);
+            }
+        });
+    }
+
+    /**
+     * Writes all buffered journal records to disk immediately, e.g. before the application exits.
+     */
+    public void flushJournals() {
+        for (BoardJournal journal : journals.values()) {
+            try {
+                journal.flush();
+            } catch (IOException e) {
+                System.err.println("Failed to flush board journal " + journal.getJournalFile() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Keeps the note index, the search and image indexes and the board's journal (or dirty flag) up to date with a
+     * change made through a board, then passes it on to the event listeners.
+     */
+    private void boardChanged(BoardEvent event) {
+        Board board = event.board();
+        if (event instanceof BoardEvent.NoteAdded added) {
+            noteUpserted(board, added.note());
+        } else if (event instanceof BoardEvent.NoteUpdated updated) {
+            noteUpserted(board, updated.note());
+        } else if (event instanceof BoardEvent.NoteRemoved removed) {
+            UUID noteId = removed.noteId();
+            noteIndex.remove(noteId, board);
+            searchIndex.remove(noteId);
+            noteChangedDuringSearchIndexBuild(noteId);
+            removeImageUsage(noteId);
+            noteChangedDuringImageUsageBuild(noteId);
+            recordNoteChange(board, journal -> journal.appendRemove(noteId));
+        } else if (event instanceof BoardEvent.NoteMoved moved) {
+            recordNoteChange(board, journal -> journal.appendMove(moved.noteId(), moved.toColumnId(), moved.index()));
+        } else {
+            markBoardDirty(board); // Column changes aren't journaled
+        }
+        publish(event);
+    }
+
+    private void noteUpserted(Board board, Note note) {
+        noteIndex.put(note.getId(), board);
+        if (searchIndexBuilt) {
+            updateSearchIndex(note);
+        } else {
+            noteChangedDuringSearchIndexBuild(note.getId());
+        }
+        if (imageUsageBuilt) {
+            updateImageUsage(note);
+        } else {
+            noteChangedDuringImageUsageBuild(note.getId());
+        }
+        recordNoteChange(board, journal -> {
+            boolean bodyWasLoaded = note.isBodyLoaded();
+            journal.appendUpsert(note);
+            if (!bodyWasLoaded) {
+                note.releaseBody(); // Only loaded to be serialized
+            }
+        });
+    }
+
+    // --- Change events ---
+
+    /**
+     * Subscribes to the changes of all boards: notes and columns added, removed, moved, edited or renamed, and boards
+     * created, removed or renamed. Events are delivered on the thread that made the change (the JavaFX thread).
+     * @param listener Receives the events, one at a time or, for a batch, all of its events at once.
+     */
+    public void addEventListener(Consumer<List<BoardEvent>> listener) {
+        eventListeners.add(listener);
+    }
+
+    public void removeEventListener(Consumer<List<BoardEvent>> listener) {
+        eventListeners.remove(listener);
+    }
+
+    /**
+     * Makes several changes as one: the events of all changes made by the given code (including nested batches) are
+     * delivered together when it returns, so listeners update once instead of after each change.
+     * @param changes The code that changes the boards.
+     */
+    public void batch(Runnable changes) {
+        batchDepth++;
+        try {
+            changes.run();
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0) {
+                deliverPendingEvents();
+            }
+        }
+    }
+
+    private void publish(BoardEvent event) {
+        if (eventListeners.isEmpty()) {
+            return;
+        }
+        pendingEvents.add(event);
+        if (batchDepth == 0) {
+            deliverPendingEvents();
+        }
+    }
+
+    private void deliverPendingEvents() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        List<BoardEvent> events = List.copyOf(pendingEvents);
+        pendingEvents.clear();
+        for (Consumer<List<BoardEvent>> listener : eventListeners) {
+            listener.accept(events);
+        }
+    }
+
+    /**
+     * Records a note-level change on a board. The change is appended to the board's journal when journaling
+     * is enabled and the board is already on disk; otherwise the whole board is marked dirty.
+     */
+    private void recordNoteChange(Board board, Consumer<BoardJournal> journalWrite) {
+        BoardJournal journal = journals.get(board);
+        if (journalingEnabled && journal != null && !dirtyBoards.contains(board)) {
+            journalWrite.accept(journal);
+        } else {
+            markBoardDirty(board);
+        }
+    }
+
+    /**
+     * Starts tracking changes to a board that was added to the manager.
+     */
+    private void registerBoard(Board board) {
+        board.setChangeListener(boardChangeListener);
+        if (board.isResident()) {
+            residentBoards.put(board, estimateHeapBytes(board));
+            indexBoard(board);
+            if (searchIndexBuilt) {
+                board.getAllNotes().forEach(this::updateSearchIndex);
+            } else {
+                board.getAllNotes().forEach(note -> noteChangedDuringSearchIndexBuild(note.getId()));
+            }
+            if (imageUsageBuilt) {
+                board.getAllNotes().forEach(this::updateImageUsage);
+            } else {
+                board.getAllNotes().forEach(note -> noteChangedDuringImageUsageBuild(note.getId()));
+            }
+        }
+    }
+
+    // --- Lazy residency ---
+
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    /**
+     * Sets how much heap the content of resident boards may use before the least recently used ones are evicted.
+     * The budget is a soft limit: it's enforced by {@link #trimToMemoryBudget()}, and boards that are open,
+     * unsaved or being saved are never evicted.
+     * @param memoryBudgetBytes The budget in bytes.
+     */
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Gets the metadata of a board without loading its content.
+     * @param boardName The name of the board.
+     * @return The board's header, or an empty Optional if there is no such board.
+     */
+    public Optional<Board.Header> getBoardHeader(String boardName) {
+        return Optional.ofNullable(boards.get(boardName)).map(Board::getHeader);
+    }
+
+    /**
+     * Keeps a board in memory while it is shown in a window. Every call must be matched by {@link #unpinBoard}.
+     * @param board The board being shown.
+     */
+    public void pinBoard(Board board) {
+        pinnedBoards.merge(board, 1, Integer::sum);
+        residentBoards.get(board); // Counts as a use
+    }
+
+    /**
+     * Releases a board pinned with {@link #pinBoard}, e.g. when its window closes, and trims memory use.
+     * @param board The board that is no longer shown.
+     */
+    public void unpinBoard(Board board) {
+        pinnedBoards.computeIfPresent(board, (key, count) -> count > 1 ? count - 1 : null);
+        trimToMemoryBudget();
+    }
+
+    /**
+     * Evicts the content of the least recently used boards until the estimated heap use of all resident boards
+     * fits the memory budget. Evicted boards keep their name and header and are reloaded on their next use.
+     * This must run on the JavaFX thread at a point where no caller still holds notes from a cross-board query,
+     * e.g. after a save or when a window closes.
+     */
+    public void trimToMemoryBudget() {
+        long total = 0;
+        for (Map.Entry<Board, Long> entry : residentBoards.entrySet()) {
+            entry.setValue(estimateHeapBytes(entry.getKey()));
+            total += entry.getValue();
+        }
+        Iterator<Map.Entry<Board, Long>> iterator = residentBoards.entrySet().iterator();
+        while (total > memoryBudgetBytes && iterator.hasNext()) {
+            Map.Entry<Board, Long> entry = iterator.next(); // Least recently used first
+            Board board = entry.getKey();
+            Path boardFile = boardFiles.get(board);
+            if (pinnedBoards.containsKey(board) || dirtyBoards.contains(board) || boardsBeingWritten.contains(board)
+                    || boardFile == null || !boards.containsValue(board)) {
+                continue;
+            }
+            BoardJournal journal = journals.remove(board);
+            if (journal != null) {
+                try {
+                    journal.flush(); // Replayed when the board is loaded again
+                } catch (IOException e) {
+                    System.err.println("Not evicting board '" + board.getName() + "': journal could not be flushed. " + e.getMessage());
+                    journals.put(board, journal);
+                    continue;
+                }
+                journal.close();
+            }
+            board.deferContent(() -> loadBoardContent(board), board.getHeader());
+            iterator.remove();
+            total -= entry.getValue();
+            System.out.println("Evicted board '" + board.getName() + "' from memory (~" + entry.getValue() / 1024 + " KB)");
+        }
+    }
+
+    /**
+     * Makes a board header-only; its content is loaded from its file the first time it's needed.
+     */
+    private void deferBoardContent(Board board, Board.Header header) {
+        board.deferContent(() -> loadBoardContent(board), header);
+    }
+
+    /**
+     * Loads the content of a header-only board from its file and journal.
+     */
+    private Board loadBoardContent(Board board) throws IOException {
+        Path boardFile = boardFiles.get(board);
+        if (boardFile == null) {
+            throw new IOException("No file for board '" + board.getName() + "'.");
+        }
+        long start = System.nanoTime();
+        Board loaded = readBoardFile(boardFile);
+        if (loaded == null) {
+            throw new IOException("The file " + boardFile + " does not contain a valid board.");
+        }
+        long lastSequence = BoardJournal.replay(BoardJournal.journalFileFor(boardFile), loaded);
+        journals.put(board, new BoardJournal(boardFile, lastSequence));
+        residentBoards.put(board, estimateHeapBytes(loaded));
+        // The file header only lists the notes in columns
+        for (Note note : loaded.getAllNotes()) {
+            noteIndex.put(note.getId(), board);
+        }
+        System.out.println("Loaded board '" + board.getName() + "' on demand in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return loaded;
+    }
+
+    /**
+     * Roughly estimates how much heap a board's content uses.
+     */
+    private static long estimateHeapBytes(Board board) {
+        long bytes = 512;
+        for (Note note : board.getAllNotes()) {
+            bytes += note.estimateHeapBytes();
+        }
+        return bytes;
+    }
+
+    public long getTotalFilesWritten() {
+        return totalFilesWritten.get();
+    }
+
+    public long getTotalFilesSkipped() {
+        return totalFilesSkipped.get();
+    }
+
+    /**
+     * Sets a callback that runs (on the JavaFX thread) whenever a board, the settings or a file deletion
+     * becomes pending, so a save can be scheduled.
+     * @param dirtyListener The callback, or null to remove it.
+     */
+    public void setDirtyListener(Runnable dirtyListener) {
+        this.dirtyListener = dirtyListener;
+    }
+
+    private void notifyDirty() {
+        if (dirtyListener != null) {
+            dirtyListener.run();
+        }
     }
 
     public User getCurrentUser() {
@@ -84,7 +576,7 @@ public class NoteManager {
 
     public void setCurrentUser(User currentUser) {
         this.currentUser = currentUser;
-        markAsDirty();
+        markSettingsDirty();
     }
 
     public Set<String> getAllTags() {
@@ -94,7 +586,7 @@ public class NoteManager {
     public void setAllTags(Set<String> tags) {
         this.allTags.clear();
         this.allTags.addAll(tags);
-        markAsDirty();
+        markSettingsDirty();
     }
 
     /**
@@ -112,13 +604,13 @@ public class NoteManager {
     public void addGalleryImagePath(String imagePath) {
         if (imagePath != null && !imagePath.trim().isEmpty() && !this.galleryImagePaths.contains(imagePath)) {
             this.galleryImagePaths.add(imagePath);
-            markAsDirty();
+            markSettingsDirty();
         }
     }
 
     public boolean removeGalleryImagePath(String imagePath) {
         if (this.galleryImagePaths.remove(imagePath)) {
-            markAsDirty();
+            markSettingsDirty();
             return true;
         }
         return false;
@@ -139,7 +631,9 @@ public class NoteManager {
         }
         Board newBoard = new Board(boardName, members, true);
         boards.put(boardName, newBoard);
-        markAsDirty();
+        registerBoard(newBoard);
+        markBoardDirty(newBoard);
+        publish(new BoardEvent.BoardCreated(newBoard));
         return newBoard;
     }
 
@@ -149,7 +643,11 @@ public class NoteManager {
      * @return An Optional containing the board if found, otherwise an empty Optional.
      */
     public Optional<Board> getBoard(String boardName) {
-        return Optional.ofNullable(boards.get(boardName));
+        Board board = boards.get(boardName);
+        if (board != null) {
+            residentBoards.get(board); // Counts as a use for eviction
+        }
+        return Optional.ofNullable(board);
     }
 
     /**
@@ -160,12 +658,30 @@ public class NoteManager {
     public boolean removeBoard(String boardName) {
         Board removedBoard = boards.remove(boardName);
         if (removedBoard != null) {
-            // Clean up any references to notes from the deleted board in the recent notes list.
-            Set<UUID> notesFromRemovedBoard = removedBoard.getAllNotes().stream()
-                    .map(Note::getId)
-                    .collect(Collectors.toSet());
+            // Clean up any references to notes from the deleted board in the note index and the recent notes list.
+            Set<UUID> notesFromRemovedBoard = unindexBoard(removedBoard);
+            searchIndex.removeAll(notesFromRemovedBoard);
+            notesFromRemovedBoard.forEach(this::noteChangedDuringSearchIndexBuild);
+            notesFromRemovedBoard.forEach(this::removeImageUsage);
+            notesFromRemovedBoard.forEach(this::noteChangedDuringImageUsageBuild);
             recentNoteIds.removeAll(notesFromRemovedBoard);
-            markAsDirty();
+            markSettingsDirty();
+            residentBoards.remove(removedBoard);
+            pinnedBoards.remove(removedBoard);
+
+            // The board's file and journal are deleted on the next save.
+            removedBoard.setChangeListener(null);
+            dirtyBoards.remove(removedBoard);
+            Path removedFile = boardFiles.remove(removedBoard);
+            if (removedFile != null) {
+                obsoleteBoardFiles.add(removedFile);
+            }
+            BoardJournal removedJournal = journals.remove(removedBoard);
+            if (removedJournal != null) {
+                removedJournal.close();
+                obsoleteBoardFiles.add(removedJournal.getJournalFile());
+            }
+            publish(new BoardEvent.BoardRemoved(removedBoard));
             return true;
         }
         return false;
@@ -198,10 +714,37 @@ public class NoteManager {
         }
 
         boards.put(newBoardName, newBoard);
-        markAsDirty();
+        registerBoard(newBoard);
+        markBoardDirty(newBoard);
+        publish(new BoardEvent.BoardCreated(newBoard));
         return newBoard;
     }
 
+    /**
+     * Renames a board. Its file is renamed on the next save.
+     * @param boardName The current name of the board.
+     * @param newName The new name.
+     * @throws IllegalArgumentException if the board does not exist, or the new name is invalid or already taken.
+     */
+    public void renameBoard(String boardName, String newName) {
+        if (newName == null || newName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Board name cannot be null or empty.");
+        }
+        Board board = getBoard(boardName)
+                .orElseThrow(() -> new IllegalArgumentException("Board '" + boardName + "' not found."));
+        if (newName.equals(boardName)) {
+            return;
+        }
+        if (boards.containsKey(newName)) {
+            throw new IllegalArgumentException("A board with the name '" + newName + "' already exists.");
+        }
+        boards.remove(boardName);
+        board.setName(newName);
+        boards.put(newName, board);
+        markBoardDirty(board);
+        publish(new BoardEvent.BoardRenamed(board, boardName));
+    }
+
     /**
      * Finds all notes that have a given image file as a reference.
      * @param imageFileName The name of the image file in the gallery.
@@ -211,15 +754,140 @@ public class NoteManager {
         if (imageFileName == null || imageFileName.isBlank()) {
             return Collections.emptyList();
         }
+        finishImageUsageBuild();
         List<Note> usingNotes = new ArrayList<>();
-        for (Board board : boards.values()) {
-            for (Note note : board.getAllNotes()) {
-                if (note.getReferenceImagePaths().contains(imageFileName)) {
-                    usingNotes.add(note);
+        for (UUID noteId : imageUsage.getOrDefault(imageFileName, Set.of())) {
+            findNoteAndBoard(noteId).ifPresent(pair -> usingNotes.add(pair.note));
+        }
+        return usingNotes;
+    }
+
+    /**
+     * Counts the notes that have a given image file as a reference, without loading them.
+     * If the image usage isn't ready (see {@link #prepareImageUsage}), this waits until it is.
+     * @param imageFileName The name of the image file in the gallery.
+     * @return The number of notes that use the image.
+     */
+    public int getImageUsageCount(String imageFileName) {
+        if (imageFileName == null || imageFileName.isBlank()) {
+            return 0;
+        }
+        finishImageUsageBuild();
+        return imageUsage.getOrDefault(imageFileName, Set.of()).size();
+    }
+
+    /**
+     * @return true if the image usage can be looked up without waiting for it to be built.
+     */
+    public boolean isImageUsageReady() {
+        return imageUsageBuilt;
+    }
+
+    /**
+     * Builds the index of which notes use which gallery image in the background, if it isn't built yet, so the
+     * first lookup doesn't read every board on the JavaFX thread. Must be called on the JavaFX thread.
+     * @param onReady Called once the image usage is ready; right away if it already is.
+     * @param callbackExecutor Runs {@code onReady}; this should be the JavaFX thread (e.g. {@code Platform::runLater}).
+     */
+    public void prepareImageUsage(Runnable onReady, Executor callbackExecutor) {
+        if (imageUsageBuilt) {
+            callbackExecutor.execute(onReady);
+            return;
+        }
+        startImageUsageBuild();
+        // The callback executor runs on the JavaFX thread, where the build is finished.
+        imageUsageBuild.thenRunAsync(() -> {
+            finishImageUsageBuild();
+            onReady.run();
+        }, callbackExecutor);
+    }
+
+    /**
+     * Starts collecting the reference images of all notes on the search thread, unless that has already started.
+     * Reference images are part of the note cards, so no note bodies are read, and no board is loaded.
+     */
+    private void startImageUsageBuild() {
+        if (imageUsageBuilt || imageUsageBuild != null) {
+            return;
+        }
+        notesChangedDuringImageUsageBuild = new HashSet<>();
+        Map<UUID, List<String>> imagesByNote = new HashMap<>();
+        Runnable collectImages = visitAllNotesLater(note -> {
+            if (!note.getReferenceImagePaths().isEmpty()) {
+                imagesByNote.put(note.getId(), note.getReferenceImagePaths());
+            }
+        });
+        imageUsageBuild = CompletableFuture.supplyAsync(() -> {
+            collectImages.run();
+            return imagesByNote;
+        }, SEARCH_EXECUTOR);
+    }
+
+    /**
+     * Completes the image usage: waits for the background build if it's still running, indexes what it collected,
+     * and re-indexes the notes that changed while it ran. Must be called on the JavaFX thread.
+     */
+    private void finishImageUsageBuild() {
+        if (imageUsageBuilt) {
+            return;
+        }
+        startImageUsageBuild();
+        imageUsageBuild.join().forEach((noteId, imagePaths) -> {
+            if (!notesChangedDuringImageUsageBuild.contains(noteId)) {
+                updateImageUsage(noteId, imagePaths);
+            }
+        });
+        for (UUID noteId : notesChangedDuringImageUsageBuild) {
+            Optional<NoteBoardPair> pair = findNoteAndBoard(noteId);
+            if (pair.isPresent()) {
+                updateImageUsage(pair.get().note);
+            } else {
+                removeImageUsage(noteId);
+            }
+        }
+        imageUsageBuilt = true;
+        imageUsageBuild = null;
+        notesChangedDuringImageUsageBuild = null;
+    }
+
+    private void noteChangedDuringImageUsageBuild(UUID noteId) {
+        if (notesChangedDuringImageUsageBuild != null) {
+            notesChangedDuringImageUsageBuild.add(noteId);
+        }
+    }
+
+    private void updateImageUsage(Note note) {
+        updateImageUsage(note.getId(), note.getReferenceImagePaths());
+    }
+
+    private void updateImageUsage(UUID noteId, List<String> imagePaths) {
+        List<String> indexedPaths = noteImages.getOrDefault(noteId, List.of());
+        if (imagePaths.equals(indexedPaths)) {
+            return;
+        }
+        removeImageUsage(noteId);
+        if (!imagePaths.isEmpty()) {
+            noteImages.put(noteId, List.copyOf(imagePaths));
+            for (String imagePath : imagePaths) {
+                imageUsage.computeIfAbsent(imagePath, key -> new HashSet<>()).add(noteId);
+            }
+        }
+    }
+
+    private void removeImageUsage(UUID noteId) {
+        List<String> indexedPaths = noteImages.remove(noteId);
+        if (indexedPaths == null) {
+            return;
+        }
+        for (String imagePath : indexedPaths) {
+            Set<UUID> noteIds = imageUsage.get(imagePath);
+            if (noteIds != null) {
+                noteIds.remove(noteId);
+                if (noteIds.isEmpty()) {
+                    imageUsage.remove(imagePath);
                 }
             }
         }
-        return usingNotes;
     }
 
     /**
@@ -232,52 +900,326 @@ public class NoteManager {
 
     /**
      * A convenience method to find a note across all boards.
-     * This could be slow if there are many boards and notes.
+     * This is a constant-time lookup in the note index; only the board that holds the note is loaded.
      * @param noteId The ID of the note to find.
      * @return An Optional containing the note if found, otherwise an empty Optional.
      */
     public Optional<Note> findNoteAcrossAllBoards(UUID noteId) {
-        for (Board board : boards.values()) {
-            Optional<Note> note = board.findNoteById(noteId);
-            if (note.isPresent()) {
-                return note;
-            }
-        }
-        return Optional.empty();
+        return findNoteAndBoard(noteId).map(pair -> pair.note);
     }
 
     public Optional<NoteBoardPair> findNoteAndBoard(UUID noteId) {
+        Board board = noteIndex.get(noteId);
+        assert isIndexConsistentWithScan(noteId, board) : "Note index is out of date for note " + noteId;
+        if (board == null) {
+            return Optional.empty();
+        }
+        return board.findNoteById(noteId).map(note -> new NoteBoardPair(note, board));
+    }
+
+    // --- Note index ---
+
+    /**
+     * Adds all notes of a board in memory to the note index.
+     */
+    private void indexBoard(Board board) {
+        for (Note note : board.getAllNotes()) {
+            noteIndex.put(note.getId(), board);
+        }
+    }
+
+    /**
+     * Removes all notes of a board from the note index.
+     * @return The IDs of the removed notes.
+     */
+    private Set<UUID> unindexBoard(Board board) {
+        Set<UUID> noteIds = new HashSet<>();
+        noteIndex.entrySet().removeIf(entry -> {
+            if (entry.getValue() != board) {
+                return false;
+            }
+            noteIds.add(entry.getKey());
+            return true;
+        });
+        return noteIds;
+    }
+
+    /**
+     * Compares a note index entry with a scan of the boards in memory. Only used in assertions (run with -ea),
+     * since it's as slow as the lookup the index replaces.
+     */
+    private boolean isIndexConsistentWithScan(UUID noteId, Board indexedBoard) {
+        if (indexedBoard != null && boards.get(indexedBoard.getName()) != indexedBoard) {
+            return false; // Points to a board that was removed
+        }
         for (Board board : boards.values()) {
-            Optional<Note> noteOpt = board.findNoteById(noteId);
-            if (noteOpt.isPresent()) {
-                return Optional.of(new NoteBoardPair(noteOpt.get(), board));
+            if (board.isResident() && board.findNoteById(noteId).isPresent() != (board == indexedBoard)) {
+                return false;
             }
         }
-        return Optional.empty();
+        return true;
     }
 
     /**
      * Searches for notes across all boards based on a query string.
      * The search is case-insensitive and checks note titles and content.
      * @param query The search term.
-     * @return A map where each key is a matching Note and the value is the Board it belongs to.
+     * @return A map where each key is a matching Note and the value is the Board it belongs to, best match first.
      */
     public Map<Note, Board> searchAllNotes(String query) {
-        Map<Note, Board> results = new HashMap<>();
+        return searchAllNotes(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Searches for notes across all boards, like {@link #searchAllNotes(String)}, returning only the best matches.
+     * The search index narrows the notes down to the few that may match, so only those are checked.
+     * @param query The search term.
+     * @param limit The maximum number of results.
+     * @return A map where each key is a matching Note and the value is the Board it belongs to, best match first.
+     */
+    public Map<Note, Board> searchAllNotes(String query, int limit) {
+        Map<Note, Board> results = new LinkedHashMap<>();
         if (query == null || query.trim().isEmpty()) {
             return results;
         }
-        String lowerCaseQuery = query.toLowerCase();
+        finishSearchIndexBuild();
+        SearchCursor cursor = new SearchCursor(this, query);
+        cursor.candidates = searchIndex.findSubstringCandidates(query);
+        for (NoteBoardPair pair : cursor.nextPage(limit)) {
+            results.put(pair.note, pair.board);
+        }
+        return results;
+    }
+
+    /**
+     * Starts a search across all boards, like {@link #searchAllNotes(String)}, without blocking the calling thread.
+     * The search index is queried on a background thread; once the candidates are known, {@code onReady} is called
+     * on {@code callbackExecutor}, and the results are then read page by page from the returned cursor.
+     * <p>
+     * Must be called on the JavaFX thread. The first search builds the index on the background thread as well; it
+     * reads the boards that aren't loaded from their files, without loading them.
+     * @param query The search term.
+     * @param onReady Called with the cursor when its first page can be read, unless the search was cancelled.
+     * @param callbackExecutor Runs {@code onReady}; this should be the JavaFX thread (e.g. {@code Platform::runLater}).
+     * @return The cursor, which can be cancelled right away, e.g. when the query changes.
+     */
+    public SearchCursor searchAllNotesAsync(String query, Consumer<SearchCursor> onReady, Executor callbackExecutor) {
+        SearchCursor cursor = new SearchCursor(this, query);
+        if (query == null || query.trim().isEmpty()) {
+            cursor.candidates = List.of();
+            callbackExecutor.execute(() -> onReady.accept(cursor));
+            return cursor;
+        }
+        if (searchIndexBuilt) {
+            querySearchIndex(cursor, onReady, callbackExecutor);
+            return cursor;
+        }
+        startSearchIndexBuild();
+        // The callback executor runs on the JavaFX thread, where the build is finished.
+        searchIndexBuild.thenRunAsync(() -> {
+            if (!cursor.isCancelled()) {
+                finishSearchIndexBuild();
+                querySearchIndex(cursor, onReady, callbackExecutor);
+            }
+        }, callbackExecutor);
+        return cursor;
+    }
+
+    private void querySearchIndex(SearchCursor cursor, Consumer<SearchCursor> onReady, Executor callbackExecutor) {
+        SEARCH_EXECUTOR.execute(() -> {
+            if (cursor.isCancelled()) {
+                return; // Superseded before it started
+            }
+            List<UUID> candidates = searchIndex.findSubstringCandidates(cursor.query);
+            callbackExecutor.execute(() -> {
+                if (!cursor.isCancelled()) {
+                    cursor.candidates = candidates;
+                    onReady.accept(cursor);
+                }
+            });
+        });
+    }
+
+    /**
+     * The results of a search, read page by page so a broad query only checks and loads the notes that are shown.
+     * Created by {@link #searchAllNotesAsync}; all methods except {@link #cancel()} must be called on the JavaFX thread.
+     */
+    public static final class SearchCursor {
+        private final NoteManager manager;
+        private final String query;
+        private final String lowerCaseQuery;
+        private volatile boolean cancelled = false;
+        private List<UUID> candidates = List.of(); // The notes that may match, best first; set when the search is ready
+        private int position = 0;
+
+        private SearchCursor(NoteManager manager, String query) {
+            this.manager = manager;
+            this.query = query;
+            this.lowerCaseQuery = NoteSearchIndex.lowerCase(query);
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * Stops the search: a background query that hasn't started is skipped, and one that is running won't
+         * deliver its results.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Checks whether there may be more results. Since candidates are only checked when a page is read,
+         * the next page can turn out to be empty.
+         */
+        public boolean hasMore() {
+            return position < candidates.size();
+        }
 
+        /**
+         * Reads the next matching notes.
+         * @param pageSize The maximum number of notes to return.
+         * @return The next matches, best first; empty once there are no more.
+         */
+        public List<NoteBoardPair> nextPage(int pageSize) {
+            List<NoteBoardPair> page = new ArrayList<>();
+            while (page.size() < pageSize && position < candidates.size()) {
+                UUID noteId = candidates.get(position++);
+                Optional<NoteBoardPair> pair = manager.findNoteAndBoard(noteId);
+                if (pair.isPresent() && containsQuery(pair.get().note, lowerCaseQuery)) {
+                    page.add(pair.get());
+                }
+            }
+            return page;
+        }
+    }
+
+    private static boolean containsQuery(Note note, String lowerCaseQuery) {
+        if (NoteSearchIndex.lowerCase(note.getTitle()).contains(lowerCaseQuery)) {
+            return true;
+        }
+        // Only read the body when the title doesn't match, and drop it again afterwards.
+        boolean bodyWasLoaded = note.isBodyLoaded();
+        String content;
+        try {
+            content = note.getContent();
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage() + ": " + e.getCause().getMessage());
+            return false;
+        }
+        if (!bodyWasLoaded) {
+            note.releaseBody();
+        }
+        return NoteSearchIndex.lowerCase(content).contains(lowerCaseQuery);
+    }
+
+    /**
+     * Starts indexing all notes for full-text search on the search thread, unless that has already started. This
+     * reads every note body once, from copies of the notes, so no board is loaded and no body is kept in memory.
+     * Must be called on the JavaFX thread.
+     */
+    private void startSearchIndexBuild() {
+        if (searchIndexBuilt || searchIndexBuild != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        notesChangedDuringSearchIndexBuild = new HashSet<>();
+        Runnable indexAllNotes = visitAllNotesLater(note -> {
+            try {
+                searchIndex.update(note);
+            } catch (UncheckedIOException e) {
+                System.err.println(e.getMessage() + ": " + e.getCause().getMessage());
+            }
+        });
+        searchIndexBuild = CompletableFuture.runAsync(() -> {
+            indexAllNotes.run();
+            System.out.println("Built search index of " + searchIndex.size() + " note(s) in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }, SEARCH_EXECUTOR);
+    }
+
+    /**
+     * Completes the search index: waits for the background build if it's still running, then re-indexes the notes
+     * that changed while it ran, since it may have read older versions of them. Must be called on the JavaFX thread.
+     */
+    private void finishSearchIndexBuild() {
+        if (searchIndexBuilt) {
+            return;
+        }
+        startSearchIndexBuild();
+        searchIndexBuild.join();
+        for (UUID noteId : notesChangedDuringSearchIndexBuild) {
+            Optional<NoteBoardPair> pair = findNoteAndBoard(noteId);
+            if (pair.isPresent()) {
+                updateSearchIndex(pair.get().note);
+            } else {
+                searchIndex.remove(noteId);
+            }
+        }
+        searchIndexBuilt = true;
+        searchIndexBuild = null;
+        notesChangedDuringSearchIndexBuild = null;
+    }
+
+    private void noteChangedDuringSearchIndexBuild(UUID noteId) {
+        if (notesChangedDuringSearchIndexBuild != null) {
+            notesChangedDuringSearchIndexBuild.add(noteId);
+        }
+    }
+
+    /**
+     * Prepares a pass over every note of every board that can run off the JavaFX thread, e.g. to build an index.
+     * The notes of resident boards are copied now, which is cheap since their bodies are shared or stay on disk;
+     * boards that only have their header are read from their files (and journals) when the pass runs, so they
+     * aren't loaded into the manager. Must be called on the JavaFX thread.
+     * @param visitor Called with each note, on the thread that runs the pass.
+     * @return The pass.
+     */
+    private Runnable visitAllNotesLater(Consumer<Note> visitor) {
+        List<Note> residentNotes = new ArrayList<>();
+        List<Path> unloadedBoardFiles = new ArrayList<>();
         for (Board board : boards.values()) {
-            for (Note note : board.getAllNotes()) {
-                if (note.getTitle().toLowerCase().contains(lowerCaseQuery) ||
-                    note.getContent().toLowerCase().contains(lowerCaseQuery)) {
-                    results.put(note, board);
+            if (board.isResident()) {
+                for (Note note : board.getAllNotes()) {
+                    residentNotes.add(new Note(note));
                 }
+            } else if (boardFiles.get(board) != null) {
+                unloadedBoardFiles.add(boardFiles.get(board));
             }
         }
-        return results;
+        return () -> {
+            residentNotes.forEach(visitor);
+            for (Path boardFile : unloadedBoardFiles) {
+                try {
+                    Board board = readBoardFile(boardFile);
+                    if (board != null) {
+                        BoardJournal.replay(BoardJournal.journalFileFor(boardFile), board);
+                        board.getAllNotes().forEach(visitor);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Failed to read board file " + boardFile + ": " + e.getMessage());
+                }
+            }
+        };
+    }
+
+    private void updateSearchIndex(Note note) {
+        boolean bodyWasLoaded = note.isBodyLoaded();
+        try {
+            searchIndex.update(note);
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage() + ": " + e.getCause().getMessage());
+            return;
+        }
+        if (!bodyWasLoaded) {
+            note.releaseBody(); // Only loaded to be indexed
+        }
     }
 
     public void recordNoteAccess(UUID noteId) {
@@ -292,7 +1234,7 @@ public class NoteManager {
         while (recentNoteIds.size() > MAX_RECENT_NOTES) {
             recentNoteIds.removeLast();
         }
-        markAsDirty();
+        markSettingsDirty();
     }
 
     public List<NoteBoardPair> getRecentNotes() {
@@ -309,15 +1251,8 @@ public class NoteManager {
      * @throws IOException if an I/O error occurs while writing to the file.
      */
     public void saveToFile(String filePath) throws IOException {
-        // Use a Gson instance configured for exporting the entire object graph.
-        Gson exportGson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .setPrettyPrinting()
-                .enableComplexMapKeySerialization()
-                .create();
-
         try (Writer writer = new FileWriter(filePath)) {
-            exportGson.toJson(this, writer);
+            getGson().toJson(this, writer);
             // Note: We don't reset the dirty flag for an export operation.
         }
     }
@@ -334,17 +1269,8 @@ public class NoteManager {
             throw new IOException("Data file not found or is empty, a new one will be created.");
         }
 
-        // Use a Gson instance specifically for importing, which requires all deserializers.
-        Gson importGson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .registerTypeAdapter(Board.class, new BoardDeserializer())
-                .registerTypeAdapter(NoteManager.class, new NoteManagerDeserializer())
-                .setPrettyPrinting()
-                .enableComplexMapKeySerialization()
-                .create();
-
         try (Reader reader = new FileReader(filePath)) {
-            NoteManager manager = importGson.fromJson(reader, NoteManager.class);
+            NoteManager manager = getGson().fromJson(reader, NoteManager.class);
             return manager != null ? manager : new NoteManager();
         } catch (Exception e) {
             // Catch broader exceptions during JSON parsing to prevent application crash on corrupt file
@@ -369,72 +1295,187 @@ public class NoteManager {
     }
 
     /**
-     * Imports a single board from a JSON file.
+     * Imports a single board from a JSON file (or a binary '.board' file; the format is detected from the content).
      * If a board with the same name already exists, it will be renamed.
      * @param file The file to import the board from.
      * @throws IOException if a read or parse error occurs.
      */
     public void importBoard(File file) throws IOException {
-        Gson gson = getGson();
-        try (Reader reader = new FileReader(file)) {
-            Board importedBoard = gson.fromJson(reader, Board.class);
-            if (importedBoard == null || importedBoard.getName() == null) {
-                throw new IOException("The file does not contain a valid board.");
-            }
+        Board importedBoard = readBoardFile(file.toPath());
+        if (importedBoard == null || importedBoard.getName() == null) {
+            throw new IOException("The file does not contain a valid board.");
+        }
+        // The imported file can be outside the data directory, so its note bodies are read now and saved anew.
+        for (Note note : importedBoard.getAllNotes()) {
+            note.detachBody();
+        }
+        importedBoard.setNoteBodyStore(null);
 
-            String boardName = importedBoard.getName();
-            int copyIndex = 1;
-            while (boards.containsKey(boardName)) {
-                boardName = importedBoard.getName() + " (Import " + copyIndex++ + ")";
-            }
-            importedBoard.setName(boardName);
-            boards.put(boardName, importedBoard);
-            markAsDirty();
+        String boardName = importedBoard.getName();
+        int copyIndex = 1;
+        while (boards.containsKey(boardName)) {
+            boardName = importedBoard.getName() + " (Import " + copyIndex++ + ")";
         }
+        importedBoard.setName(boardName);
+        boards.put(boardName, importedBoard);
+        registerBoard(importedBoard);
+        markBoardDirty(importedBoard);
+        publish(new BoardEvent.BoardCreated(importedBoard));
     }
 
     /**
      * Saves the current state of the NoteManager to a directory for persistence.
      * Preferences are saved in 'preferences.json'.
      * Each board is saved as a separate '[board-name].json' file in a 'boards' subdirectory.
+     * Only files whose content changed since the last save are rewritten; the rest are skipped.
+     * This captures and writes in one go on the calling thread; see {@link PersistenceService} for saving
+     * in the background.
      * @param dataDirectory The path to the directory where the state will be saved.
+     * @return How many files were written and how many were skipped.
      * @throws IOException if an I/O error occurs while writing to the files.
      */
-    public void saveToDirectory(Path dataDirectory) throws IOException {
-        Gson gson = getGson();
+    public SaveStats saveToDirectory(Path dataDirectory) throws IOException {
+        SaveSnapshot snapshot = captureSnapshot(dataDirectory);
+        SaveStats stats = writeSnapshot(snapshot);
+        releaseSavedNoteBodies(snapshot);
+        if (snapshot.hasFailures()) {
+            restoreFailedSnapshot(snapshot);
+            throw new IOException("Failed to save " + snapshot.failureCount() + " file(s) to " + dataDirectory);
+        }
+        return stats;
+    }
 
-        // 1. Save settings (currentUser, allTags, recentNoteIds) to preferences.json
-        Path settingsFile = dataDirectory.resolve("preferences.json");
-        NoteManagerSettings settings = new NoteManagerSettings();
-        settings.currentUser = this.currentUser;
-        settings.allTags = this.allTags;
-        settings.recentNoteIds = this.recentNoteIds;
-        settings.galleryImagePaths = this.galleryImagePaths;
+    /**
+     * Captures everything that needs to be saved as an isolated copy and clears the dirty flags.
+     * This must run on the thread that modifies the model (the JavaFX thread); it does no file I/O and only
+     * copies the boards that changed. The returned snapshot can then be written on any thread with
+     * {@link #writeSnapshot(SaveSnapshot)} while the user keeps editing.
+     * @param dataDirectory The path to the directory where the state will be saved.
+     * @return The captured snapshot, possibly with nothing to write.
+     */
+    public SaveSnapshot captureSnapshot(Path dataDirectory) {
+        SaveSnapshot snapshot = new SaveSnapshot(dataDirectory);
 
-        try (Writer writer = new FileWriter(settingsFile.toFile())) {
-            gson.toJson(settings, writer);
+        // 1. Settings (currentUser, allTags, recentNoteIds, gallery)
+        Path settingsFile = dataDirectory.resolve("preferences.json");
+        if (settingsDirty || !Files.exists(settingsFile)) {
+            NoteManagerSettings settings = new NoteManagerSettings();
+            settings.currentUser = this.currentUser;
+            settings.allTags = new HashSet<>(this.allTags);
+            settings.recentNoteIds = new LinkedList<>(this.recentNoteIds);
+            settings.galleryImagePaths = new ArrayList<>(this.galleryImagePaths);
+            snapshot.settings = settings;
+            settingsDirty = false;
+        } else {
+            snapshot.skipped++;
         }
 
-        // 2. Save each board to its own file in a 'boards' subdirectory
+        // 2. Boards that changed, or whose file name changed
         Path boardsDir = dataDirectory.resolve("boards");
-        if (!Files.exists(boardsDir)) {
-            Files.createDirectories(boardsDir);
+        for (Board board : boards.values()) {
+            Path boardFile = boardsDir.resolve(getBoardFileName(board));
+            Path previousFile = boardFiles.get(board);
+
+            // A board that hasn't changed and still maps to the same file doesn't need to be rewritten.
+            if (!dirtyBoards.contains(board) && boardFile.equals(previousFile)) {
+                snapshot.skipped++;
+                continue;
+            }
+            if (!board.ensureResident()) {
+                // Never overwrite a board file with a board whose content couldn't be loaded; try again next time.
+                snapshot.skipped++;
+                continue;
+            }
+
+            BoardJournal journal = journals.get(board);
+            if (journal != null && !journal.getSnapshotFile().equals(boardFile)
+                    && journal.getJournalFile().equals(BoardJournal.journalFileFor(boardFile))) {
+                // Only the file format changed (e.g. JSON to binary); the journal file stays the same.
+                journal.setSnapshotFile(boardFile);
+            } else if (journal == null || !journal.getSnapshotFile().equals(boardFile)) {
+                if (journal != null) {
+                    // The old journal's records are part of this copy; its file goes once the new snapshot exists.
+                    journal.close();
+                    obsoleteBoardFiles.add(journal.getJournalFile());
+                }
+                journal = new BoardJournal(boardFile, 0);
+                journals.put(board, journal);
+            }
+            long includedSequence = journal.beginSnapshot();
+            boolean discardJournal = !journalingEnabled;
+            if (discardJournal) {
+                journal.close();
+                journals.remove(board);
+            }
+            snapshot.boards.add(new BoardWrite(board, board.snapshot(), journal, includedSequence, discardJournal));
+            boardsBeingWritten.add(board);
+            board.setLastModifiedMillis(System.currentTimeMillis());
+
+            dirtyBoards.remove(board);
+            boardFiles.put(board, boardFile);
+            if (previousFile != null && !previousFile.equals(boardFile)) {
+                obsoleteBoardFiles.add(previousFile); // The board was renamed
+            }
         }
 
-        Set<Path> savedBoardFiles = new HashSet<>();
-        for (Board board : boards.values()) {
-            // Sanitize board name to create a valid filename.
-            String fileName = board.getName().replaceAll("[^a-zA-Z0-9.\\-]", "_") + ".json";
-            Path boardFile = boardsDir.resolve(fileName);
-            savedBoardFiles.add(boardFile);
-            try (Writer writer = new FileWriter(boardFile.toFile())) {
-                gson.toJson(board, writer);
+        // 3. Obsolete files that no longer belong to any board are deleted after the new snapshots are written.
+        for (Path oldFile : obsoleteBoardFiles) {
+            if (!boardFiles.containsValue(oldFile)) {
+                snapshot.obsoleteFiles.add(oldFile);
+            }
+        }
+        obsoleteBoardFiles.clear();
+        return snapshot;
+    }
+
+    /**
+     * Writes a captured snapshot to disk. This is safe to call from a background thread: it only touches the
+     * snapshot's private copies. A file that fails to write doesn't stop the others; the failures are recorded
+     * in the snapshot and can be re-marked as dirty with {@link #restoreFailedSnapshot(SaveSnapshot)}.
+     * @param snapshot The snapshot returned by {@link #captureSnapshot(Path)}.
+     * @return How many files were written and how many were skipped.
+     */
+    public SaveStats writeSnapshot(SaveSnapshot snapshot) {
+        int written = 0;
+        Gson gson = getGson();
+
+        if (snapshot.settings != null) {
+            Path settingsFile = snapshot.dataDirectory.resolve("preferences.json");
+            try (Writer writer = new FileWriter(settingsFile.toFile())) {
+                gson.toJson(snapshot.settings, writer);
+                written++;
+            } catch (IOException e) {
+                System.err.println("Failed to save preferences: " + e.getMessage());
+                snapshot.settingsFailed = true;
             }
         }
 
-        // 3. Delete obsolete board files that were loaded but are no longer present.
-        for (Path oldFile : loadedBoardFiles) {
-            if (!savedBoardFiles.contains(oldFile)) {
+        Path boardsDir = snapshot.dataDirectory.resolve("boards");
+        try {
+            Files.createDirectories(boardsDir);
+        } catch (IOException e) {
+            System.err.println("Failed to create boards directory: " + e.getMessage());
+        }
+        for (BoardWrite boardWrite : snapshot.boards) {
+            try {
+                startNewBodyFileIfMostlyUnused(boardWrite.copy());
+                // The new snapshot contains everything journaled up to the captured sequence.
+                boardWrite.journal().writeSnapshot(boardWrite.copy(), boardWrite.includedSequence());
+                if (boardWrite.discardJournal()) {
+                    boardWrite.journal().discard();
+                }
+                boardsBeingWritten.remove(boardWrite.board());
+                written++;
+            } catch (IOException | UncheckedIOException e) {
+                // An UncheckedIOException is a deferred note body that couldn't be read to copy it
+                System.err.println("Failed to save board '" + boardWrite.copy().getName() + "': " + e.getMessage());
+                snapshot.failedBoards.add(boardWrite.board());
+            }
+        }
+
+        // Only delete old files once every new snapshot is safely on disk.
+        if (snapshot.failedBoards.isEmpty()) {
+            for (Path oldFile : snapshot.obsoleteFiles) {
                 try {
                     Files.deleteIfExists(oldFile);
                     System.out.println("Deleted obsolete board file: " + oldFile);
@@ -442,9 +1483,129 @@ public class NoteManager {
                     System.err.println("Failed to delete obsolete board file: " + oldFile);
                 }
             }
+        } else {
+            snapshot.failedDeletions.addAll(snapshot.obsoleteFiles);
+        }
+
+        totalFilesWritten.addAndGet(written);
+        totalFilesSkipped.addAndGet(snapshot.skipped);
+        return new SaveStats(written, snapshot.skipped);
+    }
+
+    /**
+     * Lets the next write of a board start a new note body file if most of the current one holds bodies that are
+     * no longer used (they were replaced by newer versions, or their notes were deleted). Runs on the writer
+     * thread, on the captured copy of the board.
+     */
+    private static void startNewBodyFileIfMostlyUnused(Board copy) {
+        NoteBodyStore bodyStore = copy.getNoteBodyStore();
+        if (bodyStore == null) {
+            return;
+        }
+        long fileSize;
+        try {
+            fileSize = Files.size(bodyStore.getFile());
+        } catch (IOException e) {
+            return; // Not written yet
+        }
+        if (fileSize < BODY_FILE_COMPACTION_MIN_BYTES) {
+            return;
+        }
+        long usedBytes = 0;
+        for (Note note : copy.getAllNotes()) {
+            if (bodyStore.contains(note.getBodyRef())) {
+                usedBytes += note.getBodyRef().length();
+            }
+        }
+        if (usedBytes < fileSize / 2) {
+            System.out.println("Starting a new note body file for board '" + copy.getName() + "' ("
+                    + usedBytes / 1024 + " KB of " + fileSize / 1024 + " KB in use)");
+            copy.setNoteBodyStore(null); // writeBoardFile creates a new one
+        }
+    }
+
+    /**
+     * Hands the locations of the note bodies written in a snapshot to the live notes and drops those bodies from
+     * memory; they are read again from the body file when they are needed. Bodies that changed after the snapshot
+     * was captured are kept. Like {@link #captureSnapshot(Path)}, this must run on the JavaFX thread.
+     * @param snapshot A snapshot that was written, possibly with failures.
+     */
+    public void releaseSavedNoteBodies(SaveSnapshot snapshot) {
+        for (BoardWrite boardWrite : snapshot.boards) {
+            Board board = boardWrite.board();
+            Board copy = boardWrite.copy();
+            if (snapshot.failedBoards.contains(board) || boards.get(board.getName()) != board || !board.isResident()
+                    || !boardWrite.journal().getSnapshotFile().toString().endsWith(BINARY_BOARD_EXTENSION)) {
+                continue; // JSON boards keep their bodies inline
+            }
+            NoteBodyStore replacedStore = board.getNoteBodyStore();
+            board.setNoteBodyStore(copy.getNoteBodyStore());
+            for (Note savedNote : copy.getAllNotes()) {
+                board.findNoteById(savedNote.getId()).ifPresent(note -> {
+                    note.setBodyRef(savedNote.getBodyRef(), savedNote.getBodyModCount());
+                    note.releaseBody();
+                });
+            }
+            if (replacedStore != null && copy.getNoteBodyStore() != null
+                    && !replacedStore.getFile().equals(copy.getNoteBodyStore().getFile())) {
+                retireBodyFile(replacedStore); // The snapshot started a new body file
+            }
+        }
+    }
+
+    /**
+     * Queues a body file that a board no longer uses for deletion with the next save. Notes that were moved to
+     * another board since the snapshot may still read from it, so their bodies are loaded first; if one can't be
+     * read, the file is kept (it's deleted on the next startup instead).
+     */
+    private void retireBodyFile(NoteBodyStore bodyStore) {
+        for (Board board : boards.values()) {
+            if (!board.isResident()) {
+                continue; // Only the header is loaded, so none of its notes read from the file
+            }
+            for (Note note : board.getAllNotes()) {
+                if (!note.isBodyLoaded() && bodyStore.contains(note.getBodyRef())) {
+                    try {
+                        note.loadBody();
+                    } catch (IOException e) {
+                        System.err.println("Keeping note body file " + bodyStore.getFile() + ": " + e.getMessage());
+                        return;
+                    }
+                }
+            }
         }
+        obsoleteBoardFiles.add(bodyStore.getFile());
+        notifyDirty();
+    }
 
-        this.isDirty = false; // Reset dirty flag on successful save
+    /**
+     * Marks everything that failed to write in a snapshot as dirty again, so the next save retries it.
+     * Like {@link #captureSnapshot(Path)}, this must run on the JavaFX thread.
+     * @param snapshot A snapshot that was written with failures.
+     */
+    public void restoreFailedSnapshot(SaveSnapshot snapshot) {
+        if (snapshot.settingsFailed) {
+            markSettingsDirty();
+        }
+        for (Board board : snapshot.failedBoards) {
+            // Skip boards that were deleted while the snapshot was being written.
+            if (boards.get(board.getName()) == board) {
+                markBoardDirty(board);
+            }
+            boardsBeingWritten.remove(board);
+        }
+        obsoleteBoardFiles.addAll(snapshot.failedDeletions);
+        if (!snapshot.failedDeletions.isEmpty()) {
+            notifyDirty();
+        }
+    }
+
+    /**
+     * Sanitizes a board's name to create a valid filename, with the extension of the current board format.
+     */
+    private String getBoardFileName(Board board) {
+        String extension = binaryFormatEnabled ? BINARY_BOARD_EXTENSION : JSON_BOARD_EXTENSION;
+        return board.getName().replaceAll("[^a-zA-Z0-9.\\-]", "_") + extension;
     }
 
     /**
@@ -476,33 +1637,257 @@ public class NoteManager {
         // 2. Load boards from 'boards' subdirectory
         Path boardsDir = dataDirectory.resolve("boards");
         if (Files.exists(boardsDir) && Files.isDirectory(boardsDir)) {
+            List<Path> files;
             try (Stream<Path> stream = Files.list(boardsDir)) {
-                stream.filter(file -> file.toString().endsWith(".json"))
-                        .forEach(boardFile -> {
-                            try (Reader reader = new FileReader(boardFile.toFile())) {
-                                Board board = gson.fromJson(reader, Board.class);
-                                manager.loadedBoardFiles.add(boardFile); // Track loaded files
-                                if (board != null && board.getName() != null) {
-                                    manager.boards.put(board.getName(), board);
-                                }
-                            } catch (Exception e) {
-                                System.err.println("Failed to load or parse board file: " + boardFile + ". " + e.getMessage());
-                            }
-                        });
+                // Sorted, so the merge below doesn't depend on the order the file system lists them in.
+                files = stream.filter(file -> file.toString().endsWith(JSON_BOARD_EXTENSION)
+                        || file.toString().endsWith(BINARY_BOARD_EXTENSION)).sorted().toList();
+            }
+
+            // Parse the files concurrently, then merge them one by one in file order.
+            long start = System.nanoTime();
+            Map<Path, Long> lastModified = new HashMap<>();
+            Map<Board, Path> bodyFiles = new IdentityHashMap<>();
+            boolean allParsed = true;
+            for (LoadedBoardFile loaded : parseBoardFiles(files)) {
+                if (loaded.error() != null) {
+                    System.err.println("Failed to load or parse board file: " + loaded.file() + ". " + loaded.error().getMessage());
+                    allParsed = false;
+                    continue;
+                }
+                Board board = loaded.board();
+                Board.Header header = loaded.fileHeader() != null ? loaded.fileHeader().header() : null;
+                if (header != null && header.name() != null) {
+                    // Only the header was read; the content is loaded when the board is first used.
+                    board = new Board(header.name(), List.of(), false);
+                    if (loaded.fileHeader().bodyFileName() != null) {
+                        bodyFiles.put(board, loaded.file().resolveSibling(loaded.fileHeader().bodyFileName()));
+                    }
+                } else if (board != null && board.getNoteBodyStore() != null) {
+                    bodyFiles.put(board, board.getNoteBodyStore().getFile());
+                }
+                if (board == null || board.getName() == null) {
+                    manager.obsoleteBoardFiles.add(loaded.file());
+                    continue;
+                }
+                Board previous = manager.boards.get(board.getName());
+                if (previous != null) {
+                    // Two files claim the same board name (e.g. a format conversion was interrupted before the
+                    // old file was deleted). The most recently written one wins; the other is deleted on save.
+                    Path previousFile = manager.boardFiles.get(previous);
+                    if (lastModified.getOrDefault(previousFile, 0L) > loaded.lastModified()) {
+                        manager.obsoleteBoardFiles.add(loaded.file());
+                        continue;
+                    }
+                    previous.setChangeListener(null);
+                    manager.unindexBoard(previous);
+                    manager.obsoleteBoardFiles.add(manager.boardFiles.remove(previous));
+                    BoardJournal previousJournal = manager.journals.remove(previous);
+                    if (previousJournal != null) {
+                        previousJournal.close();
+                    }
+                }
+                manager.boards.put(board.getName(), board);
+                if (header != null) {
+                    manager.deferBoardContent(board, new Board.Header(board.getName(), header.memberCount(),
+                            header.columnCount(), header.noteCount(), loaded.lastModified()));
+                    for (UUID noteId : loaded.fileHeader().noteIds()) {
+                        manager.noteIndex.put(noteId, board);
+                    }
+                } else {
+                    manager.journals.put(board, new BoardJournal(loaded.file(), loaded.lastSequence()));
+                    board.setLastModifiedMillis(loaded.lastModified());
+                }
+                manager.registerBoard(board);
+                manager.boardFiles.put(board, loaded.file()); // Track loaded files
+                lastModified.put(loaded.file(), loaded.lastModified());
+            }
+            System.out.println("Loaded " + manager.boards.size() + " board(s) in " + (System.nanoTime() - start) / 1_000_000 + " ms ("
+                    + manager.residentBoards.size() + " fully, the rest header-only)");
+
+            // Note body files that no board refers to any more (replaced by a newer file, or left by an interrupted
+            // save) are deleted on the next save. If a board failed to load, its body file is unknown, so keep all.
+            if (allParsed) {
+                Set<Path> usedBodyFiles = new HashSet<>();
+                for (Board board : manager.boards.values()) {
+                    Path bodyFile = bodyFiles.get(board);
+                    if (bodyFile != null) {
+                        usedBodyFiles.add(bodyFile);
+                    }
+                }
+                try (Stream<Path> stream = Files.list(boardsDir)) {
+                    stream.filter(NoteBodyStore::isBodyFile)
+                            .filter(file -> !usedBodyFiles.contains(file))
+                            .forEach(manager.obsoleteBoardFiles::add);
+                }
             }
         }
+
+        // Nothing has changed yet; the loaded state matches what is on disk.
+        manager.settingsDirty = false;
+        manager.dirtyBoards.clear();
         return manager;
     }
 
+    // The result of parsing one board file on a loader thread: either the full board, or only its header.
+    private record LoadedBoardFile(Path file, Board board, BoardBinaryCodec.FileHeader fileHeader, long lastSequence,
+                                   long lastModified, Exception error) {
+    }
+
+    /**
+     * Parses board files (and replays their journals) on a bounded pool of worker threads.
+     * A file that fails to parse only affects its own result.
+     * @param files The board files to parse.
+     * @return One result per file, in the same order as the given files.
+     */
+    private static List<LoadedBoardFile> parseBoardFiles(List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            return List.of();
+        }
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService loaders = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "board-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<LoadedBoardFile>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(loaders.submit(() -> parseBoardFile(file)));
+            }
+            List<LoadedBoardFile> results = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new LoadedBoardFile(files.get(i), null, null, 0, 0, new IOException(e.getCause())));
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading boards.", e);
+        } finally {
+            loaders.shutdownNow();
+        }
+    }
+
+    private static LoadedBoardFile parseBoardFile(Path boardFile) {
+        long start = System.nanoTime();
+        try {
+            long lastModified = Files.getLastModifiedTime(boardFile).toMillis();
+            Path journalFile = BoardJournal.journalFileFor(boardFile);
+            if (!Files.exists(journalFile) || Files.size(journalFile) == 0) {
+                // Nothing to replay, so the header is enough until the board is opened.
+                BoardBinaryCodec.FileHeader header = readBoardFileHeader(boardFile);
+                if (header != null) {
+                    System.out.println("Read header of board file " + boardFile.getFileName() + " in "
+                            + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    return new LoadedBoardFile(boardFile, null, header, 0, lastModified, null);
+                }
+            }
+            Board board = readBoardFile(boardFile);
+            long lastSequence = 0;
+            if (board != null && board.getName() != null) {
+                // Re-apply edits that were journaled after the snapshot was written.
+                lastSequence = BoardJournal.replay(journalFile, board);
+            }
+            System.out.println("Parsed board file " + boardFile.getFileName() + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return new LoadedBoardFile(boardFile, board, null, lastSequence, lastModified, null);
+        } catch (Exception e) {
+            return new LoadedBoardFile(boardFile, null, null, 0, 0, e);
+        }
+    }
+
+    /**
+     * Reads only the header of a board snapshot file, without materializing its notes.
+     * @param boardFile The file to read.
+     * @return The header (with a last-modified time of 0) and the name of the note body file, if any, or null if the file has no header to read
+     *         (it is empty, or a binary file from before headers were added) and has to be read in full.
+     * @throws IOException if the file could not be read.
+     */
+    static BoardBinaryCodec.FileHeader readBoardFileHeader(Path boardFile) throws IOException {
+        if (BoardBinaryCodec.isBinaryBoardFile(boardFile)) {
+            try (InputStream in = Files.newInputStream(boardFile)) {
+                return BoardBinaryCodec.readFileHeader(in);
+            }
+        }
+        try (JsonReader reader = new JsonReader(new FileReader(boardFile.toFile()))) {
+            if (Files.size(boardFile) == 0 || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return null;
+            }
+            List<UUID> noteIds = new ArrayList<>();
+            Board.Header header = BoardJsonAdapters.readHeader(reader, noteIds);
+            return new BoardBinaryCodec.FileHeader(header, null, noteIds);
+        }
+    }
+
+    /**
+     * Reads a single board snapshot file.
+     * @param boardFile The file to read.
+     * @return The board, or null if the file is empty.
+     * @throws IOException if the file could not be read.
+     */
+    static Board readBoardFile(Path boardFile) throws IOException {
+        // Detect the format from the content, so a file in either format can be read whatever its name.
+        if (BoardBinaryCodec.isBinaryBoardFile(boardFile)) {
+            try (InputStream in = Files.newInputStream(boardFile)) {
+                return BoardBinaryCodec.read(in, boardFile);
+            }
+        }
+        try (Reader reader = new FileReader(boardFile.toFile())) {
+            return getGson().fromJson(reader, Board.class);
+        }
+    }
+
+    /**
+     * Writes a single board snapshot file. The board is written to a temporary file first and then moved
+     * into place, so a crash mid-write never leaves a half-written board behind.
+     * Files ending in '.board' are written in the binary format, all others as JSON.
+     * @param board The board to write.
+     * @param boardFile The destination file.
+     * @throws IOException if the file could not be written.
+     */
+    static void writeBoardFile(Board board, Path boardFile) throws IOException {
+        Path tempFile = boardFile.resolveSibling(boardFile.getFileName() + ".tmp");
+        if (boardFile.toString().endsWith(BINARY_BOARD_EXTENSION)) {
+            NoteBodyStore bodyStore = board.getNoteBodyStore();
+            if (bodyStore == null || !bodyStore.getFile().getParent().equals(boardFile.getParent())) {
+                bodyStore = NoteBodyStore.createFor(boardFile);
+                board.setNoteBodyStore(bodyStore);
+            }
+            // The appended bodies are forced to disk before the new board file that refers to them replaces the old one.
+            try (NoteBodyStore.Appender bodies = bodyStore.openAppender();
+                 OutputStream out = Files.newOutputStream(tempFile)) {
+                BoardBinaryCodec.write(board, out, bodies);
+            }
+        } else {
+            try (Writer writer = new FileWriter(tempFile.toFile())) {
+                getGson().toJson(board, writer);
+            }
+        }
+        try {
+            Files.move(tempFile, boardFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, boardFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     // --- GSON Configuration ---
 
+    /**
+     * Gets a shared Gson instance without pretty printing, used for single-line journal records.
+     */
+    static Gson getCompactGson() {
+        return COMPACT_GSON;
+    }
+
+    /**
+     * Gets the shared pretty-printing Gson instance used for board files, preferences and exports.
+     */
     private static Gson getGson() {
-        return new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .registerTypeAdapter(Board.class, new BoardDeserializer())
-                .setPrettyPrinting()
-                .enableComplexMapKeySerialization()
-                .create();
+        return GSON;
     }
 
     /**
@@ -525,109 +1910,91 @@ public class NoteManager {
     }
 
     /**
-     * Custom deserializer for Board to correctly initialize the final 'columns' field as an EnumMap.
+     * Streaming adapter for the whole manager, used for single-file export and import.
+     * The format matches the old reflective one: boards by name, recent note IDs, current user, tags and gallery.
      */
-    private static class BoardDeserializer implements JsonDeserializer<Board> {
-        @Override
-        public Board deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-            JsonObject jsonObject = json.getAsJsonObject();
-
-            String name = jsonObject.get("name").getAsString();
-            Type userListType = new TypeToken<List<User>>() {}.getType();
-            List<User> members = context.deserialize(jsonObject.get("members"), userListType);
-
-            Board board = new Board(name, members != null ? members : new ArrayList<>(), false);
-
-            // --- NEW: Robust Deserialization to handle old and new formats ---
-            if (jsonObject.has("columns") && jsonObject.get("columns").isJsonArray()) {
-                // This is the NEW format with a List<Column>
-                Type columnListType = new TypeToken<List<Column>>() {}.getType();
-                List<Column> deserializedColumns = context.deserialize(jsonObject.get("columns"), columnListType);
-                if (deserializedColumns != null) {
-                    board.setColumns(deserializedColumns);
-                }
+    private static class NoteManagerAdapter extends TypeAdapter<NoteManager> {
+        private final BoardJsonAdapters.BoardAdapter boardAdapter = new BoardJsonAdapters.BoardAdapter();
+        private final BoardJsonAdapters.UserAdapter userAdapter = new BoardJsonAdapters.UserAdapter();
 
-                Type noteMapType = new TypeToken<Map<UUID, Note>>() {}.getType();
-                Map<UUID, Note> deserializedNotes = context.deserialize(jsonObject.get("notes"), noteMapType);
-                if (deserializedNotes != null) {
-                    // Directly populate the board's internal map to avoid the side effects of addNote(),
-                    // which would add duplicate note IDs to the already-deserialized columns.
-                    board.setNotesInternal(deserializedNotes);
-                }
-            } else if (jsonObject.has("columns") && jsonObject.get("columns").isJsonObject()) {
-                // This is the OLD format with an EnumMap<Status, List<Note>>
-                // We will migrate it on the fly.
-                System.out.println("Migrating old board format for: " + name);
-
-                // Manually create columns based on old statuses
-                Column todoCol = new Column("To Do");
-                Column inProgressCol = new Column("In Progress");
-                Column doneCol = new Column("Done");
-                Column archivedCol = new Column("Archived");
-                board.setColumns(List.of(todoCol, inProgressCol, doneCol, archivedCol));
-
-                // Deserialize the old structure
-                Type oldColumnMapType = new TypeToken<Map<String, List<Note>>>() {}.getType();
-                Map<String, List<Note>> oldColumns = context.deserialize(jsonObject.get("columns"), oldColumnMapType);
-
-                // A helper map to link old status names to new column IDs
-                Map<String, UUID> statusToColId = Map.of(
-                        "TODO", todoCol.getId(),
-                        "IN_PROGRESS", inProgressCol.getId(),
-                        "DONE", doneCol.getId(),
-                        "ARCHIVED", archivedCol.getId()
-                );
-
-                // Add all notes from the old structure to the new board structure
-                oldColumns.forEach((status, notes) -> notes.forEach(note -> {
-                    note.setColumnId(statusToColId.get(status));
-                    board.addNote(note);
-                }));
+        @Override
+        public void write(JsonWriter out, NoteManager manager) throws IOException {
+            out.beginObject();
+            out.name("boards").beginObject();
+            for (Map.Entry<String, Board> entry : manager.boards.entrySet()) {
+                out.name(entry.getKey());
+                boardAdapter.write(out, entry.getValue());
+            }
+            out.endObject();
+            out.name("recentNoteIds").beginArray();
+            for (UUID noteId : manager.recentNoteIds) {
+                out.value(noteId.toString());
+            }
+            out.endArray();
+            out.name("currentUser");
+            userAdapter.write(out, manager.currentUser);
+            out.name("allTags").beginArray();
+            for (String tag : manager.allTags) {
+                out.value(tag);
             }
-            return board;
+            out.endArray();
+            out.name("galleryImagePaths").beginArray();
+            for (String imagePath : manager.galleryImagePaths) {
+                out.value(imagePath);
+            }
+            out.endArray();
+            out.endObject();
         }
-    }
 
-    /**
-     * Custom deserializer for NoteManager to correctly initialize final collection fields.
-     */
-    private static class NoteManagerDeserializer implements JsonDeserializer<NoteManager> {
         @Override
-        public NoteManager deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+        public NoteManager read(JsonReader in) throws IOException {
             NoteManager manager = new NoteManager();
-            JsonObject jsonObject = json.getAsJsonObject();
-
-            if (jsonObject.has("boards")) {
-                Type boardMapType = new TypeToken<Map<String, Board>>() {}.getType();
-                Map<String, Board> deserializedBoards = context.deserialize(jsonObject.get("boards"), boardMapType);
-                if (deserializedBoards != null) {
-                    manager.boards.putAll(deserializedBoards);
-                }
-            }
-
-            if (jsonObject.has("recentNoteIds")) {
-                Type uuidListType = new TypeToken<List<UUID>>() {}.getType();
-                List<UUID> deserializedIds = context.deserialize(jsonObject.get("recentNoteIds"), uuidListType);
-                if (deserializedIds != null) {
-                    manager.recentNoteIds.addAll(deserializedIds);
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
                 }
-            }
-
-            if (jsonObject.has("allTags")) {
-                Type stringSetType = new TypeToken<Set<String>>() {}.getType();
-                Set<String> deserializedTags = context.deserialize(jsonObject.get("allTags"), stringSetType);
-                if (deserializedTags != null) {
-                    manager.allTags.addAll(deserializedTags);
-                }
-            }
-
-            if (jsonObject.has("currentUser")) {
-                User user = context.deserialize(jsonObject.get("currentUser"), User.class);
-                if (user != null) {
-                    manager.setCurrentUser(user);
+                switch (field) {
+                    case "boards" -> {
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            String boardName = in.nextName();
+                            Board board = boardAdapter.nullSafe().read(in);
+                            if (board != null) {
+                                manager.boards.put(boardName, board);
+                                manager.registerBoard(board);
+                            }
+                        }
+                        in.endObject();
+                    }
+                    case "recentNoteIds" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            manager.recentNoteIds.add(UUID.fromString(in.nextString()));
+                        }
+                        in.endArray();
+                    }
+                    case "allTags" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            manager.allTags.add(in.nextString());
+                        }
+                        in.endArray();
+                    }
+                    case "galleryImagePaths" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            manager.galleryImagePaths.add(in.nextString());
+                        }
+                        in.endArray();
+                    }
+                    case "currentUser" -> manager.setCurrentUser(userAdapter.read(in));
+                    default -> in.skipValue();
                 }
             }
-
+            in.endObject();
             return manager;
         }
     }
@@ -0,0 +1,314 @@
+package com.tarek.notetool;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The order of the notes in a column: a list of note IDs where inserting, removing and finding the position of an
+ * ID take logarithmic time instead of shifting or scanning the whole list.
+ * <p>
+ * The IDs are kept in a randomized balanced tree (a treap) where every node knows the size of its subtree, so a
+ * position is found by walking down from the root, and the position of an ID by walking up from its node, which is
+ * looked up in a map. Each ID can only be in the list once.
+ */
+final class NoteOrder extends AbstractList<UUID> {
+
+    private static final class Node {
+        UUID id;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        Node parent;
+        int size = 1;
+
+        Node(UUID id) {
+            this.id = id;
+        }
+    }
+
+    private Node root;
+    private final Map<UUID, Node> nodes = new HashMap<>();
+
+    NoteOrder() {
+    }
+
+    /**
+     * Creates a list with the given IDs, in order. Repeated IDs (e.g. from a damaged file) are only kept once.
+     */
+    NoteOrder(Collection<UUID> ids) {
+        for (UUID id : ids) {
+            if (!nodes.containsKey(id)) {
+                add(id);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public UUID get(int index) {
+        return nodeAt(index).id;
+    }
+
+    @Override
+    public UUID set(int index, UUID id) {
+        Node node = nodeAt(index);
+        UUID previous = node.id;
+        if (!previous.equals(id)) {
+            checkNotContained(id);
+            nodes.remove(previous);
+            node.id = id;
+            nodes.put(id, node);
+        }
+        return previous;
+    }
+
+    /**
+     * Inserts an ID at a position.
+     * @throws IllegalArgumentException if the ID is already in the list.
+     */
+    @Override
+    public void add(int index, UUID id) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        checkNotContained(id);
+        Node node = new Node(id);
+        Node[] parts = split(root, index);
+        root = merge(merge(parts[0], node), parts[1]);
+        root.parent = null;
+        nodes.put(id, node);
+        modCount++;
+    }
+
+    @Override
+    public UUID remove(int index) {
+        Node node = nodeAt(index);
+        nodes.remove(node.id);
+        unlink(node);
+        return node.id;
+    }
+
+    @Override
+    public boolean remove(Object id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object id) {
+        return nodes.containsKey(id);
+    }
+
+    @Override
+    public int indexOf(Object id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            return -1;
+        }
+        int index = size(node.left);
+        for (Node child = node; child.parent != null; child = child.parent) {
+            if (child == child.parent.right) {
+                index += size(child.parent.left) + 1;
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public int lastIndexOf(Object id) {
+        return indexOf(id); // IDs are unique
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        nodes.clear();
+        modCount++;
+    }
+
+    @Override
+    public Iterator<UUID> iterator() {
+        return new Iterator<>() {
+            private Node next = first(root);
+            private Node last;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public UUID next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = successor(next);
+                return last.id;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                nodes.remove(last.id);
+                unlink(last); // The successor stays a node of the tree, so iteration can go on from it
+                last = null;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    private void checkNotContained(UUID id) {
+        Objects.requireNonNull(id, "id");
+        if (nodes.containsKey(id)) {
+            throw new IllegalArgumentException("Note " + id + " is already in this column.");
+        }
+    }
+
+    private Node nodeAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Takes a node out of the tree: its subtrees are merged and take its place.
+     */
+    private void unlink(Node node) {
+        Node parent = node.parent;
+        Node merged = merge(node.left, node.right);
+        if (merged != null) {
+            merged.parent = parent;
+        }
+        if (parent == null) {
+            root = merged;
+        } else if (parent.left == node) {
+            parent.left = merged;
+        } else {
+            parent.right = merged;
+        }
+        for (Node ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.size--;
+        }
+        node.left = node.right = node.parent = null;
+        modCount++;
+    }
+
+    /**
+     * Splits a tree into the first {@code count} nodes and the rest.
+     */
+    private static Node[] split(Node tree, int count) {
+        if (tree == null) {
+            return new Node[] {null, null};
+        }
+        Node[] parts;
+        if (size(tree.left) < count) {
+            parts = split(tree.right, count - size(tree.left) - 1);
+            tree.right = parts[0];
+            setParent(parts[0], tree);
+            parts[0] = tree;
+        } else {
+            parts = split(tree.left, count);
+            tree.left = parts[1];
+            setParent(parts[1], tree);
+            parts[1] = tree;
+        }
+        updateSize(tree);
+        setParent(parts[0], null);
+        setParent(parts[1], null);
+        return parts;
+    }
+
+    /**
+     * Joins two trees, all nodes of the first coming before those of the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.right.parent = first;
+            updateSize(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        second.left.parent = second;
+        updateSize(second);
+        return second;
+    }
+
+    private static Node first(Node tree) {
+        if (tree == null) {
+            return null;
+        }
+        while (tree.left != null) {
+            tree = tree.left;
+        }
+        return tree;
+    }
+
+    private static Node successor(Node node) {
+        if (node.right != null) {
+            return first(node.right);
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private static int size(Node tree) {
+        return tree == null ? 0 : tree.size;
+    }
+
+    private static void updateSize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static void setParent(Node node, Node parent) {
+        if (node != null) {
+            node.parent = parent;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.tarek.notetool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * The full-text index over all notes, used by {@link NoteManager#searchAllNotes}. It has two parts:
+ * <ul>
+ *     <li>A {@link TrigramIndex} each over the titles and the contents, which narrows a substring search down to the
+ *     few notes that may contain the query (see {@link #findSubstringCandidates}).</li>
+ *     <li>An inverted word index that ranks notes with BM25. Every note is split into lower-case words (runs of
+ *     letters and digits) from its title, tags, content, comments and goal descriptions; words in the title and tags
+ *     count more than words in the body. Each query word matches the words that start with it, and a note matches
+ *     when it contains all query words (see {@link #search}).</li>
+ * </ul>
+ * <p>
+ * The index is thread-safe: it's updated on the JavaFX thread and may be queried on a background thread.
+ * <p>
+ * The index is updated one note at a time. A note whose body isn't loaded is only re-indexed from its card data
+ * (title and tags); the words of its body are kept from when it was last indexed with its body.
+ */
+final class NoteSearchIndex {
+
+    // BM25 parameters: how quickly repeated words stop adding to the score, and how much long notes are penalized.
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+    // Words that only start with a query word score less than the word itself.
+    private static final double PREFIX_MATCH_WEIGHT = 0.5;
+    // How many substring candidates are ordered by rank; the rest of a very broad result follows unranked.
+    private static final int MAX_RANKED_CANDIDATES = 1000;
+
+    /**
+     * One indexed note. Notes are numbered so the postings and the scoring can use plain int arrays.
+     */
+    private static final class Document {
+        final UUID noteId;
+        final int number;
+        // The words of the card and of the body, with how often each occurs (already weighted by field).
+        String[] cardTerms = new String[0];
+        int[] cardFrequencies = new int[0];
+        String[] bodyTerms = new String[0];
+        int[] bodyFrequencies = new int[0];
+        int length;
+        // The posting lists the note is in, and its position in each, so it's removed without searching the lists.
+        PostingList[] postedLists = new PostingList[0];
+        int[] postedSlots = new int[0];
+
+        Document(UUID noteId, int number) {
+            this.noteId = noteId;
+            this.number = number;
+        }
+    }
+
+    /**
+     * The notes that contain one word, in no particular order. Each posting also records where it is listed in its
+     * note's {@link Document#postedLists}, so a removal can update the note whose posting takes the freed slot.
+     */
+    private static final class PostingList {
+        final String term;
+        int[] documents = new int[2];
+        int[] frequencies = new int[2];
+        int[] owners = new int[2];
+        int size;
+
+        PostingList(String term) {
+            this.term = term;
+        }
+
+        /**
+         * @return The slot of the new posting.
+         */
+        int add(int document, int frequency, int owner) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                owners = Arrays.copyOf(owners, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            owners[size] = owner;
+            return size++;
+        }
+    }
+
+    // The words in the index that start with one query word.
+    private record QueryTermMatches(String queryTerm, Map<String, PostingList> terms) {
+        int postingCount() {
+            int count = 0;
+            for (PostingList notes : terms.values()) {
+                count += notes.size;
+            }
+            return count;
+        }
+    }
+
+    // Sorted, so all words with a given prefix are found with a range lookup.
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    // The same lists by word, for the much more frequent exact lookups while indexing.
+    private final Map<String, PostingList> postingsByTerm = new HashMap<>();
+    private final Map<UUID, Document> documents = new HashMap<>();
+    private final List<Document> documentsByNumber = new ArrayList<>();
+    private final List<Integer> freeNumbers = new ArrayList<>();
+    private long totalLength = 0;
+    private final TrigramIndex titleTrigrams = new TrigramIndex();
+    private final TrigramIndex contentTrigrams = new TrigramIndex();
+
+    synchronized int size() {
+        return documents.size();
+    }
+
+    /**
+     * Adds a note to the index or re-indexes it after an edit.
+     * @param note The note. Its body is only read if it is already loaded or the note isn't indexed yet.
+     */
+    synchronized void update(Note note) {
+        Document document = documents.get(note.getId());
+        titleTrigrams.update(note.getId(), lowerCase(note.getTitle()));
+        Map<String, Integer> bodyTerms = new HashMap<>();
+        if (document == null || note.isBodyLoaded()) {
+            contentTrigrams.update(note.getId(), lowerCase(note.getContent()));
+            addTerms(bodyTerms, note.getContent(), 1);
+            for (Note.Comment comment : note.getComments()) {
+                addTerms(bodyTerms, comment.getText(), 1);
+            }
+            addGoalTerms(bodyTerms, note.getGoals());
+        } else {
+            for (int i = 0; i < document.bodyTerms.length; i++) {
+                bodyTerms.put(document.bodyTerms[i], document.bodyFrequencies[i]);
+            }
+        }
+        Map<String, Integer> cardTerms = new HashMap<>();
+        addTerms(cardTerms, note.getTitle(), TITLE_WEIGHT);
+        for (String tag : note.getTags()) {
+            addTerms(cardTerms, tag, TAG_WEIGHT);
+        }
+
+        if (document != null) {
+            if (sameTerms(cardTerms, document.cardTerms, document.cardFrequencies)
+                    && sameTerms(bodyTerms, document.bodyTerms, document.bodyFrequencies)) {
+                return;
+            }
+            unpost(document);
+        } else {
+            int number = freeNumbers.isEmpty() ? documentsByNumber.size() : freeNumbers.remove(freeNumbers.size() - 1);
+            document = new Document(note.getId(), number);
+            documents.put(note.getId(), document);
+            if (number == documentsByNumber.size()) {
+                documentsByNumber.add(document);
+            } else {
+                documentsByNumber.set(number, document);
+            }
+        }
+        post(document, cardTerms, bodyTerms);
+    }
+
+    /**
+     * Removes a note from the index.
+     */
+    synchronized void remove(UUID noteId) {
+        titleTrigrams.remove(noteId);
+        contentTrigrams.remove(noteId);
+        Document document = documents.remove(noteId);
+        if (document != null) {
+            unpost(document);
+            documentsByNumber.set(document.number, null);
+            freeNumbers.add(document.number);
+        }
+    }
+
+    /**
+     * Removes several notes from the index, e.g. all notes of a deleted board.
+     */
+    synchronized void removeAll(Collection<UUID> noteIds) {
+        noteIds.forEach(this::remove);
+    }
+
+    /**
+     * Finds the notes whose title or content may contain a query, ignoring case. This includes every note that does,
+     * but may include some that don't; the caller checks each candidate with {@link #lowerCase} and
+     * {@link String#contains}.
+     * @param query The query; it's matched as a whole, including spaces and punctuation.
+     * @return The candidates, in the order to show them: the (up to {@value #MAX_RANKED_CANDIDATES}) best notes that
+     * also contain the query's words, best match first, then the remaining title candidates, then the remaining
+     * content candidates.
+     */
+    synchronized List<UUID> findSubstringCandidates(String query) {
+        String lowerCaseQuery = lowerCase(query);
+        Set<UUID> titleCandidates = titleTrigrams.candidates(lowerCaseQuery);
+        Set<UUID> contentCandidates = contentTrigrams.candidates(lowerCaseQuery);
+        Set<UUID> candidates = new LinkedHashSet<>();
+        int rankedCount = Math.min(MAX_RANKED_CANDIDATES, titleCandidates.size() + contentCandidates.size());
+        for (UUID noteId : search(query, rankedCount)) {
+            if (titleCandidates.contains(noteId) || contentCandidates.contains(noteId)) {
+                candidates.add(noteId);
+            }
+        }
+        candidates.addAll(titleCandidates);
+        candidates.addAll(contentCandidates);
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * Lower-cases text the way substring search compares it.
+     * @return The lower-case text, or an empty string for null.
+     */
+    static String lowerCase(String text) {
+        return text != null ? text.toLowerCase() : "";
+    }
+
+    /**
+     * Finds the notes that contain all words of a query.
+     * @param query The query; each word matches the words starting with it, ignoring case.
+     * @param limit The maximum number of results.
+     * @return The IDs of the matching notes, best match first.
+     */
+    synchronized List<UUID> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty() || documents.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        double averageLength = Math.max(1.0, (double) totalLength / documents.size());
+
+        // Score the words that match fewest notes first, so later words only have to check the remaining candidates.
+        List<QueryTermMatches> matches = new ArrayList<>();
+        for (String queryTerm : queryTerms) {
+            Map<String, PostingList> terms = postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false);
+            if (terms.isEmpty()) {
+                return List.of();
+            }
+            matches.add(new QueryTermMatches(queryTerm, terms));
+        }
+        matches.sort(Comparator.comparingInt(QueryTermMatches::postingCount));
+
+        int capacity = documentsByNumber.size();
+        double[] scores = new double[capacity];
+        int[] matchedTerms = new int[capacity]; // How many query words each note matched so far
+        double[] termScores = new double[capacity];
+        int[] candidates = new int[0];
+        int candidateCount = 0;
+        for (int round = 0; round < matches.size(); round++) {
+            QueryTermMatches match = matches.get(round);
+            int[] matched = new int[16];
+            int matchedCount = 0;
+            for (Map.Entry<String, PostingList> entry : match.terms().entrySet()) {
+                PostingList notes = entry.getValue();
+                double idf = Math.log(1 + (documents.size() - notes.size + 0.5) / (notes.size + 0.5));
+                double weight = entry.getKey().equals(match.queryTerm()) ? 1.0 : PREFIX_MATCH_WEIGHT;
+                for (int i = 0; i < notes.size; i++) {
+                    int document = notes.documents[i];
+                    if (matchedTerms[document] < round) {
+                        continue; // Missed an earlier query word
+                    }
+                    int frequency = notes.frequencies[i];
+                    int length = documentsByNumber.get(document).length;
+                    double score = weight * idf * frequency * (K1 + 1)
+                            / (frequency + K1 * (1 - B + B * length / averageLength));
+                    // A query word counts once per note, with its best matching word.
+                    if (matchedTerms[document] == round) {
+                        matchedTerms[document] = round + 1;
+                        termScores[document] = score;
+                        if (matchedCount == matched.length) {
+                            matched = Arrays.copyOf(matched, matchedCount * 2);
+                        }
+                        matched[matchedCount++] = document;
+                    } else if (score > termScores[document]) {
+                        termScores[document] = score;
+                    }
+                }
+            }
+            for (int i = 0; i < matchedCount; i++) {
+                scores[matched[i]] += termScores[matched[i]];
+            }
+            candidates = matched;
+            candidateCount = matchedCount;
+            if (candidateCount == 0) {
+                return List.of();
+            }
+        }
+
+        // Keep only the best results in a small heap instead of sorting every match.
+        Comparator<Integer> byScore = Comparator.comparingDouble(document -> scores[document]);
+        PriorityQueue<Integer> best = new PriorityQueue<>(byScore);
+        for (int i = 0; i < candidateCount; i++) {
+            int document = candidates[i];
+            if (best.size() < limit) {
+                best.add(document);
+            } else if (scores[document] > scores[best.peek()]) {
+                best.poll();
+                best.add(document);
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort(byScore.reversed());
+        List<UUID> results = new ArrayList<>(ranked.size());
+        for (int document : ranked) {
+            results.add(documentsByNumber.get(document).noteId);
+        }
+        return results;
+    }
+
+    /**
+     * Splits text into the words the index uses: lower-case runs of letters and digits.
+     * @return The words, in order, with duplicates.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean wordChar = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lowerCase.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private static void addGoalTerms(Map<String, Integer> terms, List<Note.Goal> goals) {
+        for (Note.Goal goal : goals) {
+            addTerms(terms, goal.getDescription(), 1);
+            addGoalTerms(terms, goal.getSubGoals());
+        }
+    }
+
+    private static boolean sameTerms(Map<String, Integer> terms, String[] indexedTerms, int[] indexedFrequencies) {
+        if (terms.size() != indexedTerms.length) {
+            return false;
+        }
+        for (int i = 0; i < indexedTerms.length; i++) {
+            Integer frequency = terms.get(indexedTerms[i]);
+            if (frequency == null || frequency != indexedFrequencies[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void post(Document document, Map<String, Integer> cardTerms, Map<String, Integer> bodyTerms) {
+        document.cardTerms = new String[cardTerms.size()];
+        document.cardFrequencies = new int[cardTerms.size()];
+        document.bodyTerms = new String[bodyTerms.size()];
+        document.bodyFrequencies = new int[bodyTerms.size()];
+        // Words in both the card and the body are posted once, with the frequencies added up
+        int postedCount = bodyTerms.size();
+        for (String term : cardTerms.keySet()) {
+            if (!bodyTerms.containsKey(term)) {
+                postedCount++;
+            }
+        }
+        document.postedLists = new PostingList[postedCount];
+        document.postedSlots = new int[postedCount];
+        int posted = 0;
+        int length = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : bodyTerms.entrySet()) {
+            int frequency = entry.getValue();
+            Integer cardFrequency = cardTerms.get(entry.getKey());
+            PostingList notes = postingList(entry.getKey());
+            document.postedLists[posted] = notes;
+            document.postedSlots[posted] = notes.add(document.number,
+                    cardFrequency != null ? frequency + cardFrequency : frequency, posted);
+            posted++;
+            // Keep the shared String of the posting list instead of one per note
+            document.bodyTerms[i] = notes.term;
+            document.bodyFrequencies[i++] = frequency;
+            length += frequency;
+        }
+        i = 0;
+        for (Map.Entry<String, Integer> entry : cardTerms.entrySet()) {
+            int frequency = entry.getValue();
+            PostingList notes = postingList(entry.getKey());
+            if (!bodyTerms.containsKey(entry.getKey())) {
+                document.postedLists[posted] = notes;
+                document.postedSlots[posted] = notes.add(document.number, frequency, posted);
+                posted++;
+            }
+            document.cardTerms[i] = notes.term;
+            document.cardFrequencies[i++] = frequency;
+            length += frequency;
+        }
+        document.length = length;
+        totalLength += length;
+    }
+
+    private PostingList postingList(String term) {
+        PostingList notes = postingsByTerm.get(term);
+        if (notes == null) {
+            notes = new PostingList(term);
+            postingsByTerm.put(term, notes);
+            postings.put(term, notes);
+        }
+        return notes;
+    }
+
+    /**
+     * Takes a note out of its posting lists. Each posting is replaced by the last one of its list, so this takes time
+     * in proportion to the note's own words, however many notes share them.
+     */
+    private void unpost(Document document) {
+        for (int k = 0; k < document.postedLists.length; k++) {
+            PostingList notes = document.postedLists[k];
+            int slot = document.postedSlots[k];
+            int last = --notes.size;
+            if (slot != last) {
+                notes.documents[slot] = notes.documents[last];
+                notes.frequencies[slot] = notes.frequencies[last];
+                notes.owners[slot] = notes.owners[last];
+                documentsByNumber.get(notes.documents[slot]).postedSlots[notes.owners[slot]] = slot;
+            }
+            if (notes.size == 0) {
+                postingsByTerm.remove(notes.term);
+                postings.remove(notes.term);
+            }
+        }
+        document.postedLists = new PostingList[0];
+        document.postedSlots = new int[0];
+        totalLength -= document.length;
+    }
+}
@@ -0,0 +1,178 @@
+package com.tarek.notetool;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the NoteManager in the background, so file I/O never blocks the JavaFX thread.
+ * <p>
+ * Every change that marks the model dirty restarts a short quiet period; bursts of edits are coalesced into a
+ * single save once the user pauses, but a save is never delayed more than {@link #MAX_WRITE_LATENCY} after the
+ * first unsaved change. When a save is due, the changed state is captured on the JavaFX thread (a cheap copy of
+ * the dirty boards, see {@link NoteManager#captureSnapshot(Path)}) and written by a single background thread.
+ * While a write is running, further changes are collected and saved together when it finishes.
+ */
+public class PersistenceService {
+
+    // How long the model has to stay unchanged before a save starts.
+    private static final Duration QUIET_PERIOD = Duration.seconds(2);
+    // The longest a change can stay unsaved while edits keep coming in.
+    private static final Duration MAX_WRITE_LATENCY = Duration.seconds(10);
+
+    private final NoteManager noteManager;
+    private final Path dataDirectory;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "persistence-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final PauseTransition saveTimer = new PauseTransition();
+
+    // All of the following are only touched on the JavaFX thread.
+    private long firstUnsavedChangeNanos = -1;
+    private boolean writeInProgress = false;
+    private boolean saveRequestedDuringWrite = false;
+    private boolean shutDown = false;
+
+    /**
+     * Creates the service and starts listening for changes.
+     * @param noteManager The manager to save.
+     * @param dataDirectory The directory to save into.
+     */
+    public PersistenceService(NoteManager noteManager, Path dataDirectory) {
+        this.noteManager = noteManager;
+        this.dataDirectory = dataDirectory;
+        saveTimer.setOnFinished(e -> saveNow());
+        noteManager.setDirtyListener(this::scheduleSave);
+        if (noteManager.isDirty()) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Schedules a save after the quiet period, or sooner if the oldest unsaved change is about to
+     * exceed the maximum write latency. Called on the JavaFX thread whenever the model becomes dirty.
+     */
+    public void scheduleSave() {
+        if (shutDown) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (firstUnsavedChangeNanos < 0) {
+            firstUnsavedChangeNanos = now;
+        }
+        double elapsedMillis = (now - firstUnsavedChangeNanos) / 1_000_000.0;
+        double remainingMillis = Math.max(0, MAX_WRITE_LATENCY.toMillis() - elapsedMillis);
+        saveTimer.stop();
+        saveTimer.setDuration(Duration.millis(Math.min(QUIET_PERIOD.toMillis(), remainingMillis)));
+        saveTimer.playFromStart();
+    }
+
+    /**
+     * Captures the pending changes and hands them to the background writer.
+     * If a write is already running, the save is deferred until it finishes.
+     */
+    public void saveNow() {
+        saveTimer.stop();
+        if (shutDown) {
+            return;
+        }
+        if (writeInProgress) {
+            saveRequestedDuringWrite = true;
+            return;
+        }
+        firstUnsavedChangeNanos = -1;
+        if (!noteManager.isDirty()) {
+            return;
+        }
+
+        NoteManager.SaveSnapshot snapshot = noteManager.captureSnapshot(dataDirectory);
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        writeInProgress = true;
+        writer.execute(() -> {
+            try {
+                write(snapshot);
+            } catch (RuntimeException e) {
+                // Retry everything, rather than leave the boards of this snapshot unsaved and never evicted
+                System.err.println("Unexpected error while saving data: " + e);
+                snapshot.markAllFailed();
+            } finally {
+                // Always clear writeInProgress, or no later save would ever start
+                Platform.runLater(() -> onWriteFinished(snapshot));
+            }
+        });
+    }
+
+    private NoteManager.SaveStats write(NoteManager.SaveSnapshot snapshot) {
+        try {
+            Files.createDirectories(dataDirectory);
+        } catch (IOException e) {
+            System.err.println("Could not create data directory: " + e.getMessage());
+        }
+        long start = System.nanoTime();
+        NoteManager.SaveStats stats = noteManager.writeSnapshot(snapshot);
+        System.out.println("Saved data to " + dataDirectory + " in " + (System.nanoTime() - start) / 1_000_000 + " ms ("
+                + stats.filesWritten() + " file(s) written, " + stats.filesSkipped() + " unchanged; "
+                + noteManager.getTotalFilesWritten() + " written / " + noteManager.getTotalFilesSkipped() + " skipped this session)");
+        return stats;
+    }
+
+    private void onWriteFinished(NoteManager.SaveSnapshot snapshot) {
+        writeInProgress = false;
+        if (snapshot.hasFailures()) {
+            System.err.println("Error saving data: " + snapshot.failureCount() + " file(s) could not be written, will retry.");
+            noteManager.restoreFailedSnapshot(snapshot); // Re-marks them dirty, which schedules a retry
+        }
+        // Note bodies that are now on disk can be dropped, and the boards just written are safe to evict.
+        noteManager.releaseSavedNoteBodies(snapshot);
+        noteManager.trimToMemoryBudget();
+        if (saveRequestedDuringWrite) {
+            saveRequestedDuringWrite = false;
+            saveNow();
+        }
+    }
+
+    /**
+     * Writes everything that is still pending and stops the background writer, waiting at most the given time.
+     * Must be called on the JavaFX thread, e.g. from the main window's close handler.
+     * @param timeoutMillis The longest time to wait for the writes to finish, in milliseconds.
+     * @return true if all writes finished in time, false if the wait timed out.
+     */
+    public boolean shutdown(long timeoutMillis) {
+        saveTimer.stop();
+        noteManager.setDirtyListener(null);
+        // Make sure journaled edits from the last commit window reach the disk.
+        noteManager.flushJournals();
+
+        // A deferred save can't wait for the writer's runLater callback any more, so capture it now;
+        // the writer runs the tasks in order, after the one in progress.
+        writeInProgress = false;
+        saveRequestedDuringWrite = false;
+        if (noteManager.isDirty()) {
+            System.out.println("Performing final save on exit...");
+            saveNow();
+        }
+        shutDown = true;
+
+        writer.shutdown();
+        try {
+            if (writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.err.println("Timed out waiting for pending saves to finish after " + timeoutMillis + " ms.");
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.tarek.notetool;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.ListCell;
@@ -9,7 +10,6 @@ import javafx.scene.input.KeyCode;
 import javafx.util.Pair;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -20,6 +20,8 @@ public class SearchResultsViewController {
 
     private Stage dialogStage;
     private Pair<Note, Board> selectedResult = null;
+    private NoteManager.SearchCursor cursor;
+    private int pageSize;
 
     @FXML
     private void initialize() {
@@ -33,6 +35,10 @@ public class SearchResultsViewController {
                     Note note = item.getKey();
                     Board board = item.getValue();
                     setText("'" + note.getTitle() + "' in board [" + board.getName() + "]");
+                    // Read the next page once the last result scrolls into view
+                    if (getIndex() == getListView().getItems().size() - 1) {
+                        Platform.runLater(SearchResultsViewController.this::loadNextPage);
+                    }
                 }
             }
         });
@@ -57,11 +63,28 @@ public class SearchResultsViewController {
         });
     }
 
-    public void setSearchResults(Map<Note, Board> results) {
-        List<Pair<Note, Board>> resultList = results.entrySet().stream()
-            .map(entry -> new Pair<>(entry.getKey(), entry.getValue()))
+    /**
+     * Shows the results of a search, reading further pages from the cursor as the list is scrolled to its end.
+     * @param cursor The search, positioned after the first page.
+     * @param firstPage The results already read from the cursor.
+     * @param pageSize How many results to read per page.
+     */
+    public void setSearchResults(NoteManager.SearchCursor cursor, List<NoteManager.NoteBoardPair> firstPage, int pageSize) {
+        this.cursor = cursor;
+        this.pageSize = pageSize;
+        resultsListView.setItems(FXCollections.observableArrayList(toPairs(firstPage)));
+    }
+
+    private void loadNextPage() {
+        if (cursor != null && !cursor.isCancelled() && cursor.hasMore()) {
+            resultsListView.getItems().addAll(toPairs(cursor.nextPage(pageSize)));
+        }
+    }
+
+    private static List<Pair<Note, Board>> toPairs(List<NoteManager.NoteBoardPair> results) {
+        return results.stream()
+            .map(result -> new Pair<>(result.note, result.board))
             .collect(Collectors.toList());
-        resultsListView.setItems(FXCollections.observableArrayList(resultList));
     }
 
     public Optional<Pair<Note, Board>> getSelectedResult() {
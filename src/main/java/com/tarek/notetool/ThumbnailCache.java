@@ -0,0 +1,275 @@
+package com.tarek.notetool;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Downscaled versions of the gallery images, shared by all windows (the gallery tiles and the reference images of
+ * the note editor).
+ * <p>
+ * A thumbnail is made once per image and size, in the background: the original is decoded at the requested size
+ * and saved as a PNG in the thumbnails directory, named after a hash of the original's content and the size, so it
+ * survives restarts and renamed copies of the same file. The most recently used thumbnails are also kept in memory,
+ * up to {@link #MEMORY_BUDGET_BYTES}. Views show {@link #placeholder(int)} until their thumbnail is ready.
+ */
+final class ThumbnailCache {
+
+    // The decoded thumbnails kept in memory (at 4 bytes per pixel), across all sizes.
+    private static final long MEMORY_BUDGET_BYTES = 64L * 1024 * 1024;
+    private static final String EXTENSION = ".png";
+    // Decodes originals off the JavaFX thread; two threads, so one huge image doesn't hold up all the others.
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "thumbnail-decoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Key(Path source, int size) {
+    }
+
+    // The content hash of each original, valid as long as its size and modification time don't change.
+    private record ContentHash(long length, long lastModified, String hash) {
+    }
+
+    // Least recently used first; guarded by itself.
+    private static final LinkedHashMap<Key, Image> MEMORY_CACHE = new LinkedHashMap<>(64, 0.75f, true);
+    private static long memoryCacheBytes = 0;
+    private static final Map<Key, CompletableFuture<Image>> PENDING = new ConcurrentHashMap<>();
+    private static final Map<Path, ContentHash> CONTENT_HASHES = new ConcurrentHashMap<>();
+    private static final Map<Integer, Image> PLACEHOLDERS = new ConcurrentHashMap<>();
+
+    private ThumbnailCache() {
+    }
+
+    /**
+     * Gets a thumbnail if it is already in memory.
+     * @param source The original image file.
+     * @param size The maximum width and height of the thumbnail.
+     * @return The thumbnail, or null if it still has to be loaded with {@link #load}.
+     */
+    static Image getCached(Path source, int size) {
+        synchronized (MEMORY_CACHE) {
+            return MEMORY_CACHE.get(new Key(source, size));
+        }
+    }
+
+    /**
+     * Gets a thumbnail, reading or making it in the background if it isn't in memory.
+     * @param source The original image file.
+     * @param size The maximum width and height of the thumbnail; the aspect ratio is kept.
+     * @return A future completed on a background thread with the thumbnail, or exceptionally if the original could
+     *         not be read.
+     */
+    static CompletableFuture<Image> load(Path source, int size) {
+        Key key = new Key(source, size);
+        Image cached = getCached(source, size);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        // Several views asking for the same thumbnail at once share one decode.
+        CompletableFuture<Image> future = new CompletableFuture<>();
+        CompletableFuture<Image> pending = PENDING.putIfAbsent(key, future);
+        if (pending != null) {
+            return pending;
+        }
+        DECODER.execute(() -> {
+            try {
+                future.complete(loadThumbnail(key));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                PENDING.remove(key, future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the image to show while a thumbnail is loading, or instead of one that could not be loaded.
+     * @param size The size of the thumbnail it stands in for.
+     * @return A square, faintly gray image of that size.
+     */
+    static Image placeholder(int size) {
+        return PLACEHOLDERS.computeIfAbsent(size, s -> {
+            WritableImage placeholder = new WritableImage(s, s);
+            PixelWriter writer = placeholder.getPixelWriter();
+            Color fill = Color.gray(0.5, 0.15);
+            for (int y = 0; y < s; y++) {
+                for (int x = 0; x < s; x++) {
+                    writer.setColor(x, y, fill);
+                }
+            }
+            return placeholder;
+        });
+    }
+
+    /**
+     * Forgets the thumbnails of an image that is being deleted, in memory and on disk. Call this before deleting
+     * the original, since its content identifies the thumbnails on disk.
+     * @param source The original image file.
+     */
+    static void evict(Path source) {
+        synchronized (MEMORY_CACHE) {
+            Iterator<Map.Entry<Key, Image>> entries = MEMORY_CACHE.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Key, Image> entry = entries.next();
+                if (entry.getKey().source().equals(source)) {
+                    memoryCacheBytes -= bytes(entry.getValue());
+                    entries.remove();
+                }
+            }
+        }
+        // The thumbnails on disk are named after the content, so it has to be hashed if it wasn't this session.
+        ContentHash known = CONTENT_HASHES.get(source);
+        String hash;
+        try {
+            hash = known != null ? known.hash() : contentHash(source);
+        } catch (IOException e) {
+            return; // Already gone, so there's no telling which thumbnails were its
+        } finally {
+            CONTENT_HASHES.remove(source);
+        }
+        try (DirectoryStream<Path> thumbnails = Files.newDirectoryStream(MainApp.getThumbnailDirectory(), hash + "-*" + EXTENSION)) {
+            for (Path thumbnail : thumbnails) {
+                Files.deleteIfExists(thumbnail);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not delete the thumbnails of " + source + ": " + e.getMessage());
+        }
+    }
+
+    private static Image loadThumbnail(Key key) {
+        Path thumbnailFile;
+        try {
+            thumbnailFile = MainApp.getThumbnailDirectory().resolve(contentHash(key.source()) + "-" + key.size() + EXTENSION);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read image " + key.source() + ": " + e.getMessage(), e);
+        }
+
+        Image thumbnail = null;
+        if (Files.exists(thumbnailFile)) {
+            thumbnail = new Image(thumbnailFile.toUri().toString());
+            if (thumbnail.isError()) {
+                thumbnail = null; // e.g. a damaged file; make it again
+            }
+        }
+        if (thumbnail == null) {
+            thumbnail = new Image(key.source().toUri().toString(), key.size(), key.size(), true, true);
+            if (thumbnail.isError()) {
+                throw new IllegalStateException("Could not decode image " + key.source(), thumbnail.getException());
+            }
+            save(thumbnail, thumbnailFile);
+        }
+        remember(key, thumbnail);
+        return thumbnail;
+    }
+
+    private static void save(Image thumbnail, Path thumbnailFile) {
+        try {
+            Files.createDirectories(thumbnailFile.getParent());
+            Path tempFile = Files.createTempFile(thumbnailFile.getParent(), "thumbnail", ".tmp");
+            try {
+                ImageIO.write(SwingFXUtils.fromFXImage(thumbnail, null), "png", tempFile.toFile());
+                try {
+                    Files.move(tempFile, thumbnailFile, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, thumbnailFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            // Not fatal: the thumbnail is still used from memory and is made again next time.
+            System.err.println("Could not save thumbnail " + thumbnailFile + ": " + e.getMessage());
+        }
+    }
+
+    private static void remember(Key key, Image thumbnail) {
+        synchronized (MEMORY_CACHE) {
+            Image previous = MEMORY_CACHE.put(key, thumbnail);
+            if (previous != null) {
+                memoryCacheBytes -= bytes(previous);
+            }
+            memoryCacheBytes += bytes(thumbnail);
+            Iterator<Image> leastRecentlyUsed = MEMORY_CACHE.values().iterator();
+            while (memoryCacheBytes > MEMORY_BUDGET_BYTES && MEMORY_CACHE.size() > 1) {
+                memoryCacheBytes -= bytes(leastRecentlyUsed.next());
+                leastRecentlyUsed.remove();
+            }
+        }
+    }
+
+    private static long bytes(Image image) {
+        return 4L * (long) image.getWidth() * (long) image.getHeight();
+    }
+
+    private static String contentHash(Path source) throws IOException {
+        long length = Files.size(source);
+        long lastModified = Files.getLastModifiedTime(source).toMillis();
+        ContentHash known = CONTENT_HASHES.get(source);
+        if (known != null && known.length() == length && known.lastModified() == lastModified) {
+            return known.hash();
+        }
+        MessageDigest digest = newContentDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(source)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = formatContentHash(digest.digest());
+        CONTENT_HASHES.put(source, new ContentHash(length, lastModified, hash));
+        return hash;
+    }
+
+    /**
+     * Creates the digest used for the content hashes, for {@link #rememberContentHash}.
+     */
+    static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every Java platform has SHA-256
+        }
+    }
+
+    /**
+     * Records the content hash of an image that was just written anyway (e.g. when it was copied into the gallery),
+     * so making its thumbnails doesn't have to read it all again.
+     * @param source The image file, as written.
+     * @param digest The digest of everything written, from {@link #newContentDigest()}.
+     */
+    static void rememberContentHash(Path source, MessageDigest digest) throws IOException {
+        long length = Files.size(source);
+        long lastModified = Files.getLastModifiedTime(source).toMillis();
+        CONTENT_HASHES.put(source, new ContentHash(length, lastModified, formatContentHash(digest.digest())));
+    }
+
+    private static String formatContentHash(byte[] digest) {
+        // Half of the hash is plenty to tell the gallery images apart and keeps the file names short.
+        return HexFormat.of().formatHex(digest, 0, 16);
+    }
+}
@@ -0,0 +1,365 @@
+package com.tarek.notetool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A trigram index over one text field of the notes (e.g. the title), for exact substring search.
+ * <p>
+ * Each lower-cased text is indexed by every three-character sequence it contains, padded with a marker at both ends so
+ * short texts and the first and last characters are covered too. Any text that contains a query also contains all of
+ * the query's trigrams, so intersecting their posting lists gives a small set of candidates that is guaranteed to
+ * include every match. Candidates can still be false positives and must be verified with {@link String#contains}.
+ * <p>
+ * Posting lists are sorted arrays of text numbers. A changed text gets a new number instead of being removed from the
+ * lists of its old trigrams (which would need the old text); the old number is dropped from the lists once enough of
+ * them have piled up.
+ */
+final class TrigramIndex {
+
+    // Marks the start and end of a text, so every one- or two-character substring is part of some trigram.
+    private static final char BOUNDARY = '\0';
+    // Drop dead text numbers from the posting lists once there are more of them than live ones (and at least this many).
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+
+    /**
+     * The text numbers that contain one trigram, in ascending order.
+     */
+    private static final class PostingList {
+        int[] numbers = new int[2];
+        int size;
+
+        void add(int number) {
+            if (size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size * 2);
+            }
+            numbers[size++] = number;
+        }
+    }
+
+    // The current number and a 64-bit hash of the indexed text of each note, to skip re-indexing unchanged texts.
+    private record Entry(int number, long textHash) {
+    }
+
+    /**
+     * The posting lists by trigram: an open-addressing hash table with primitive keys, since a large workspace has
+     * tens of millions of postings to add and boxing every trigram would dominate the time to build the index.
+     */
+    private static final class PostingTable {
+        long[] trigrams = new long[1024];
+        PostingList[] lists = new PostingList[1024];
+        int size;
+
+        PostingList get(long trigram) {
+            int slot = slot(trigram, trigrams.length);
+            while (lists[slot] != null) {
+                if (trigrams[slot] == trigram) {
+                    return lists[slot];
+                }
+                slot = (slot + 1) & (trigrams.length - 1);
+            }
+            return null;
+        }
+
+        PostingList getOrCreate(long trigram) {
+            PostingList list = get(trigram);
+            if (list == null) {
+                if (size * 2 >= trigrams.length) {
+                    resize(trigrams.length * 2);
+                }
+                list = new PostingList();
+                insert(trigram, list);
+                size++;
+            }
+            return list;
+        }
+
+        /**
+         * Removes the empty lists, e.g. after compaction.
+         */
+        void removeEmpty() {
+            long[] oldTrigrams = trigrams;
+            PostingList[] oldLists = lists;
+            trigrams = new long[oldTrigrams.length];
+            lists = new PostingList[oldLists.length];
+            size = 0;
+            for (int i = 0; i < oldLists.length; i++) {
+                if (oldLists[i] != null && oldLists[i].size > 0) {
+                    insert(oldTrigrams[i], oldLists[i]);
+                    size++;
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldTrigrams = trigrams;
+            PostingList[] oldLists = lists;
+            trigrams = new long[capacity];
+            lists = new PostingList[capacity];
+            for (int i = 0; i < oldLists.length; i++) {
+                if (oldLists[i] != null) {
+                    insert(oldTrigrams[i], oldLists[i]);
+                }
+            }
+        }
+
+        private void insert(long trigram, PostingList list) {
+            int slot = slot(trigram, trigrams.length);
+            while (lists[slot] != null) {
+                slot = (slot + 1) & (trigrams.length - 1);
+            }
+            trigrams[slot] = trigram;
+            lists[slot] = list;
+        }
+
+        private static int slot(long trigram, int capacity) {
+            long hash = trigram * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 40) & (capacity - 1);
+        }
+    }
+
+    private final PostingTable postings = new PostingTable();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final List<UUID> notesByNumber = new ArrayList<>(); // null for dead numbers
+    private int deadNumbers = 0;
+
+    /**
+     * Indexes the text of a note, replacing its previous text.
+     * @param noteId The note.
+     * @param text The text, already lower-cased; null is indexed as empty.
+     */
+    void update(UUID noteId, String text) {
+        String indexedText = text != null ? text : "";
+        long textHash = hash(indexedText);
+        Entry entry = entries.get(noteId);
+        if (entry != null) {
+            if (entry.textHash() == textHash) {
+                return;
+            }
+            retire(entry.number());
+        }
+        int number = notesByNumber.size();
+        notesByNumber.add(noteId);
+        entries.put(noteId, new Entry(number, textHash));
+        for (long trigram : trigrams(indexedText)) {
+            postings.getOrCreate(trigram).add(number);
+        }
+        compactIfNeeded();
+    }
+
+    void remove(UUID noteId) {
+        Entry entry = entries.remove(noteId);
+        if (entry != null) {
+            retire(entry.number());
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Finds the notes whose text may contain a query.
+     * @param query The query, already lower-cased.
+     * @return The candidate notes: every note whose text contains the query, and possibly some that don't.
+     */
+    Set<UUID> candidates(String query) {
+        Set<UUID> candidates = new HashSet<>();
+        if (query.isEmpty()) {
+            return candidates;
+        }
+        if (query.length() < 3) {
+            // Too short for its own trigrams: take every trigram that contains it.
+            BitSet numbers = new BitSet(notesByNumber.size());
+            for (int i = 0; i < postings.lists.length; i++) {
+                PostingList list = postings.lists[i];
+                if (list != null && trigramContains(postings.trigrams[i], query)) {
+                    for (int j = 0; j < list.size; j++) {
+                        numbers.set(list.numbers[j]);
+                    }
+                }
+            }
+            for (int number = numbers.nextSetBit(0); number >= 0; number = numbers.nextSetBit(number + 1)) {
+                UUID noteId = notesByNumber.get(number);
+                if (noteId != null) {
+                    candidates.add(noteId);
+                }
+            }
+            return candidates;
+        }
+
+        long[] queryTrigrams = new long[query.length() - 2];
+        for (int i = 0; i < queryTrigrams.length; i++) {
+            queryTrigrams[i] = trigram(query.charAt(i), query.charAt(i + 1), query.charAt(i + 2));
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (long trigram : distinct(queryTrigrams)) {
+            PostingList list = postings.get(trigram);
+            if (list == null) {
+                return candidates;
+            }
+            lists.add(list);
+        }
+        // Intersect starting with the shortest list, so the running result only shrinks from the smallest size.
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] result = Arrays.copyOf(lists.get(0).numbers, lists.get(0).size);
+        int resultSize = result.length;
+        for (int i = 1; i < lists.size() && resultSize > 0; i++) {
+            resultSize = intersect(result, resultSize, lists.get(i));
+        }
+        addNotes(candidates, result, resultSize);
+        return candidates;
+    }
+
+    /**
+     * Intersects a sorted array with a posting list in place.
+     * @return The size of the intersection, which is now at the start of the array.
+     */
+    private static int intersect(int[] result, int resultSize, PostingList list) {
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < resultSize; i++) {
+            int number = result[i];
+            // Gallop when the list is much longer than the result
+            j = lowerBound(list.numbers, j, list.size, number);
+            if (j == list.size) {
+                break;
+            }
+            if (list.numbers[j] == number) {
+                result[size++] = number;
+            }
+        }
+        return size;
+    }
+
+    private static int lowerBound(int[] numbers, int from, int to, int value) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && numbers[high] < value) {
+            low = high + 1;
+            high += step;
+            step *= 2;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (numbers[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void addNotes(Set<UUID> candidates, int[] numbers, int size) {
+        for (int i = 0; i < size; i++) {
+            UUID noteId = notesByNumber.get(numbers[i]);
+            if (noteId != null) {
+                candidates.add(noteId);
+            }
+        }
+    }
+
+    private void retire(int number) {
+        notesByNumber.set(number, null);
+        deadNumbers++;
+    }
+
+    /**
+     * Drops dead numbers from the posting lists and renumbers the live texts, keeping their order.
+     */
+    private void compactIfNeeded() {
+        if (deadNumbers < MIN_DEAD_FOR_COMPACTION || deadNumbers < entries.size()) {
+            return;
+        }
+        int[] newNumbers = new int[notesByNumber.size()];
+        List<UUID> liveNotes = new ArrayList<>(entries.size());
+        for (int number = 0; number < notesByNumber.size(); number++) {
+            UUID noteId = notesByNumber.get(number);
+            newNumbers[number] = noteId != null ? liveNotes.size() : -1;
+            if (noteId != null) {
+                liveNotes.add(noteId);
+                Entry entry = entries.get(noteId);
+                entries.put(noteId, new Entry(newNumbers[number], entry.textHash()));
+            }
+        }
+        for (PostingList list : postings.lists) {
+            if (list == null) {
+                continue;
+            }
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int newNumber = newNumbers[list.numbers[i]];
+                if (newNumber >= 0) {
+                    list.numbers[size++] = newNumber;
+                }
+            }
+            list.size = size;
+        }
+        postings.removeEmpty();
+        notesByNumber.clear();
+        notesByNumber.addAll(liveNotes);
+        deadNumbers = 0;
+    }
+
+    /**
+     * The distinct trigrams of a text, including the ones with the boundary marker.
+     */
+    private static long[] trigrams(String text) {
+        if (text.isEmpty()) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length()];
+        for (int i = -1; i < text.length() - 1; i++) {
+            char first = i < 0 ? BOUNDARY : text.charAt(i);
+            char second = text.charAt(i + 1);
+            char third = i + 2 < text.length() ? text.charAt(i + 2) : BOUNDARY;
+            trigrams[i + 1] = trigram(first, second, third);
+        }
+        return distinct(trigrams);
+    }
+
+    private static long[] distinct(long[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    // FNV-1a, 64 bits
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long trigram(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+
+    private static boolean trigramContains(long trigram, String query) {
+        char first = (char) (trigram >>> 32);
+        char second = (char) (trigram >>> 16);
+        char third = (char) trigram;
+        if (query.length() == 1) {
+            char c = query.charAt(0);
+            return first == c || second == c || third == c;
+        }
+        char c0 = query.charAt(0);
+        char c1 = query.charAt(1);
+        return (first == c0 && second == c1) || (second == c0 && third == c1);
+    }
+}
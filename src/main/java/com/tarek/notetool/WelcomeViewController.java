@@ -68,6 +68,9 @@ public class WelcomeViewController {
         MenuItem openBoardItem = new MenuItem("Open Board");
         openBoardItem.setOnAction(e -> handleOpenBoard());
 
+        MenuItem renameBoardItem = new MenuItem("Rename Board...");
+        renameBoardItem.setOnAction(e -> handleRenameBoard());
+
         MenuItem exportBoardItem = new MenuItem("Export Board...");
         exportBoardItem.setOnAction(e -> handleExportBoard());
 
@@ -78,6 +81,7 @@ public class WelcomeViewController {
 
         boardContextMenu.getItems().addAll(
                 openBoardItem,
+                renameBoardItem,
                 new SeparatorMenuItem(),
                 exportBoardItem,
                 new SeparatorMenuItem(),
@@ -85,6 +89,19 @@ public class WelcomeViewController {
         );
         boardListView.setContextMenu(boardContextMenu);
 
+        // The summary comes from the board's header, so hovering a board doesn't load it.
+        boardListView.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(String boardName, boolean empty) {
+                super.updateItem(boardName, empty);
+                setText(empty ? null : boardName);
+                setTooltip(empty || boardName == null ? null : noteManager.getBoardHeader(boardName)
+                        .map(header -> new Tooltip(header.noteCount() + " notes, " + header.columnCount() + " columns, "
+                                + header.memberCount() + " members"))
+                        .orElse(null));
+            }
+        });
+
         // --- Recent Notes List Setup ---
         recentNotesListView.setCellFactory(lv -> new ListCell<>() {
             @Override
@@ -255,6 +272,29 @@ public class WelcomeViewController {
         }
     }
 
+    private void handleRenameBoard() {
+        String selectedBoardName = boardListView.getSelectionModel().getSelectedItem();
+        if (selectedBoardName == null) return;
+
+        TextInputDialog dialog = new TextInputDialog(selectedBoardName);
+        dialog.setTitle("Rename Board");
+        dialog.setHeaderText("Enter a new name for the board.");
+        dialog.setContentText("Board Name:");
+
+        dialog.showAndWait().ifPresent(newName -> {
+            if (!newName.trim().isEmpty()) {
+                try {
+                    // Open windows of the board follow the rename through its BoardRenamed event
+                    noteManager.renameBoard(selectedBoardName, newName);
+                    refreshBoardList();
+                    refreshRecentNotesList();
+                } catch (IllegalArgumentException e) {
+                    showError("Rename Failed", e.getMessage());
+                }
+            }
+        });
+    }
+
     private void handleExportBoard() {
         String selectedBoardName = boardListView.getSelectionModel().getSelectedItem();
         if (selectedBoardName == null) return;
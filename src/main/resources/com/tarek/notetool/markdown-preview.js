@@ -0,0 +1,47 @@
+// Updates the note editor's markdown preview in place. The editor sends the HTML of the blocks that changed, and
+// only those are replaced, so the page isn't reloaded: no flicker, and the scroll position stays where it is.
+// highlight.js comes from a CDN and is only fetched once the page has loaded, so the preview works offline too (just
+// without syntax highlighting) and never waits for the network; the blocks shown before it arrives are highlighted
+// when it does.
+(function () {
+    var HIGHLIGHTER_URL = 'https://cdnjs.cloudflare.com/ajax/libs/highlight.js/11.9.0/highlight.min.js';
+
+    function highlight(element) {
+        if (window.hljs) {
+            element.querySelectorAll('pre code').forEach(function (code) { hljs.highlightElement(code); });
+        }
+    }
+
+    window.addEventListener('load', function () {
+        var script = document.createElement('script');
+        script.src = HIGHLIGHTER_URL;
+        script.async = true;
+        script.onload = function () {
+            highlight(document.getElementById('preview'));
+        };
+        document.head.appendChild(script);
+    });
+
+    window.notePreview = {
+        /**
+         * Replaces blocks of the preview.
+         * @param start The index of the first block to replace.
+         * @param deleteCount How many blocks to remove from there.
+         * @param blocks The HTML of the blocks to insert there instead.
+         */
+        patch: function (start, deleteCount, blocks) {
+            var container = document.getElementById('preview');
+            for (var i = 0; i < deleteCount && container.children[start]; i++) {
+                container.removeChild(container.children[start]);
+            }
+            var next = container.children[start] || null;
+            blocks.forEach(function (html) {
+                var block = document.createElement('div');
+                block.className = 'markdown-block';
+                block.innerHTML = html;
+                container.insertBefore(block, next);
+                highlight(block);
+            });
+        }
+    };
+})();
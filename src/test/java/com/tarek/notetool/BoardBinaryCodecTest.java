@@ -0,0 +1,350 @@
+package com.tarek.notetool;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Version 1 is the codec's original format. The tests for versions 2 and 3 also cover the header block added for
+ * loading boards on demand and the body file added for deferred note bodies.
+ */
+class BoardBinaryCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void version3RoundTripsEveryField() throws IOException {
+        Board board = sampleBoard();
+        String expected = toJson(board);
+        Path boardFile = directory.resolve("Sample.board");
+        NoteManager.writeBoardFile(board, boardFile);
+
+        assertTrue(BoardBinaryCodec.isBinaryBoardFile(boardFile));
+        Board read = NoteManager.readBoardFile(boardFile);
+        assertEquals(expected, toJson(read));
+
+        // Written again unchanged, the bodies keep their place in the body file
+        long bodyFileSize = Files.size(read.getNoteBodyStore().getFile());
+        NoteManager.writeBoardFile(read, boardFile);
+        assertEquals(bodyFileSize, Files.size(read.getNoteBodyStore().getFile()));
+        assertEquals(expected, toJson(NoteManager.readBoardFile(boardFile)));
+    }
+
+    @Test
+    void jsonAndBinaryConvertBothWays() throws IOException {
+        Board board = sampleBoard();
+        Path jsonFile = directory.resolve("Sample.json");
+        Path binaryFile = directory.resolve("Sample.board");
+
+        NoteManager.writeBoardFile(board, jsonFile);
+        Board fromJson = NoteManager.readBoardFile(jsonFile);
+        // JSON boards share one user object per ID, so the renamed assignee comes back under the member's name
+        String expected = toJson(fromJson);
+        NoteManager.writeBoardFile(fromJson, binaryFile);
+        Board fromBinary = NoteManager.readBoardFile(binaryFile);
+        assertEquals(expected, toJson(fromBinary));
+
+        Path backToJson = directory.resolve("Converted.json");
+        NoteManager.writeBoardFile(fromBinary, backToJson);
+        assertFalse(BoardBinaryCodec.isBinaryBoardFile(backToJson));
+        assertEquals(expected, toJson(NoteManager.readBoardFile(backToJson)));
+    }
+
+    @Test
+    void readsVersion2Files() throws IOException {
+        Board board = sampleBoard();
+        Path boardFile = directory.resolve("Old.board");
+        Files.write(boardFile, new LegacyWriter(2).write(board));
+
+        Board read = NoteManager.readBoardFile(boardFile);
+        assertEquals(toJson(board), toJson(read));
+        assertNull(read.getNoteBodyStore());
+
+        Board.Header header = BoardBinaryCodec.readHeader(Files.newInputStream(boardFile));
+        assertEquals(board.getName(), header.name());
+        assertEquals(board.getAllNotes().size(), header.noteCount());
+    }
+
+    @Test
+    void readsVersion1Files() throws IOException {
+        Board board = sampleBoard();
+        Path boardFile = directory.resolve("Older.board");
+        Files.write(boardFile, new LegacyWriter(1).write(board));
+
+        assertEquals(toJson(board), toJson(NoteManager.readBoardFile(boardFile)));
+        assertNull(BoardBinaryCodec.readHeader(Files.newInputStream(boardFile)));
+    }
+
+    @Test
+    void oldFilesAreUpgradedWhenWrittenAgain() throws IOException {
+        Board board = sampleBoard();
+        Path boardFile = directory.resolve("Upgraded.board");
+        Files.write(boardFile, new LegacyWriter(2).write(board));
+
+        NoteManager.writeBoardFile(NoteManager.readBoardFile(boardFile), boardFile);
+        Board read = NoteManager.readBoardFile(boardFile);
+        assertEquals(toJson(board), toJson(read));
+        assertTrue(Files.exists(read.getNoteBodyStore().getFile()));
+    }
+
+    @Test
+    void rejectsNewerVersionsAndOtherFiles() throws IOException {
+        Path newer = directory.resolve("Newer.board");
+        Files.write(newer, new byte[] {'N', 'T', 'B', 'F', 4});
+        assertThrows(IOException.class, () -> NoteManager.readBoardFile(newer));
+
+        Path truncated = directory.resolve("Truncated.board");
+        byte[] bytes = new LegacyWriter(2).write(sampleBoard());
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> NoteManager.readBoardFile(truncated));
+    }
+
+    /**
+     * A board that uses every field the format stores, including nulls, nested goals and shared users.
+     */
+    private static Board sampleBoard() {
+        User alice = new User("Alice");
+        User bob = new User("Bob");
+        User renamedBob = new User(bob.id(), "Robert");
+        Board board = new Board("Sample é☃", new ArrayList<>(List.of(alice, bob)), true);
+        UUID toDo = board.getColumns().get(0).getId();
+        UUID done = board.getColumns().get(2).getId();
+
+        Note first = new Note("First", "Some *markdown*\n\nwith two paragraphs");
+        first.setColumnId(toDo);
+        first.setPriority(Note.Priority.HIGH);
+        first.setDueDate(LocalDateTime.of(1969, 7, 20, 20, 17, 40, 123456789));
+        first.setAssignees(List.of(alice, renamedBob));
+        first.setTags(new LinkedHashSet<>(List.of("urgent", "backend")));
+        first.setComments(List.of(new Note.Comment("Looks good", alice),
+                new Note.Comment("Anonymous", null, LocalDateTime.of(2020, 1, 1, 0, 0))));
+        first.setAttachmentPaths(List.of("attachments/spec.pdf"));
+        first.setReferenceImagePaths(List.of("gallery/a.png", "gallery/b.png"));
+        board.addNote(first);
+
+        Note second = new Note("Second", "");
+        second.setColumnId(done);
+        second.setPriority(null);
+        second.setTags(Set.of("backend"));
+        second.setGoals(List.of(
+                new Note.Goal("Plan", true, List.of(new Note.Goal("Sketch"), new Note.Goal("Review")), null, null),
+                new Note.Goal("Finish first", first.getId(), first.getTitle())));
+        second.setDependencies(List.of(new Note.Dependency(first.getId(), Note.DependencyType.values()[0], "First")));
+        board.addNote(second);
+
+        Note third = new Note("Third", null);
+        third.setColumnId(toDo);
+        board.addNote(third);
+        return board;
+    }
+
+    /**
+     * The board as JSON, with its notes sorted by ID, since the order of the note map isn't kept.
+     */
+    private static String toJson(Board board) {
+        Gson gson = NoteManager.getCompactGson();
+        StringBuilder json = new StringBuilder(board.getName()).append('\n');
+        json.append(gson.toJson(board.getMembers())).append('\n');
+        json.append(gson.toJson(board.getColumns())).append('\n');
+        board.getAllNotes().stream()
+                .sorted(Comparator.comparing(Note::getId))
+                .forEach(note -> json.append(gson.toJson(note)).append('\n'));
+        return json.toString();
+    }
+
+    /**
+     * Writes boards in the older versions of the format, which the codec still reads but no longer writes. Note
+     * bodies are stored inline, and version 1 has no header block.
+     */
+    private static final class LegacyWriter {
+        private final int version;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final List<User> users = new ArrayList<>();
+        // Keyed by ID and name, like the codec's own dictionary, since User.equals only compares IDs
+        private final Map<List<Object>, Integer> userIndexes = new HashMap<>();
+        private final List<String> tags = new ArrayList<>();
+
+        LegacyWriter(int version) {
+            this.version = version;
+        }
+
+        byte[] write(Board board) throws IOException {
+            board.getMembers().forEach(this::addUser);
+            for (Note note : board.getAllNotes()) {
+                note.getAssignees().forEach(this::addUser);
+                note.getComments().stream().map(Note.Comment::getAuthor).forEach(this::addUser);
+                note.getTags().stream().filter(tag -> !tags.contains(tag)).forEach(tags::add);
+            }
+
+            out.write(new byte[] {'N', 'T', 'B', 'F'});
+            varInt(version);
+            if (version >= 2) {
+                string(board.getName());
+                varInt(board.getMembers().size());
+                varInt(board.getColumns().size());
+                varInt(board.getAllNotes().size());
+            }
+            varInt(users.size());
+            for (User user : users) {
+                uuid(user.id());
+                string(user.name());
+            }
+            varInt(tags.size());
+            for (String tag : tags) {
+                string(tag);
+            }
+            if (version == 1) {
+                string(board.getName());
+            }
+            varInt(board.getMembers().size());
+            for (User member : board.getMembers()) {
+                varInt(userIndex(member));
+            }
+            varInt(board.getColumns().size());
+            for (Column column : board.getColumns()) {
+                uuid(column.getId());
+                string(column.getName());
+                varInt(column.getNoteIds().size());
+                for (UUID noteId : column.getNoteIds()) {
+                    uuid(noteId);
+                }
+            }
+            varInt(board.getAllNotes().size());
+            for (Note note : board.getAllNotes()) {
+                note(note);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private void note(Note note) throws IOException {
+            uuid(note.getId());
+            string(note.getTitle());
+            string(note.getContent());
+            nullableUuid(note.getColumnId());
+            varInt(note.getPriority() != null ? note.getPriority().ordinal() + 1 : 0);
+            dateTime(note.getCreationDate());
+            dateTime(note.getLastModifiedDate());
+            dateTime(note.getDueDate());
+            varInt(note.getAssignees().size());
+            for (User assignee : note.getAssignees()) {
+                varInt(userIndex(assignee));
+            }
+            varInt(note.getComments().size());
+            for (Note.Comment comment : note.getComments()) {
+                string(comment.getText());
+                varInt(comment.getAuthor() != null ? userIndex(comment.getAuthor()) + 1 : 0);
+                dateTime(comment.getTimestamp());
+            }
+            goals(note.getGoals());
+            varInt(note.getTags().size());
+            for (String tag : note.getTags()) {
+                varInt(tags.indexOf(tag));
+            }
+            strings(note.getAttachmentPaths());
+            varInt(note.getDependencies().size());
+            for (Note.Dependency dependency : note.getDependencies()) {
+                nullableUuid(dependency.otherNoteId());
+                varInt(dependency.type() != null ? dependency.type().ordinal() + 1 : 0);
+                string(dependency.otherNoteTitle());
+            }
+            strings(note.getReferenceImagePaths());
+        }
+
+        private void goals(List<Note.Goal> goals) throws IOException {
+            varInt(goals.size());
+            for (Note.Goal goal : goals) {
+                string(goal.getDescription());
+                out.writeBoolean(goal.isCompleted());
+                nullableUuid(goal.getLinkedNoteId().orElse(null));
+                string(goal.getLinkedNoteTitle().orElse(null));
+                goals(goal.getSubGoals());
+            }
+        }
+
+        private void addUser(User user) {
+            if (user != null) {
+                userIndexes.computeIfAbsent(Arrays.asList(user.id(), user.name()), key -> {
+                    users.add(user);
+                    return users.size() - 1;
+                });
+            }
+        }
+
+        private int userIndex(User user) {
+            return userIndexes.get(Arrays.asList(user.id(), user.name()));
+        }
+
+        private void varInt(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private void string(String value) throws IOException {
+            if (value == null) {
+                varInt(0);
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            varInt(encoded.length + 1);
+            out.write(encoded);
+        }
+
+        private void strings(List<String> values) throws IOException {
+            varInt(values.size());
+            for (String value : values) {
+                string(value);
+            }
+        }
+
+        private void uuid(UUID value) throws IOException {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+
+        private void nullableUuid(UUID value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                uuid(value);
+            }
+        }
+
+        private void dateTime(LocalDateTime value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                long seconds = value.toEpochSecond(ZoneOffset.UTC);
+                varInt((seconds << 1) ^ (seconds >> 63));
+                varInt(value.getNano());
+            }
+        }
+    }
+}
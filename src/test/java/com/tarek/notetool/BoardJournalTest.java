@@ -0,0 +1,156 @@
+package com.tarek.notetool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayRestoresTheEditsMadeAfterTheSnapshot() throws IOException {
+        Board board = new Board("Journaled", List.of(), true);
+        Note kept = addNote(board, "Kept", 0);
+        Note moved = addNote(board, "Moved", 0);
+        Note removed = addNote(board, "Removed", 1);
+        Path snapshotFile = directory.resolve("Journaled.json");
+        NoteManager.writeBoardFile(board, snapshotFile);
+
+        BoardJournal journal = new BoardJournal(snapshotFile, 0);
+        kept.setTitle("Kept, renamed");
+        journal.appendUpsert(kept);
+        UUID doneColumn = board.getColumns().get(2).getId();
+        board.moveNote(moved.getId(), doneColumn, 0);
+        journal.appendMove(moved.getId(), doneColumn, 0);
+        board.removeNote(removed.getId());
+        journal.appendRemove(removed.getId());
+        Note added = addNote(board, "Added", 1);
+        journal.appendUpsert(added);
+        journal.flush();
+
+        Board restored = NoteManager.readBoardFile(snapshotFile);
+        assertEquals(4, BoardJournal.replay(journal.getJournalFile(), restored));
+        assertEquals(describe(board), describe(restored));
+    }
+
+    @Test
+    void replayIgnoresARecordTornByACrashMidWrite() throws IOException {
+        Board board = new Board("Torn", List.of(), true);
+        Path snapshotFile = directory.resolve("Torn.json");
+        NoteManager.writeBoardFile(board, snapshotFile);
+
+        BoardJournal journal = new BoardJournal(snapshotFile, 0);
+        Note first = addNote(board, "First", 0);
+        journal.appendUpsert(first);
+        Note second = addNote(board, "Second", 0);
+        journal.appendUpsert(second);
+        journal.flush();
+        Map<String, List<String>> beforeCrash = describe(board);
+
+        // The crash cut the next record off halfway through the line
+        Note lost = addNote(board, "Lost", 1);
+        String fullRecord = journalLine(lost, 3);
+        Files.writeString(journal.getJournalFile(), fullRecord.substring(0, fullRecord.length() / 2),
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Board restored = NoteManager.readBoardFile(snapshotFile);
+        assertEquals(2, BoardJournal.replay(journal.getJournalFile(), restored));
+        assertEquals(beforeCrash, describe(restored));
+    }
+
+    @Test
+    void snapshotDropsOnlyTheRecordsItContains() throws IOException {
+        Board board = new Board("Truncated", List.of(), true);
+        Path snapshotFile = directory.resolve("Truncated.json");
+        NoteManager.writeBoardFile(board, snapshotFile);
+
+        BoardJournal journal = new BoardJournal(snapshotFile, 0);
+        Note inSnapshot = addNote(board, "In snapshot", 0);
+        journal.appendUpsert(inSnapshot);
+        journal.flush();
+        long included = journal.beginSnapshot();
+        Board captured = board.snapshot();
+
+        Note afterSnapshot = addNote(board, "After snapshot", 0);
+        journal.appendUpsert(afterSnapshot);
+        journal.flush();
+        journal.writeSnapshot(captured, included);
+
+        List<String> lines = Files.readAllLines(journal.getJournalFile(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(afterSnapshot.getId().toString()));
+
+        Board restored = NoteManager.readBoardFile(snapshotFile);
+        assertEquals(2, BoardJournal.replay(journal.getJournalFile(), restored));
+        assertEquals(describe(board), describe(restored));
+    }
+
+    @Test
+    void compactionFoldsTheJournalIntoTheSnapshot() throws IOException {
+        Board board = new Board("Compacted", List.of(), true);
+        Path snapshotFile = directory.resolve("Compacted.json");
+        NoteManager.writeBoardFile(board, snapshotFile);
+
+        BoardJournal journal = new BoardJournal(snapshotFile, 0);
+        for (int i = 0; i < 20; i++) {
+            journal.appendUpsert(addNote(board, "Note " + i, i % 3));
+        }
+        journal.flush();
+        journal.compact();
+
+        assertFalse(Files.exists(journal.getJournalFile()));
+        assertEquals(describe(board), describe(NoteManager.readBoardFile(snapshotFile)));
+    }
+
+    private static Note addNote(Board board, String title, int column) {
+        Note note = new Note(title, "Content of " + title);
+        note.setColumnId(board.getColumns().get(column).getId());
+        board.addNote(note);
+        return note;
+    }
+
+    /**
+     * Writes a single upsert record to a scratch journal and returns its line, as it would be appended.
+     */
+    private String journalLine(Note note, long sequence) throws IOException {
+        Path scratchSnapshot = directory.resolve("scratch.json");
+        BoardJournal scratch = new BoardJournal(scratchSnapshot, sequence - 1);
+        scratch.appendUpsert(note);
+        scratch.flush();
+        String line = Files.readString(scratch.getJournalFile(), StandardCharsets.UTF_8);
+        scratch.discard();
+        return line;
+    }
+
+    /**
+     * The titles of the notes in each column, in order.
+     */
+    private static Map<String, List<String>> describe(Board board) {
+        Map<String, List<String>> columns = new LinkedHashMap<>();
+        for (Column column : board.getColumns()) {
+            List<String> titles = new ArrayList<>();
+            for (Note note : board.getNotesInColumn(column.getId())) {
+                titles.add(note.getTitle() + " @" + note.getColumnId());
+            }
+            columns.put(column.getId() + " " + column.getName(), titles);
+        }
+        columns.put("all notes", board.getAllNotes().stream().map(Note::getTitle).sorted().toList());
+        return columns;
+    }
+}
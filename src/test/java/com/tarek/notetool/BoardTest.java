@@ -0,0 +1,74 @@
+package com.tarek.notetool;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void aNoteListedInTwoColumnsIsKeptInTheFirstAndCanBeMoved() throws IOException {
+        Board board = new Board("Duplicated", List.of(), true);
+        Note note = new Note("Listed twice", "");
+        note.setColumnId(board.getColumns().get(0).getId());
+        board.addNote(note);
+        Note other = new Note("Other", "");
+        other.setColumnId(board.getColumns().get(2).getId());
+        board.addNote(other);
+        Path boardFile = directory.resolve("Duplicated.json");
+        NoteManager.writeBoardFile(board, boardFile);
+
+        // Edit the file so the note is also listed in the last column
+        JsonObject json = JsonParser.parseString(Files.readString(boardFile, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonArray columns = json.getAsJsonArray("columns");
+        columns.get(2).getAsJsonObject().getAsJsonArray("noteIds").add(note.getId().toString());
+        Files.writeString(boardFile, json.toString(), StandardCharsets.UTF_8);
+
+        Board read = NoteManager.readBoardFile(boardFile);
+        UUID toDo = read.getColumns().get(0).getId();
+        UUID inProgress = read.getColumns().get(1).getId();
+        UUID done = read.getColumns().get(2).getId();
+        assertEquals(List.of(note.getId()), read.findColumnById(toDo).orElseThrow().getNoteIds());
+        assertEquals(List.of(other.getId()), read.findColumnById(done).orElseThrow().getNoteIds());
+
+        assertTrue(read.moveNote(note.getId(), done, 0));
+        assertEquals(List.of(), read.findColumnById(toDo).orElseThrow().getNoteIds());
+        assertEquals(List.of(note.getId(), other.getId()), read.findColumnById(done).orElseThrow().getNoteIds());
+        assertTrue(read.moveNote(note.getId(), inProgress, 0));
+        assertEquals(List.of(note.getId()), read.findColumnById(inProgress).orElseThrow().getNoteIds());
+        assertEquals(List.of(other.getId()), read.findColumnById(done).orElseThrow().getNoteIds());
+    }
+
+    @Test
+    void movingWithinAColumnReordersIt() {
+        Board board = new Board("Reordered", List.of(), true);
+        UUID toDo = board.getColumns().get(0).getId();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Note note = new Note("Note " + i, "");
+            note.setColumnId(toDo);
+            board.addNote(note);
+            ids.add(note.getId());
+        }
+        assertTrue(board.moveNote(ids.get(4), toDo, 0));
+        assertTrue(board.moveNote(ids.get(0), toDo, 4));
+        assertEquals(List.of(ids.get(4), ids.get(1), ids.get(2), ids.get(3), ids.get(0)),
+                board.findColumnById(toDo).orElseThrow().getNoteIds());
+    }
+}
@@ -0,0 +1,113 @@
+package com.tarek.notetool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MarkdownRendererTest {
+
+    // Pieces of markdown that open and close the constructs the chunking has to keep together
+    private static final String[] SNIPPETS = {
+            "\n\n", "\n", "Some text", "# Heading\n", "- item\n", "1. item\n", "    indented\n", "```\n", "~~~~\n",
+            "<!--\n", "-->\n", "<pre>\n", "</pre>\n", "> quote\n", "***", "`", "[link]: https://example.com\n"
+    };
+
+    @Test
+    void chunksParseLikeTheWholeText() {
+        String markdown = """
+                # Title
+
+                A paragraph
+                that goes on.
+
+                - a list
+
+                  with a second paragraph
+                - and another item
+
+                ```
+                code
+
+                with a blank line
+                ```
+
+                <!--
+                a comment
+
+                with a blank line
+                -->
+
+                Last paragraph.
+                """;
+        List<String> chunks = MarkdownRenderer.splitChunks(markdown);
+        assertEquals(5, chunks.size()); // The list may continue the paragraph before it
+        assertEquals(markdown, String.join("", chunks));
+        assertEquals(wholeText(markdown), render(new MarkdownRenderer(), markdown));
+    }
+
+    @Test
+    void randomEditsRenderLikeAFreshRender() {
+        Random random = new Random(22);
+        MarkdownRenderer renderer = new MarkdownRenderer();
+        StringBuilder markdown = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            markdown.append("Paragraph ").append(i).append("\n\n");
+        }
+        for (int step = 0; step < 1000; step++) {
+            int position = random.nextInt(markdown.length() + 1);
+            if (random.nextInt(3) == 0 && position < markdown.length()) {
+                markdown.delete(position, Math.min(markdown.length(), position + 1 + random.nextInt(12)));
+            } else {
+                String snippet = SNIPPETS[random.nextInt(SNIPPETS.length)];
+                if (snippet.startsWith("[link]") && random.nextInt(4) != 0) {
+                    continue; // Rarely, so most edits are to chunked text
+                }
+                markdown.insert(position, snippet);
+            }
+            String text = markdown.toString();
+            assertEquals(render(new MarkdownRenderer(), text), render(renderer, text), "after edit " + step);
+        }
+    }
+
+    @Test
+    void anEditOnlyRendersTheChunksAroundIt() {
+        StringBuilder markdown = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            markdown.append("Paragraph ").append(i).append("\n\n");
+        }
+        MarkdownRenderer renderer = new MarkdownRenderer();
+        List<String> before = render(renderer, markdown.toString());
+        assertSame(before, render(renderer, markdown.toString()));
+
+        int middle = markdown.indexOf("Paragraph 1000\n");
+        markdown.insert(middle + "Paragraph 1000".length(), " edited");
+        List<String> after = render(renderer, markdown.toString());
+        assertEquals(2000, after.size());
+        assertEquals("<p>Paragraph 1000 edited</p>\n", after.get(1000));
+        assertNotSame(before.get(1000), after.get(1000));
+        for (int i = 0; i < after.size(); i++) {
+            if (Math.abs(i - 1000) > 1) {
+                assertSame(before.get(i), after.get(i), "block " + i);
+            }
+        }
+    }
+
+    private static List<String> render(MarkdownRenderer renderer, String markdown) {
+        return renderer.renderBlocks(markdown).join();
+    }
+
+    /**
+     * The blocks of the text parsed as a whole, without chunking.
+     */
+    private static List<String> wholeText(String markdown) {
+        // A link reference definition makes the renderer parse the text in one piece; its own block is empty
+        List<String> blocks = render(new MarkdownRenderer(), markdown + "\n[unused]: https://example.com\n");
+        assertEquals("", blocks.get(blocks.size() - 1));
+        return blocks.subList(0, blocks.size() - 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.tarek.notetool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteOrderTest {
+
+    @Test
+    void randomEditsMatchAnArrayList() {
+        Random random = new Random(19);
+        NoteOrder order = new NoteOrder();
+        List<UUID> expected = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 4 || expected.isEmpty()) {
+                UUID id = UUID.randomUUID();
+                int index = random.nextInt(expected.size() + 1);
+                order.add(index, id);
+                expected.add(index, id);
+            } else if (action < 6) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), order.remove(index));
+            } else if (action < 7) {
+                UUID id = expected.remove(random.nextInt(expected.size()));
+                assertTrue(order.remove(id));
+                assertFalse(order.remove(id));
+            } else if (action < 8) {
+                // A move within the column, as a drag and drop does it
+                UUID id = expected.remove(random.nextInt(expected.size()));
+                order.remove(id);
+                int index = random.nextInt(expected.size() + 1);
+                order.add(index, id);
+                expected.add(index, id);
+            } else if (action < 9) {
+                int index = random.nextInt(expected.size());
+                UUID id = UUID.randomUUID();
+                assertEquals(expected.set(index, id), order.set(index, id));
+            } else {
+                int index = random.nextInt(expected.size());
+                UUID id = expected.get(index);
+                assertEquals(id, order.get(index));
+                assertEquals(index, order.indexOf(id));
+                assertTrue(order.contains(id));
+            }
+            assertEquals(expected.size(), order.size());
+            if (step % 500 == 0) {
+                assertEquals(expected, new ArrayList<>(order));
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(i, order.indexOf(expected.get(i)));
+                }
+            }
+        }
+        assertEquals(expected, new ArrayList<>(order));
+        assertEquals(-1, order.indexOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void iteratorRemovesWhileIterating() {
+        Random random = new Random(20);
+        List<UUID> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add(UUID.randomUUID());
+        }
+        NoteOrder order = new NoteOrder(expected);
+        for (Iterator<UUID> ids = order.iterator(); ids.hasNext(); ) {
+            UUID id = ids.next();
+            if (random.nextInt(3) == 0) {
+                ids.remove();
+                expected.remove(id);
+            }
+        }
+        assertEquals(expected, new ArrayList<>(order));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, order.indexOf(expected.get(i)));
+        }
+    }
+
+    @Test
+    void eachIdIsOnlyListedOnce() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        NoteOrder order = new NoteOrder(List.of(first, second, first));
+        assertEquals(List.of(first, second), order);
+
+        assertThrows(IllegalArgumentException.class, () -> order.add(0, second));
+        assertThrows(IllegalArgumentException.class, () -> order.set(0, second));
+        assertEquals(List.of(first, second), order);
+    }
+}
@@ -0,0 +1,109 @@
+package com.tarek.notetool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NoteSearchIndexTest {
+
+    private static final String[] WORDS = {"alpha", "alps", "beta", "better", "gamma", "delta", "epsilon", "zeta"};
+
+    @Test
+    void searchMatchesAScanAfterRandomEdits() {
+        Random random = new Random(42);
+        NoteSearchIndex index = new NoteSearchIndex();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Note note = new Note(randomText(random, 2), randomText(random, 10));
+            notes.add(note);
+            index.update(note);
+        }
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(10);
+            if (action < 6) {
+                Note note = notes.get(random.nextInt(notes.size()));
+                if (random.nextBoolean()) {
+                    note.setContent(randomText(random, 10));
+                } else {
+                    note.setTitle(randomText(random, 2));
+                }
+                index.update(note);
+            } else if (action < 8 && !notes.isEmpty()) {
+                index.remove(notes.remove(random.nextInt(notes.size())).getId());
+            } else {
+                Note note = new Note(randomText(random, 2), randomText(random, 10));
+                notes.add(note);
+                index.update(note);
+            }
+            if (step % 50 == 0) {
+                assertSearchMatchesScan(index, notes);
+            }
+        }
+        assertEquals(notes.size(), index.size());
+        assertSearchMatchesScan(index, notes);
+    }
+
+    @Test
+    void editingOneNoteOfALargeIndexKeepsTheSharedPostings() {
+        // Every note shares the same few words, so each of their posting lists holds every note; removing the
+        // edited note's postings by slot moves other notes' postings around, which must keep them findable
+        NoteSearchIndex index = new NoteSearchIndex();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Note note = new Note("Note " + i, "alpha beta gamma delta epsilon");
+            notes.add(note);
+            index.update(note);
+        }
+        Note edited = notes.get(notes.size() / 2);
+        for (int i = 0; i < 20_000; i++) {
+            edited.setContent("alpha beta gamma delta epsilon edit" + i);
+            index.update(edited);
+        }
+
+        assertEquals(List.of(edited.getId()), index.search("edit19999", 10));
+        assertEquals(notes.size(), index.search("alpha gamma", notes.size()).size());
+        index.remove(edited.getId());
+        assertEquals(notes.size() - 1, index.search("epsilon", notes.size()).size());
+    }
+
+    private static void assertSearchMatchesScan(NoteSearchIndex index, List<Note> notes) {
+        for (String query : List.of("alp", "alpha", "be", "better gamma", "zeta delta al", "missing")) {
+            Set<UUID> expected = new HashSet<>();
+            for (Note note : notes) {
+                if (containsAllPrefixes(note, query)) {
+                    expected.add(note.getId());
+                }
+            }
+            List<UUID> found = index.search(query, Integer.MAX_VALUE);
+            assertEquals(found.size(), new HashSet<>(found).size(), "duplicate results for " + query);
+            assertEquals(expected, new HashSet<>(found), query);
+        }
+    }
+
+    private static boolean containsAllPrefixes(Note note, String query) {
+        List<String> words = new ArrayList<>(NoteSearchIndex.tokenize(note.getTitle()));
+        words.addAll(NoteSearchIndex.tokenize(note.getContent()));
+        for (String queryWord : NoteSearchIndex.tokenize(query)) {
+            if (words.stream().noneMatch(word -> word.startsWith(queryWord))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String randomText(Random random, int maxWords) {
+        StringBuilder text = new StringBuilder();
+        int count = random.nextInt(maxWords + 1);
+        for (int i = 0; i < count; i++) {
+            text.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
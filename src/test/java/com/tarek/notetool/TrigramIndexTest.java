@@ -0,0 +1,135 @@
+package com.tarek.notetool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+    // A small alphabet, so random texts share many trigrams and queries have many partial matches
+    private static final String ALPHABET = "abcd ";
+
+    @Test
+    void candidatesIncludeEveryNoteAScanFinds() {
+        Random random = new Random(7);
+        TrigramIndex index = new TrigramIndex();
+        Map<UUID, String> texts = new HashMap<>();
+        List<UUID> noteIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            UUID noteId = UUID.randomUUID();
+            noteIds.add(noteId);
+            update(index, texts, noteId, randomText(random, 40));
+        }
+        // Enough changes that the dead text numbers are compacted away several times
+        for (int step = 0; step < 6000; step++) {
+            int action = random.nextInt(10);
+            if (action < 7) {
+                UUID noteId = noteIds.get(random.nextInt(noteIds.size()));
+                update(index, texts, noteId, randomText(random, 40));
+            } else if (action < 8) {
+                UUID noteId = noteIds.get(random.nextInt(noteIds.size()));
+                index.remove(noteId);
+                texts.remove(noteId);
+            } else {
+                UUID noteId = UUID.randomUUID();
+                noteIds.add(noteId);
+                update(index, texts, noteId, randomText(random, 40));
+            }
+            if (step % 100 == 0) {
+                assertMatchesScan(index, texts, random);
+            }
+        }
+        assertMatchesScan(index, texts, random);
+    }
+
+    @Test
+    void shortTextsAndQueriesAreCovered() {
+        TrigramIndex index = new TrigramIndex();
+        UUID single = UUID.randomUUID();
+        UUID pair = UUID.randomUUID();
+        UUID empty = UUID.randomUUID();
+        index.update(single, "x");
+        index.update(pair, "xy");
+        index.update(empty, null);
+
+        assertEquals(Set.of(single, pair), index.candidates("x"));
+        assertEquals(Set.of(pair), index.candidates("xy"));
+        assertEquals(Set.of(pair), index.candidates("y"));
+        assertEquals(Set.of(), index.candidates("xyz"));
+        assertEquals(Set.of(), index.candidates(""));
+    }
+
+    @Test
+    void anUpdatedTextNoLongerMatchesItsOldContent() {
+        TrigramIndex index = new TrigramIndex();
+        UUID noteId = UUID.randomUUID();
+        index.update(noteId, "the old text");
+        index.update(noteId, "something new");
+
+        assertEquals(Set.of(), index.candidates("old text"));
+        assertEquals(Set.of(noteId), index.candidates("new"));
+        index.remove(noteId);
+        assertEquals(Set.of(), index.candidates("new"));
+    }
+
+    private static void update(TrigramIndex index, Map<UUID, String> texts, UUID noteId, String text) {
+        index.update(noteId, text);
+        texts.put(noteId, text);
+    }
+
+    private static void assertMatchesScan(TrigramIndex index, Map<UUID, String> texts, Random random) {
+        for (int i = 0; i < 30; i++) {
+            String query = randomText(random, 1 + i % 6);
+            if (query.isEmpty()) {
+                continue;
+            }
+            Set<UUID> expected = new HashSet<>();
+            texts.forEach((noteId, text) -> {
+                if (text.contains(query)) {
+                    expected.add(noteId);
+                }
+            });
+            Set<UUID> candidates = index.candidates(query);
+            assertTrue(candidates.containsAll(expected), "missing matches for '" + query + "'");
+            assertTrue(texts.keySet().containsAll(candidates), "removed notes returned for '" + query + "'");
+            if (query.length() >= 3) {
+                // Exactly the texts that contain every trigram of the query
+                Set<UUID> withAllTrigrams = new HashSet<>();
+                texts.forEach((noteId, text) -> {
+                    if (containsAllTrigrams(text, query)) {
+                        withAllTrigrams.add(noteId);
+                    }
+                });
+                assertEquals(withAllTrigrams, candidates, "candidates for '" + query + "'");
+            }
+        }
+    }
+
+    private static boolean containsAllTrigrams(String text, String query) {
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            if (!text.contains(query.substring(i, i + 3))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String randomText(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}